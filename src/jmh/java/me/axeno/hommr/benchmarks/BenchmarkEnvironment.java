@@ -0,0 +1,83 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.Hommr;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginManager;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Stubs of the Bukkit server and the plugin instance for benchmarks, in the spirit of the unit test mocks.
+ * <p>
+ * Unlike static mocks, which only apply to the thread that created them, the stubs are installed globally so
+ * that multi-threaded benchmarks see them. They are created with {@code stubOnly()}, so invocations are not
+ * recorded and do not pile up in memory over millions of operations.
+ */
+final class BenchmarkEnvironment {
+
+    private static final Logger LOGGER = Logger.getLogger("Hommr-Benchmark");
+
+    private static World world;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Installs a stub server whose plugin manager dispatches events to no listener, and a stub plugin instance
+     * logging to a plain logger.
+     *
+     * @param dataFolder the data folder of the stub plugin
+     */
+    static synchronized void install(File dataFolder) throws ReflectiveOperationException {
+        if (Bukkit.getServer() == null) {
+            Server server = mock(Server.class, withSettings().stubOnly());
+            PluginManager pluginManager = mock(PluginManager.class, withSettings().stubOnly());
+            when(server.getLogger()).thenReturn(LOGGER);
+            when(server.getName()).thenReturn("Benchmark");
+            when(server.getVersion()).thenReturn("benchmark");
+            when(server.getBukkitVersion()).thenReturn("benchmark");
+            when(server.getPluginManager()).thenReturn(pluginManager);
+            Bukkit.setServer(server);
+
+            world = mock(World.class, withSettings().stubOnly());
+            when(world.getName()).thenReturn("world");
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("journal.enabled", false);
+        Hommr plugin = mock(Hommr.class, withSettings().stubOnly());
+        when(plugin.getLogger()).thenReturn(LOGGER);
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+
+        Field instance = Hommr.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, plugin);
+    }
+
+    static World world() {
+        return world;
+    }
+
+    /**
+     * Creates a stub online player.
+     *
+     * @param playerId the UUID of the player
+     * @return the stub player
+     */
+    static Player player(UUID playerId) {
+        Player player = mock(Player.class, withSettings().stubOnly());
+        when(player.getUniqueId()).thenReturn(playerId);
+        when(player.getWorld()).thenReturn(world);
+        return player;
+    }
+}
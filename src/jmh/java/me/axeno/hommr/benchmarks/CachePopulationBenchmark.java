@@ -0,0 +1,63 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.PlayerHomes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to fill the home cache from rows already read from the storage, as done at startup without lazy loading.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class CachePopulationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param("3")
+    public int homesPerPlayer;
+
+    private List<Home> homes;
+
+    @Setup
+    public void setUp() {
+        homes = generateHomes(rows, homesPerPlayer);
+    }
+
+    @Benchmark
+    public Map<UUID, PlayerHomes> populate() {
+        Map<UUID, PlayerHomes> cache = new ConcurrentHashMap<>();
+        for (Home home : homes) {
+            cache.computeIfAbsent(home.getOwner(), PlayerHomes::new).loadHome(home);
+        }
+        return cache;
+    }
+
+    /**
+     * Generates rows spread over {@code rows / homesPerPlayer} owners and three worlds.
+     */
+    static List<Home> generateHomes(int rows, int homesPerPlayer) {
+        String[] worlds = {"world", "world_nether", "world_the_end"};
+        List<Home> homes = new ArrayList<>(rows);
+        UUID owner = null;
+        for (int i = 0; i < rows; i++) {
+            if (i % homesPerPlayer == 0) {
+                owner = UUID.randomUUID();
+            }
+            homes.add(new Home(0, owner, "home" + i % homesPerPlayer, worlds[i % worlds.length],
+                    i, 64, -i, 90f, 0f, 1_700_000_000_000L + i));
+        }
+        return homes;
+    }
+}
@@ -0,0 +1,67 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.managers.DatabaseManager;
+import me.axeno.hommr.models.Home;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full save and full load of the homes with {@link DatabaseManager} against a file-backed SQLite database.
+ * <p>
+ * The database is created and migrated once per trial, then filled once so that {@link #loadAll()} has rows to
+ * read. {@link #saveAllHomes()} replaces the whole table on each invocation.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class DatabaseManagerBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int homeCount;
+
+    private Path directory;
+    private DatabaseManager databaseManager;
+    private List<Home> homes;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("hommr-bench");
+        BenchmarkEnvironment.install(directory.toFile());
+
+        databaseManager = new DatabaseManager();
+        databaseManager.init("jdbc:sqlite:" + directory.resolve("homes.db"), "", "");
+        homes = CachePopulationBenchmark.generateHomes(homeCount, 3);
+        databaseManager.saveAllHomes(homes);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        databaseManager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveAllHomes() throws SQLException {
+        databaseManager.saveAllHomes(homes);
+    }
+
+    @Benchmark
+    public List<Home> loadAll() throws SQLException {
+        return databaseManager.loadAll();
+    }
+}
@@ -0,0 +1,91 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.PlayerHomes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory footprint of a cache of 1M homes, with the compact {@link PlayerHomes} layout and with the previous one.
+ * <p>
+ * The primary score is the time to fill the cache; the retained size of the cache, measured with JOL, is
+ * reported per home as the {@code bytesPerHome} secondary metric. Homes are created the way the storage creates
+ * them, with their own owner UUID and world name for each row.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class HomeFootprintBenchmark {
+
+    private static final String[] WORLDS = {"world", "world_nether", "world_the_end"};
+
+    @Param("1000000")
+    public int homeCount;
+
+    @Param({"1", "3", "10"})
+    public int homesPerPlayer;
+
+    private UUID[] owners;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerHome;
+    }
+
+    /**
+     * Cache entry of the previous layout: a concurrent map of homes, a concurrent dirty set and a concurrent
+     * tombstone map per player.
+     */
+    record LegacyPlayerHomes(UUID playerId, Map<String, Home> homes, Set<String> dirtyNames, Map<String, Home> tombstones) {
+        LegacyPlayerHomes(UUID playerId) {
+            this(playerId, new ConcurrentHashMap<>(), ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        owners = new UUID[Math.max(1, homeCount / homesPerPlayer)];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = UUID.randomUUID();
+        }
+    }
+
+    @Benchmark
+    public Map<UUID, PlayerHomes> compact(Footprint footprint) {
+        Map<UUID, PlayerHomes> cache = new ConcurrentHashMap<>();
+        for (int i = 0; i < homeCount; i++) {
+            Home home = createHome(i);
+            cache.computeIfAbsent(home.getOwner(), PlayerHomes::new).loadHome(home);
+        }
+        footprint.bytesPerHome = GraphLayout.parseInstance(cache).totalSize() / homeCount;
+        return cache;
+    }
+
+    @Benchmark
+    public Map<UUID, LegacyPlayerHomes> legacy(Footprint footprint) {
+        Map<UUID, LegacyPlayerHomes> cache = new ConcurrentHashMap<>();
+        for (int i = 0; i < homeCount; i++) {
+            Home home = createHome(i);
+            cache.computeIfAbsent(home.getOwner(), LegacyPlayerHomes::new).homes().put(home.getName().toLowerCase(), home);
+        }
+        footprint.bytesPerHome = GraphLayout.parseInstance(cache).totalSize() / homeCount;
+        return cache;
+    }
+
+    private Home createHome(int index) {
+        UUID owner = owners[index % owners.length];
+        return new Home(0, new UUID(owner.getMostSignificantBits(), owner.getLeastSignificantBits()),
+                "home" + index / owners.length, new String(WORLDS[index % WORLDS.length]),
+                index, 64, -index, 90f, 0f, 1_700_000_000_000L + index);
+    }
+}
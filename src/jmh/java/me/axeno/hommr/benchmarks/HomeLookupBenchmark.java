@@ -0,0 +1,75 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.HomeName;
+import me.axeno.hommr.models.PlayerHomes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of a home by owner and name, as done by {@code /home <name>}.
+ * <p>
+ * Run with the gc profiler (enabled in the build), {@code gc.alloc.rate.norm} must stay at 0 B/op for
+ * {@link #findHome()} and {@link #findHomeByKey()}, whatever the case of the typed name.
+ * {@link #lowercaseThenGet()} reproduces the previous path, which lowercased the name on every lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HomeLookupBenchmark {
+
+    @Param({"3", "50"})
+    public int homesPerPlayer;
+
+    @Param({"base", "Base"})
+    public String typedName;
+
+    private final Map<UUID, PlayerHomes> cache = new ConcurrentHashMap<>();
+    private final Map<String, Home> legacyHomes = new ConcurrentHashMap<>();
+    private UUID playerId;
+    private HomeName key;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < 1000; i++) {
+            UUID owner = UUID.randomUUID();
+            PlayerHomes playerHomes = new PlayerHomes(owner);
+            for (int j = 0; j < homesPerPlayer - 1; j++) {
+                playerHomes.loadHome(new Home(0, owner, "home" + j, "world", j, 64, j, 0f, 0f, 0L));
+            }
+            playerHomes.loadHome(new Home(0, owner, "base", "world", 0, 64, 0, 0f, 0f, 0L));
+            cache.put(owner, playerHomes);
+            playerId = owner;
+        }
+        cache.get(playerId).getHomes().forEach(legacyHomes::put);
+        key = HomeName.of(typedName);
+    }
+
+    @Benchmark
+    public Home findHome() {
+        PlayerHomes playerHomes = cache.get(playerId);
+        return playerHomes == null ? null : playerHomes.findHome(typedName);
+    }
+
+    @Benchmark
+    public Home findHomeByKey() {
+        PlayerHomes playerHomes = cache.get(playerId);
+        return playerHomes == null ? null : playerHomes.findHome(key);
+    }
+
+    @Benchmark
+    public Home lowercaseThenGet() {
+        String lowercase = typedName.toLowerCase();
+        if (!legacyHomes.containsKey(lowercase.toLowerCase())) {
+            return null;
+        }
+        return legacyHomes.get(lowercase.toLowerCase());
+    }
+}
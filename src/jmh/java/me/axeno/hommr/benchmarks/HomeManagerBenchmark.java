@@ -0,0 +1,120 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.managers.HomeManager;
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.PlayerHomes;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link HomeManager} cache operations used by commands and the API, alone and under contention.
+ * <p>
+ * The cache holds {@code players} players of {@code homesPerPlayer} homes each. Reads pick a random player and
+ * home; {@code setHome} overwrites one of the existing homes, so the cache does not grow during a run. The
+ * {@code readWrite} group runs three reader threads against one writer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HomeManagerBenchmark {
+
+    @Param("10000")
+    public int players;
+
+    @Param("5")
+    public int homesPerPlayer;
+
+    private UUID[] playerIds;
+    private Player[] onlinePlayers;
+    private String[] homeNames;
+    private Location location;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int nextPlayer(int players) {
+            return random.nextInt(players);
+        }
+
+        int nextHome(int homes) {
+            return random.nextInt(homes);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.install(Files.createTempDirectory("hommr-bench").toFile());
+        location = new Location(BenchmarkEnvironment.world(), 10, 64, 10, 90f, 0f);
+
+        homeNames = new String[homesPerPlayer];
+        for (int i = 0; i < homesPerPlayer; i++) {
+            homeNames[i] = "home" + i;
+        }
+
+        Map<UUID, PlayerHomes> cache = HomeManager.getPlayerHomesCache();
+        cache.clear();
+        playerIds = new UUID[players];
+        onlinePlayers = new Player[players];
+        for (int i = 0; i < players; i++) {
+            UUID playerId = UUID.randomUUID();
+            PlayerHomes playerHomes = new PlayerHomes(playerId);
+            for (String name : homeNames) {
+                playerHomes.loadHome(new Home(0, playerId, name, "world", i, 64, i, 0f, 0f, 0L));
+            }
+            cache.put(playerId, playerHomes);
+            playerIds[i] = playerId;
+            onlinePlayers[i] = BenchmarkEnvironment.player(playerId);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        HomeManager.getPlayerHomesCache().clear();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Home> getHome(Cursor cursor) {
+        return HomeManager.getHome(playerIds[cursor.nextPlayer(players)], homeNames[cursor.nextHome(homesPerPlayer)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean hasHome(Cursor cursor) {
+        return HomeManager.hasHome(playerIds[cursor.nextPlayer(players)], homeNames[cursor.nextHome(homesPerPlayer)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Set<String> getHomeNames(Cursor cursor) {
+        return HomeManager.getHomeNames(playerIds[cursor.nextPlayer(players)]);
+    }
+
+    @Benchmark
+    public boolean setHome(Cursor cursor) {
+        return HomeManager.setHome(onlinePlayers[cursor.nextPlayer(players)], homeNames[cursor.nextHome(homesPerPlayer)], location);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Optional<Home> readWhileWriting(Cursor cursor) {
+        return getHome(cursor);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public boolean writeWhileReading(Cursor cursor) {
+        return setHome(cursor);
+    }
+}
@@ -0,0 +1,72 @@
+package me.axeno.hommr.benchmarks;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.spatial.HomeIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest and radius queries over one million homes, as done by the spatial API and {@code /hommr near}.
+ * <p>
+ * {@link #nearest()} and {@link #within()} must stay well under a millisecond per query.
+ * {@link #nearestByScan()} reproduces a scan of every home for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpatialIndexBenchmark {
+
+    @Param({"1000000"})
+    public int homeCount;
+
+    @Param({"64"})
+    public double radius;
+
+    private final HomeIndex index = new HomeIndex();
+    private final List<Home> homes = new ArrayList<>();
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < homeCount; i++) {
+            // Most homes around spawn, the rest scattered, like a long-running survival world
+            double spread = i % 10 == 0 ? 200_000 : 10_000;
+            Home home = new Home(0, UUID.randomUUID(), "home", "world",
+                    random.nextGaussian() * spread, 64, random.nextGaussian() * spread, 0f, 0f, 0L);
+            homes.add(home);
+            index.add(home);
+        }
+    }
+
+    @Benchmark
+    public List<Home> nearest() {
+        return index.nearest("world", queryCoordinate(), 64, queryCoordinate(), 10);
+    }
+
+    @Benchmark
+    public List<Home> within() {
+        return index.within("world", queryCoordinate(), 64, queryCoordinate(), radius);
+    }
+
+    @Benchmark
+    public Home nearestByScan() {
+        double x = queryCoordinate();
+        double z = queryCoordinate();
+        return homes.stream()
+                .min(Comparator.comparingDouble(home -> Math.pow(home.getX() - x, 2) + Math.pow(home.getZ() - z, 2)))
+                .orElse(null);
+    }
+
+    private double queryCoordinate() {
+        return random.nextGaussian() * 10_000;
+    }
+}
@@ -3,9 +3,12 @@ package me.axeno.hommr;
 import lombok.Getter;
 import me.axeno.hommr.api.HommrApi;
 import me.axeno.hommr.api.impl.HommrApiImpl;
+import me.axeno.hommr.commands.AdminCommands;
 import me.axeno.hommr.commands.HomeCommands;
+import me.axeno.hommr.listeners.PlayerConnectionListener;
+import me.axeno.hommr.listeners.TeleportWarmupListener;
 import me.axeno.hommr.managers.HomeManager;
-import me.axeno.hommr.models.PlayerHomes;
+import me.axeno.hommr.metrics.HommrMetrics;
 import org.bstats.bukkit.Metrics;
 import org.bstats.charts.SingleLineChart;
 import org.bukkit.Bukkit;
@@ -29,7 +32,8 @@ public final class Hommr extends JavaPlugin {
 
     /**
      * Initializes the plugin on enable: sets the singleton instance, ensures default configuration,
-     * starts the HomeManager, creates and registers the Hommr API service, builds the command lamp,
+     * starts the HomeManager and its autosave task, registers the player connection listener,
+     * creates and registers the Hommr API service, builds the command lamp,
      * registers plugin commands, and emits the startup log banner.
      */
     @Override
@@ -38,16 +42,37 @@ public final class Hommr extends JavaPlugin {
 
         saveDefaultConfig();
 
+        HommrMetrics.setEnabled(getConfig().getBoolean("metrics.enabled", true));
         HomeManager.init();
 
+        long autosaveTicks = getConfig().getLong("autosave.interval-seconds", 60) * 20L;
+        if (autosaveTicks > 0) {
+            Bukkit.getScheduler().runTaskTimerAsynchronously(this, HomeManager::flushChanges, autosaveTicks, autosaveTicks);
+        }
+
+        long pollTicks = getConfig().getLong("coherence.poll-interval-seconds", 2) * 20L;
+        if (getConfig().getBoolean("coherence.enabled", false) && pollTicks > 0) {
+            Bukkit.getScheduler().runTaskTimerAsynchronously(this, HomeManager::pollRemoteChanges, pollTicks, pollTicks);
+        }
+
+        long prewarmTicks = getConfig().getLong("teleport.prewarm.interval-seconds", 300) * 20L;
+        if (getConfig().getBoolean("teleport.prewarm.enabled", false) && prewarmTicks > 0) {
+            Bukkit.getScheduler().runTaskTimer(this, HomeManager::refreshPrewarmedChunks, prewarmTicks, prewarmTicks);
+        }
+
+        Bukkit.getScheduler().runTaskTimer(this, HomeManager::tickTeleports, 1L, 1L);
+        if (getConfig().getBoolean("teleport.queue.enabled", true)) {
+            Bukkit.getScheduler().runTaskTimer(this, HomeCommands::showTeleportQueue, 20L, 20L);
+        }
+
+        Bukkit.getPluginManager().registerEvents(new PlayerConnectionListener(), this);
+        Bukkit.getPluginManager().registerEvents(new TeleportWarmupListener(), this);
+
         int pluginId = 29415;
         Metrics metrics = new Metrics(this, pluginId);
 
-        metrics.addCustomChart(new SingleLineChart("total_homes", () -> {
-            return HomeManager.getPlayerHomesCache().values().stream()
-                    .mapToInt(PlayerHomes::getHomeCount)
-                    .sum();
-        }));
+        metrics.addCustomChart(new SingleLineChart("total_homes", () -> (int) HomeManager.getHomeCounters().getTotalHomes()));
+        metrics.addCustomChart(new SingleLineChart("active_owners", () -> (int) HomeManager.getHomeCounters().getActiveOwners()));
 
         this.api = new HommrApiImpl();
 
@@ -56,6 +81,7 @@ public final class Hommr extends JavaPlugin {
         this.lamp = BukkitLamp.builder(this).build();
 
         lamp.register(new HomeCommands());
+        lamp.register(new AdminCommands());
 
         this.logLoadMessage();
     }
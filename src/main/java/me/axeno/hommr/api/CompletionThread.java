@@ -0,0 +1,19 @@
+package me.axeno.hommr.api;
+
+/**
+ * Thread on which the futures returned by the asynchronous methods of {@link HommrApi} are completed,
+ * and therefore on which non-async callbacks such as {@code thenAccept} run.
+ */
+public enum CompletionThread {
+
+    /**
+     * Complete on the thread that finished the work: a Hommr I/O thread for reads, the main thread for
+     * changes since their events are fired there. Callbacks must not assume they run on the main thread.
+     */
+    ASYNC,
+
+    /**
+     * Always complete on the server main thread, so callbacks can safely use the Bukkit API.
+     */
+    MAIN_THREAD
+}
@@ -1,12 +1,17 @@
 package me.axeno.hommr.api;
 
+import me.axeno.hommr.metrics.HommrMetrics;
 import me.axeno.hommr.models.Home;
+import me.axeno.hommr.teleport.TeleportResult;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Public API of Hommr
@@ -22,6 +27,21 @@ import java.util.UUID;
  *     boolean success = hommrApi.setHome(playerId, homeName, location);
  *     }
  * </pre>
+ * <p>
+ * The synchronous methods only see the homes currently cached and must be called from the main thread.
+ * The {@code *Async} methods load the homes of offline players on a Hommr I/O thread instead and never block:
+ * </p>
+ * <pre>
+ *     {@code
+ *     hommrApi.getHomeAsync(playerId, "base", CompletionThread.MAIN_THREAD)
+ *             .thenAccept(home -> home.ifPresent(h -> player.sendMessage("Base is in " + h.getWorld())));
+ *     }
+ * </pre>
+ * <p>
+ * With background loading enabled, the API is registered before the homes are loaded. Until {@link #isReady()}
+ * returns true, the synchronous methods only see the homes loaded so far, while the {@code *Async} methods wait
+ * for the load to complete.
+ * </p>
  */
 public interface HommrApi {
 
@@ -66,10 +86,23 @@ public interface HommrApi {
      *
      * @param player   Player to teleport
      * @param homeName Name of the home
-     * @return true if the teleportation was successful, false otherwise
+     * @return true if the teleportation was started, false if the home was not found or the teleport was cancelled
+     * @deprecated The player is only moved once the chunk of the home is loaded, use {@link #teleportToHomeAsync(Player, String)}
      */
+    @Deprecated
     boolean teleportToHome(Player player, String homeName);
 
+    /**
+     * Teleport a player to one of their homes, loading the chunk of the home asynchronously first.
+     * Must be called from the main thread, which the {@link me.axeno.hommr.events.HomeTeleportEvent} is fired on
+     * before the chunk is loaded
+     *
+     * @param player   Player to teleport
+     * @param homeName Name of the home
+     * @return Future of the outcome of the teleport, completed on the main thread
+     */
+    CompletableFuture<TeleportResult> teleportToHomeAsync(Player player, String homeName);
+
     /**
      * Get the number of homes a player has
      *
@@ -78,6 +111,32 @@ public interface HommrApi {
      */
     int getHomeCount(UUID playerUniqueId);
 
+    /**
+     * Get the maximum number of homes a player may set, resolved from their permissions and cached
+     *
+     * @param playerUniqueId UUID of the player
+     * @return Maximum number of homes, -1 if unlimited; for an offline player, the limit cached while they were
+     * online, or the limit of a player without any permission
+     */
+    int getMaxHomes(UUID playerUniqueId);
+
+    /**
+     * Get the maximum number of homes a player may set in a world, on top of {@link #getMaxHomes(UUID)}
+     *
+     * @param playerUniqueId UUID of the player
+     * @param world          Name of the world
+     * @return Maximum number of homes in the world, -1 if the world does not limit them
+     */
+    int getMaxHomes(UUID playerUniqueId, String world);
+
+    /**
+     * Forget the cached home limit of a player, so that it is resolved again from their current permissions. Call
+     * it after changing the permissions or groups of an online player.
+     *
+     * @param playerUniqueId UUID of the player
+     */
+    void invalidateMaxHomes(UUID playerUniqueId);
+
     /**
      * Check if a player has a home with the given name
      *
@@ -86,4 +145,128 @@ public interface HommrApi {
      * @return true if the home exists, false otherwise
      */
     boolean hasHome(UUID playerUniqueId, String homeName);
+
+    /**
+     * Get a specific home of a player, loading their homes if they are not cached
+     *
+     * @param playerUniqueId UUID of the player
+     * @param homeName       Name of the home
+     * @param completion     Thread on which the returned future is completed
+     * @return Future of the home, empty if not found
+     */
+    CompletableFuture<Optional<Home>> getHomeAsync(UUID playerUniqueId, String homeName, CompletionThread completion);
+
+    /**
+     * Get a specific home of a player, loading their homes if they are not cached
+     *
+     * @param playerUniqueId UUID of the player
+     * @param homeName       Name of the home
+     * @return Future of the home, empty if not found, completed as {@link CompletionThread#ASYNC}
+     */
+    default CompletableFuture<Optional<Home>> getHomeAsync(UUID playerUniqueId, String homeName) {
+        return getHomeAsync(playerUniqueId, homeName, CompletionThread.ASYNC);
+    }
+
+    /**
+     * Get all homes of a player, loading them if they are not cached
+     *
+     * @param playerUniqueId UUID of the player
+     * @param completion     Thread on which the returned future is completed
+     * @return Future of an unmodifiable snapshot of the homes
+     */
+    CompletableFuture<Collection<Home>> getHomesAsync(UUID playerUniqueId, CompletionThread completion);
+
+    /**
+     * Get all homes of a player, loading them if they are not cached
+     *
+     * @param playerUniqueId UUID of the player
+     * @return Future of an unmodifiable snapshot of the homes, completed as {@link CompletionThread#ASYNC}
+     */
+    default CompletableFuture<Collection<Home>> getHomesAsync(UUID playerUniqueId) {
+        return getHomesAsync(playerUniqueId, CompletionThread.ASYNC);
+    }
+
+    /**
+     * Set a home for a player without blocking the caller
+     *
+     * @param playerUniqueId UUID of the player, who must be online when the home is set
+     * @param homeName       Name of the home
+     * @param location       Location of the home
+     * @param completion     Thread on which the returned future is completed
+     * @return Future of true if the home was set successfully, false otherwise
+     */
+    CompletableFuture<Boolean> setHomeAsync(UUID playerUniqueId, String homeName, Location location, CompletionThread completion);
+
+    /**
+     * Set a home for a player without blocking the caller
+     *
+     * @param playerUniqueId UUID of the player, who must be online when the home is set
+     * @param homeName       Name of the home
+     * @param location       Location of the home
+     * @return Future of true if the home was set successfully, completed as {@link CompletionThread#ASYNC}
+     */
+    default CompletableFuture<Boolean> setHomeAsync(UUID playerUniqueId, String homeName, Location location) {
+        return setHomeAsync(playerUniqueId, homeName, location, CompletionThread.ASYNC);
+    }
+
+    /**
+     * Delete a home of a player without blocking the caller
+     *
+     * @param playerUniqueId UUID of the player, who must be online when the home is deleted
+     * @param homeName       Name of the home
+     * @param completion     Thread on which the returned future is completed
+     * @return Future of true if the home was deleted successfully, false otherwise
+     */
+    CompletableFuture<Boolean> deleteHomeAsync(UUID playerUniqueId, String homeName, CompletionThread completion);
+
+    /**
+     * Delete a home of a player without blocking the caller
+     *
+     * @param playerUniqueId UUID of the player, who must be online when the home is deleted
+     * @param homeName       Name of the home
+     * @return Future of true if the home was deleted successfully, completed as {@link CompletionThread#ASYNC}
+     */
+    default CompletableFuture<Boolean> deleteHomeAsync(UUID playerUniqueId, String homeName) {
+        return deleteHomeAsync(playerUniqueId, homeName, CompletionThread.ASYNC);
+    }
+
+    /**
+     * Get the homes of every player closest to a location, in the world of the location
+     *
+     * @param location Location to search around
+     * @param count    Maximum number of homes to return
+     * @return Up to count homes, closest first; with lazy loading, only homes of cached players are considered
+     */
+    List<Home> getNearestHomes(Location location, int count);
+
+    /**
+     * Get the homes of every player within a distance of a location, in the world of the location
+     *
+     * @param location Location to search around
+     * @param radius   Maximum distance in blocks
+     * @return Homes within the radius, closest first; with lazy loading, only homes of cached players are considered
+     */
+    List<Home> getHomesWithin(Location location, double radius);
+
+    /**
+     * Check if every home is loaded
+     *
+     * @return true once the homes are loaded, false while they are still loading in the background
+     */
+    boolean isReady();
+
+    /**
+     * Get a future completed once every home is loaded
+     *
+     * @return Future completed when the homes are ready, or completed exceptionally if they could not be loaded
+     */
+    CompletableFuture<Void> whenReady();
+
+    /**
+     * Get the internal metrics of Hommr: latency histograms of storage calls, commands, event dispatch and
+     * teleports, and counters of cache hits, misses and home changes
+     *
+     * @return Snapshot of the metrics at the time of the call
+     */
+    HommrMetrics.Snapshot getMetrics();
 }
@@ -1,16 +1,23 @@
 package me.axeno.hommr.api.impl;
 
+import me.axeno.hommr.api.CompletionThread;
 import me.axeno.hommr.api.HommrApi;
 import me.axeno.hommr.managers.HomeManager;
+import me.axeno.hommr.metrics.HommrMetrics;
 import me.axeno.hommr.models.Home;
+import me.axeno.hommr.teleport.TeleportResult;
 import lombok.RequiredArgsConstructor;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Implementation of the Hommr API
@@ -45,17 +52,100 @@ public class HommrApiImpl implements HommrApi {
     }
 
     @Override
+    @Deprecated
     public boolean teleportToHome(Player player, String homeName) {
         return HomeManager.teleportToHome(player, homeName);
     }
 
+    @Override
+    public CompletableFuture<TeleportResult> teleportToHomeAsync(Player player, String homeName) {
+        return HomeManager.teleportToHomeAsync(player, homeName);
+    }
+
     @Override
     public int getHomeCount(UUID playerUniqueId) {
         return HomeManager.getHomeCount(playerUniqueId);
     }
 
+    @Override
+    public int getMaxHomes(UUID playerUniqueId) {
+        return HomeManager.getHomeLimit(playerUniqueId).total();
+    }
+
+    @Override
+    public int getMaxHomes(UUID playerUniqueId, String world) {
+        return HomeManager.getHomeLimit(playerUniqueId).forWorld(world);
+    }
+
+    @Override
+    public void invalidateMaxHomes(UUID playerUniqueId) {
+        HomeManager.invalidateMaxHomes(playerUniqueId);
+    }
+
     @Override
     public boolean hasHome(UUID playerUniqueId, String homeName) {
         return HomeManager.hasHome(playerUniqueId, homeName);
     }
+
+    @Override
+    public CompletableFuture<Optional<Home>> getHomeAsync(UUID playerUniqueId, String homeName, CompletionThread completion) {
+        return completeOn(HomeManager.getHomeAsync(playerUniqueId, homeName), completion);
+    }
+
+    @Override
+    public CompletableFuture<Collection<Home>> getHomesAsync(UUID playerUniqueId, CompletionThread completion) {
+        return completeOn(HomeManager.getHomesAsync(playerUniqueId), completion);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setHomeAsync(UUID playerUniqueId, String homeName, Location location, CompletionThread completion) {
+        return completeOn(HomeManager.setHomeAsync(playerUniqueId, homeName, location), completion);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteHomeAsync(UUID playerUniqueId, String homeName, CompletionThread completion) {
+        return completeOn(HomeManager.deleteHomeAsync(playerUniqueId, homeName), completion);
+    }
+
+    @Override
+    public boolean isReady() {
+        return HomeManager.isReady();
+    }
+
+    @Override
+    public CompletableFuture<Void> whenReady() {
+        return HomeManager.whenReady();
+    }
+
+    @Override
+    public List<Home> getNearestHomes(Location location, int count) {
+        return HomeManager.getNearestHomes(location, count);
+    }
+
+    @Override
+    public List<Home> getHomesWithin(Location location, double radius) {
+        return HomeManager.getHomesWithin(location, radius);
+    }
+
+    @Override
+    public HommrMetrics.Snapshot getMetrics() {
+        return HommrMetrics.snapshot();
+    }
+
+    /**
+     * Hops the completion of a future to the main thread when requested.
+     *
+     * @param future     the future returned by the HomeManager
+     * @param completion the thread requested by the caller
+     * @return a future completed on the requested thread
+     */
+    private static <T> CompletableFuture<T> completeOn(CompletableFuture<T> future, CompletionThread completion) {
+        if (completion != CompletionThread.MAIN_THREAD) {
+            return future;
+        }
+        if (future.isDone() && Bukkit.isPrimaryThread()) {
+            return future;
+        }
+        return future.thenApplyAsync(Function.identity(), HomeManager.mainThreadExecutor());
+    }
 }
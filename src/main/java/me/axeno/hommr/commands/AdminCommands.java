@@ -0,0 +1,172 @@
+package me.axeno.hommr.commands;
+
+import me.axeno.hommr.Hommr;
+import me.axeno.hommr.managers.HomeManager;
+import me.axeno.hommr.metrics.HomeCounters;
+import me.axeno.hommr.metrics.HommrMetrics;
+import me.axeno.hommr.metrics.LatencyHistogram;
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.teleport.TeleportResult;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import revxrsal.commands.annotation.Command;
+import revxrsal.commands.annotation.Description;
+import revxrsal.commands.annotation.Named;
+import revxrsal.commands.annotation.SuggestWith;
+import revxrsal.commands.bukkit.annotation.CommandPermission;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Administration commands of Hommr, usable from the console.
+ */
+public class AdminCommands {
+
+    /**
+     * Maximum number of homes listed by {@code /hommr near}.
+     */
+    private static final int MAX_LISTED_NEAR = 20;
+
+    public static void msg(CommandSender sender, Component message) {
+        sender.sendMessage(HomeCommands.PREFIX.append(message));
+    }
+
+    @Command("hommr stats")
+    @Description("Show the internal metrics of Hommr")
+    @CommandPermission("hommr.admin.stats")
+    public void stats(CommandSender sender) {
+        HommrMetrics.Snapshot snapshot = HommrMetrics.snapshot();
+
+        msg(sender, Component.text("Hommr Stats", NamedTextColor.GOLD, TextDecoration.BOLD));
+        if (!HommrMetrics.isEnabled()) {
+            sender.sendMessage(Component.text(" Metrics are disabled in config.yml.", NamedTextColor.GRAY));
+        }
+
+        for (LatencyHistogram.Snapshot histogram : snapshot.histograms().values()) {
+            sender.sendMessage(Component.text()
+                    .append(Component.text(" " + histogram.name() + " ", NamedTextColor.YELLOW))
+                    .append(Component.text(histogram.count() + " calls", NamedTextColor.WHITE))
+                    .append(Component.text(" | mean " + LatencyHistogram.Snapshot.format(histogram.meanNanos())
+                            + " | p50 " + LatencyHistogram.Snapshot.format(histogram.percentileNanos(50))
+                            + " | p99 " + LatencyHistogram.Snapshot.format(histogram.percentileNanos(99))
+                            + " | max " + LatencyHistogram.Snapshot.format(histogram.maxNanos()), NamedTextColor.GRAY))
+                    .build());
+        }
+
+        for (Map.Entry<String, Long> counter : snapshot.counters().entrySet()) {
+            sender.sendMessage(Component.text()
+                    .append(Component.text(" " + counter.getKey() + " ", NamedTextColor.YELLOW))
+                    .append(Component.text(counter.getValue(), NamedTextColor.WHITE))
+                    .build());
+        }
+
+        HomeCounters homeCounters = HomeManager.getHomeCounters();
+        sender.sendMessage(Component.text()
+                .append(Component.text(" homes ", NamedTextColor.YELLOW))
+                .append(Component.text(homeCounters.getTotalHomes(), NamedTextColor.WHITE))
+                .append(Component.text(" | owners ", NamedTextColor.YELLOW))
+                .append(Component.text(homeCounters.getActiveOwners(), NamedTextColor.WHITE))
+                .append(Component.text(" | per world " + homeCounters.getHomesPerWorld(), NamedTextColor.GRAY))
+                .build());
+
+        sender.sendMessage(Component.text()
+                .append(Component.text(" cached players ", NamedTextColor.YELLOW))
+                .append(Component.text(HomeManager.getPlayerHomesCache().size(), NamedTextColor.WHITE))
+                .append(Component.text(" | pending storage tasks ", NamedTextColor.YELLOW))
+                .append(Component.text(HomeManager.getStorageExecutor() == null ? 0 : HomeManager.getStorageExecutor().getPendingTasks(), NamedTextColor.WHITE))
+                .build());
+    }
+
+    @Command("hommr stats reset")
+    @Description("Reset the internal metrics of Hommr")
+    @CommandPermission("hommr.admin.stats")
+    public void resetStats(CommandSender sender) {
+        HommrMetrics.reset();
+        msg(sender, Component.text("Metrics reset.", NamedTextColor.GREEN));
+    }
+
+    @Command("hommr reload")
+    @Description("Reload the home limits from config.yml")
+    @CommandPermission("hommr.admin.reload")
+    public void reload(CommandSender sender) {
+        Hommr.getInstance().reloadConfig();
+        HomeManager.reloadLimits();
+        msg(sender, Component.text("Home limits reloaded. Other settings apply after a restart.", NamedTextColor.GREEN));
+    }
+
+    @Command("hommr home <target>")
+    @Description("Teleport to the home of another player")
+    @CommandPermission("hommr.admin.home")
+    public void teleportOther(Player player, @Named("target") @SuggestWith(OtherHomeSuggestions.class) String target) {
+        long start = HommrMetrics.start();
+        try {
+            int colon = target.indexOf(':');
+            if (colon <= 0) {
+                msg(player, Component.text("Usage: /hommr home <player>:<home>", NamedTextColor.RED));
+                return;
+            }
+
+            OfflinePlayer owner = OtherHomeSuggestions.findPlayer(target.substring(0, colon));
+            Home home = owner == null ? null : HomeManager.findHome(owner.getUniqueId(), target.substring(colon + 1));
+            if (home == null) {
+                msg(player, Component.text("This home doesn't exist or its owner's homes are not loaded.", NamedTextColor.RED));
+                return;
+            }
+
+            HomeManager.teleportToHomeAsync(player, home).thenAccept(result -> {
+                if (!result.isSuccess() && result != TeleportResult.REPLACED) {
+                    msg(player, Component.text("The teleport failed: " + result.name().toLowerCase(Locale.ROOT) + ".", NamedTextColor.RED));
+                }
+            });
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
+        }
+    }
+
+    @Command("hommr near <radius>")
+    @Description("List the homes of every player around you")
+    @CommandPermission("hommr.admin.near")
+    public void near(Player player, @Named("radius") double radius) {
+        long start = HommrMetrics.start();
+        try {
+            if (!HomeManager.isReady()) {
+                msg(player, Component.text("Homes are not loaded yet.", NamedTextColor.YELLOW));
+                return;
+            }
+
+            List<Home> homes = HomeManager.getHomesWithin(player.getLocation(), radius);
+            if (homes.isEmpty()) {
+                msg(player, Component.text("No home within " + radius + " blocks.", NamedTextColor.RED));
+                return;
+            }
+
+            msg(player, Component.text("Homes within " + radius + " blocks", NamedTextColor.GOLD, TextDecoration.BOLD));
+            Location location = player.getLocation();
+            for (Home home : homes.subList(0, Math.min(MAX_LISTED_NEAR, homes.size()))) {
+                String owner = Bukkit.getOfflinePlayer(home.getOwner()).getName();
+                double distance = Math.sqrt(Math.pow(home.getX() - location.getX(), 2)
+                        + Math.pow(home.getY() - location.getY(), 2) + Math.pow(home.getZ() - location.getZ(), 2));
+                player.sendMessage(Component.text()
+                        .append(Component.text(" • ", NamedTextColor.DARK_GRAY))
+                        .append(Component.text(owner != null ? owner : home.getOwner().toString(), NamedTextColor.WHITE))
+                        .append(Component.text(":", NamedTextColor.DARK_GRAY))
+                        .append(Component.text(home.getName(), NamedTextColor.YELLOW))
+                        .append(Component.text(String.format(Locale.ROOT, " (%.1f blocks)", distance), NamedTextColor.GRAY))
+                        .build());
+            }
+            if (homes.size() > MAX_LISTED_NEAR) {
+                player.sendMessage(Component.text(" and " + (homes.size() - MAX_LISTED_NEAR) + " more", NamedTextColor.GRAY));
+            }
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package me.axeno.hommr.commands;
 
 import me.axeno.hommr.managers.HomeManager;
+import me.axeno.hommr.metrics.HommrMetrics;
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.HomeName;
+import me.axeno.hommr.teleport.TeleportResult;
+import me.axeno.hommr.teleport.TeleportScheduler;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
@@ -9,97 +14,194 @@ import org.bukkit.entity.Player;
 import revxrsal.commands.annotation.*;
 import revxrsal.commands.bukkit.annotation.CommandPermission;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class HomeCommands {
 
     public static final Component PREFIX = MiniMessage.miniMessage()
             .deserialize("<gradient:#7695FF:#FFFFFF>ʜᴏᴍᴍʀ</gradient> <dark_gray>»</dark_gray> ");
 
+    /**
+     * Rendered pages of {@code /home list}, kept until the homes of their player change.
+     */
+    private static final HomeListPages LIST_PAGES = new HomeListPages();
+
+    /**
+     * Names of the {@code /home} subcommands, which would shadow a home of the same name.
+     */
+    private static final Set<String> RESERVED_NAMES = Set.of("near", "list", "help");
+
     public static void msg(Player player, Component message) {
         player.sendMessage(PREFIX.append(message));
     }
 
-    @Command("home")
-    @CommandPermission("hommr.home.list")
-    @Description("List all your homes")
-    public void noArgs(Player player) {
-        Set<String> homes = HomeManager.getHomeNames(player.getUniqueId());
+    /**
+     * Checks that the homes of a player are loaded, telling them to wait otherwise.
+     *
+     * @param player the player running a command
+     * @return `true` if the command can go on, `false` if the player was told that homes are not available yet
+     */
+    private static boolean checkReady(Player player) {
+        if (HomeManager.isReady(player.getUniqueId())) {
+            return true;
+        }
+        if (HomeManager.isLoadFailed()) {
+            msg(player, Component.text("Homes are unavailable, please contact an administrator.", NamedTextColor.RED));
+        } else {
+            msg(player, Component.text("Homes are still loading, please try again in a moment.", NamedTextColor.YELLOW));
+        }
+        return false;
+    }
 
-        if (homes.isEmpty()) {
-            msg(player, Component.text("You don't have any homes set.", NamedTextColor.RED));
+    /**
+     * Starts a teleport to a home, telling the player once the chunk of the home is loaded or if it failed.
+     *
+     * @param player  the player to teleport
+     * @param home    the home to teleport to
+     * @param started the message sent once the teleport is under way, or once the warmup ended
+     */
+    private static void teleport(Player player, Home home, Component started) {
+        CompletableFuture<TeleportResult> teleport = HomeManager.teleportToHomeAsync(player, home);
+        TeleportResult immediate = teleport.getNow(null);
+        if (immediate == TeleportResult.ON_COOLDOWN) {
+            msg(player, Component.text("You must wait " + toSeconds(HomeManager.getRemainingCooldownMillis(player.getUniqueId()))
+                    + "s before teleporting to a home again.", NamedTextColor.RED));
             return;
         }
+        long warmupMillis = HomeManager.getRemainingWarmupMillis(player.getUniqueId());
+        if (warmupMillis > 0) {
+            msg(player, Component.text("Teleporting in " + toSeconds(warmupMillis) + "s, don't move!", NamedTextColor.YELLOW));
+        } else if (immediate == null || immediate.isSuccess()) {
+            msg(player, started);
+        }
+        int position = HomeManager.getTeleportQueuePosition(player.getUniqueId());
+        if (position > 0) {
+            msg(player, Component.text("Many players are teleporting, you are #" + position + " in the queue.", NamedTextColor.YELLOW));
+        }
+        teleport.thenAccept(result -> {
+            switch (result) {
+                case SUCCESS -> {
+                    if (warmupMillis > 0) {
+                        msg(player, started);
+                    }
+                }
+                case CANCELLED, REPLACED, ON_COOLDOWN -> {
+                    // The listener that cancelled the teleport tells the player why
+                }
+                case INTERRUPTED -> msg(player, Component.text("Teleport cancelled because you moved.", NamedTextColor.RED));
+                case WORLD_NOT_FOUND -> msg(player, Component.text("The world of this home no longer exists!", NamedTextColor.RED));
+                default -> msg(player, Component.text("The teleport to this home failed, please try again.", NamedTextColor.RED));
+            }
+        });
+    }
 
-        msg(player, Component.text("Your Homes", NamedTextColor.GOLD, TextDecoration.BOLD));
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
 
-        for (String homeName : homes) {
-            HomeManager.getHome(player.getUniqueId(), homeName).ifPresent(home -> {
-                String worldInfo = home.getWorld();
-                player.sendMessage(Component.text()
-                        .append(Component.text(" • ", NamedTextColor.DARK_GRAY))
-                        .append(Component.text(homeName, NamedTextColor.YELLOW))
-                        .append(Component.text(" (" + worldInfo + ")", NamedTextColor.GRAY))
-                        .build());
-            });
+    /**
+     * Shows their position in the action bar to every player waiting in the teleport queue. Must run on the main thread.
+     */
+    public static void showTeleportQueue() {
+        TeleportScheduler scheduler = HomeManager.getTeleportScheduler();
+        if (scheduler != null) {
+            scheduler.forEachQueued((player, position) -> player.sendActionBar(
+                    Component.text("Teleport queue: #" + position, NamedTextColor.YELLOW)));
         }
+    }
 
-        player.sendMessage(Component.text()
-                .append(Component.text(" Total: ", NamedTextColor.GOLD))
-                .append(Component.text(homes.size() + " home(s)", NamedTextColor.YELLOW))
-                .build());
+    @Command("home")
+    @CommandPermission("hommr.home.list")
+    @Description("List all your homes")
+    public void noArgs(Player player) {
+        showHomeList(player, 1, HomeSort.NAME);
     }
 
     @Command("home <home>")
     @Description("Teleport to your home")
     @CommandPlaceholder
-    public void teleportHome(Player player, @Named("home") String homeName) {
-        homeName = homeName.toLowerCase();
+    public void teleportHome(Player player, @Named("home") @SuggestWith(HomeSuggestions.class) String homeName) {
+        long start = HommrMetrics.start();
+        try {
+            if (!checkReady(player)) {
+                return;
+            }
 
-        if (!HomeManager.hasHome(player.getUniqueId(), homeName)) {
-            msg(player, Component.text("This home doesn't exist!", NamedTextColor.RED));
-            return;
-        }
+            Home home = HomeManager.findHome(player.getUniqueId(), homeName);
+            if (home == null) {
+                msg(player, Component.text("This home doesn't exist!", NamedTextColor.RED));
+                return;
+            }
 
-        if (HomeManager.teleportToHome(player, homeName)) {
-            msg(player, Component.text()
+            teleport(player, home, Component.text()
                     .append(Component.text("Teleporting to home '", NamedTextColor.GREEN))
-                    .append(Component.text(homeName, NamedTextColor.YELLOW))
+                    .append(Component.text(home.getName(), NamedTextColor.YELLOW))
                     .append(Component.text("'...", NamedTextColor.GREEN))
                     .build());
-        } else {
-            msg(player, Component.text("The world of this home no longer exists!", NamedTextColor.RED));
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
+        }
+    }
+
+    @Command("home near")
+    @Description("Teleport to your closest home")
+    @CommandPermission("hommr.home.near")
+    public void teleportNearest(Player player) {
+        long start = HommrMetrics.start();
+        try {
+            if (!checkReady(player)) {
+                return;
+            }
+
+            Home home = HomeManager.findNearestHome(player);
+            if (home == null) {
+                msg(player, Component.text("You don't have any homes in this world.", NamedTextColor.RED));
+                return;
+            }
+
+            teleport(player, home, Component.text()
+                    .append(Component.text("Teleporting to your closest home '", NamedTextColor.GREEN))
+                    .append(Component.text(home.getName(), NamedTextColor.YELLOW))
+                    .append(Component.text("'...", NamedTextColor.GREEN))
+                    .build());
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
         }
     }
 
     @Command("home list")
     @Description("List all your homes")
     @CommandPermission("hommr.home.list")
-    public void listHomes(Player player) {
-        Set<String> homes = HomeManager.getHomeNames(player.getUniqueId());
+    public void listHomes(Player player, @Named("page") @Default("1") int page, @Named("sort") @Default("name") HomeSort sort) {
+        showHomeList(player, page, sort);
+    }
 
-        if (homes.isEmpty()) {
-            msg(player, Component.text("You don't have any homes set.", NamedTextColor.RED));
-            return;
-        }
+    /**
+     * Sends a page of the homes of a player as a single message.
+     *
+     * @param player the player listing their homes
+     * @param page   the page, from `1`
+     * @param sort   the order of the homes
+     */
+    private static void showHomeList(Player player, int page, HomeSort sort) {
+        long start = HommrMetrics.start();
+        try {
+            if (!checkReady(player)) {
+                return;
+            }
 
-        msg(player, Component.text("Your Homes", NamedTextColor.GOLD, TextDecoration.BOLD));
+            Map<String, Home> homes = HomeManager.getHomes(player.getUniqueId());
+            if (homes.isEmpty()) {
+                msg(player, Component.text("You don't have any homes set.", NamedTextColor.RED));
+                return;
+            }
 
-        for (String homeName : homes) {
-            HomeManager.getHome(player.getUniqueId(), homeName).ifPresent(home -> {
-                String worldInfo = home.getWorld();
-                player.sendMessage(Component.text()
-                        .append(Component.text(" • ", NamedTextColor.DARK_GRAY))
-                        .append(Component.text(homeName, NamedTextColor.YELLOW))
-                        .append(Component.text(" (" + worldInfo + ")", NamedTextColor.GRAY))
-                        .build());
-            });
+            player.sendMessage(LIST_PAGES.getPage(player.getUniqueId(), homes, sort, page));
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
         }
-
-        player.sendMessage(Component.text()
-                .append(Component.text(" Total: ", NamedTextColor.GOLD))
-                .append(Component.text(homes.size() + " home(s)", NamedTextColor.YELLOW))
-                .build());
     }
 
     @Command("home help")
@@ -124,60 +226,97 @@ public class HomeCommands {
                 .build());
 
         player.sendMessage(Component.text()
-                .append(Component.text(" /home list ", NamedTextColor.YELLOW))
+                .append(Component.text(" /home list [page] [name|world|created] ", NamedTextColor.YELLOW))
                 .append(Component.text("- List your homes", NamedTextColor.GRAY))
                 .build());
+
+        player.sendMessage(Component.text()
+                .append(Component.text(" /home near ", NamedTextColor.YELLOW))
+                .append(Component.text("- Teleport to your closest home", NamedTextColor.GRAY))
+                .build());
     }
 
     @Command("sethome")
     @Description("Set a new home")
     @CommandPermission("hommr.home.set")
     public void setHome(Player player, @Named("name") String homeName) {
-        homeName = homeName.toLowerCase();
+        long start = HommrMetrics.start();
+        try {
+            if (!checkReady(player)) {
+                return;
+            }
 
-        // Validate name
-        if (!homeName.matches("^[a-zA-Z0-9_]+$")) {
-            msg(player, Component.text("Invalid home name! Use only letters, numbers, and underscores.", NamedTextColor.RED));
-            return;
-        }
+            homeName = HomeName.fold(homeName);
 
-        if (HomeManager.hasHome(player.getUniqueId(), homeName)) {
-            msg(player, Component.text("A home with this name already exists! It will be updated with the new location.", NamedTextColor.YELLOW));
-        }
+            // Validate name
+            if (!homeName.matches("^[a-zA-Z0-9_]+$")) {
+                msg(player, Component.text("Invalid home name! Use only letters, numbers, and underscores.", NamedTextColor.RED));
+                return;
+            }
+            if (RESERVED_NAMES.contains(homeName)) {
+                msg(player, Component.text("You can't name a home '" + homeName + "', it is used by /home " + homeName + ".", NamedTextColor.RED));
+                return;
+            }
 
-        boolean isUpdate = HomeManager.hasHome(player.getUniqueId(), homeName);
+            boolean isUpdate = HomeManager.hasHome(player.getUniqueId(), homeName);
+            if (isUpdate) {
+                msg(player, Component.text("A home with this name already exists! It will be updated with the new location.", NamedTextColor.YELLOW));
+            }
 
-        if (HomeManager.setHome(player, homeName, player.getLocation())) {
-            Component message = Component.text()
-                    .append(Component.text("Home '", NamedTextColor.GREEN))
-                    .append(Component.text(homeName, NamedTextColor.YELLOW))
-                    .append(Component.text(isUpdate ? "' updated successfully!" : "' set successfully!", NamedTextColor.GREEN))
-                    .build();
-            msg(player, message);
-        } else {
-            int current = HomeManager.getHomeCount(player.getUniqueId());
-            int max = HomeManager.getMaxHomes(player);
-            msg(player, Component.text()
-                    .append(Component.text("You have reached the maximum number of homes! ", NamedTextColor.RED))
-                    .append(Component.text("(" + current + "/" + max + ")", NamedTextColor.GRAY))
-                    .build());
+            if (HomeManager.setHome(player, homeName, player.getLocation())) {
+                Component message = Component.text()
+                        .append(Component.text("Home '", NamedTextColor.GREEN))
+                        .append(Component.text(homeName, NamedTextColor.YELLOW))
+                        .append(Component.text(isUpdate ? "' updated successfully!" : "' set successfully!", NamedTextColor.GREEN))
+                        .build();
+                msg(player, message);
+            } else {
+                int current = HomeManager.getHomeCount(player.getUniqueId());
+                int max = HomeManager.getMaxHomes(player);
+                String world = player.getWorld().getName();
+                int worldCurrent = HomeManager.getHomeCount(player.getUniqueId(), world);
+                int worldMax = HomeManager.getMaxHomes(player, world);
+                if (!isUpdate && max != -1 && current >= max) {
+                    msg(player, Component.text()
+                            .append(Component.text("You have reached the maximum number of homes! ", NamedTextColor.RED))
+                            .append(Component.text("(" + current + "/" + max + ")", NamedTextColor.GRAY))
+                            .build());
+                } else if (worldMax != -1 && worldCurrent >= worldMax) {
+                    msg(player, Component.text()
+                            .append(Component.text("You have reached the maximum number of homes in this world! ", NamedTextColor.RED))
+                            .append(Component.text("(" + worldCurrent + "/" + worldMax + ")", NamedTextColor.GRAY))
+                            .build());
+                }
+                // Otherwise a listener cancelled the HomeSetEvent and tells the player why
+            }
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
         }
     }
 
     @Command("delhome")
     @Description("Delete a home")
     @CommandPermission("hommr.home.delete")
-    public void deleteHome(Player player, @Named("home") String homeName) {
-        homeName = homeName.toLowerCase();
-
-        if (HomeManager.deleteHome(player, homeName)) {
-            msg(player, Component.text()
-                    .append(Component.text("Home '", NamedTextColor.GREEN))
-                    .append(Component.text(homeName, NamedTextColor.YELLOW))
-                    .append(Component.text("' deleted successfully!", NamedTextColor.GREEN))
-                    .build());
-        } else {
-            msg(player, Component.text("This home doesn't exist!", NamedTextColor.RED));
+    public void deleteHome(Player player, @Named("home") @SuggestWith(HomeSuggestions.class) String homeName) {
+        long start = HommrMetrics.start();
+        try {
+            if (!checkReady(player)) {
+                return;
+            }
+
+            homeName = HomeName.fold(homeName);
+
+            if (HomeManager.deleteHome(player, homeName)) {
+                msg(player, Component.text()
+                        .append(Component.text("Home '", NamedTextColor.GREEN))
+                        .append(Component.text(homeName, NamedTextColor.YELLOW))
+                        .append(Component.text("' deleted successfully!", NamedTextColor.GREEN))
+                        .build());
+            } else {
+                msg(player, Component.text("This home doesn't exist!", NamedTextColor.RED));
+            }
+        } finally {
+            HommrMetrics.COMMAND.recordSince(start);
         }
     }
 }
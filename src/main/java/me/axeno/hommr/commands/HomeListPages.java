@@ -0,0 +1,147 @@
+package me.axeno.hommr.commands;
+
+import me.axeno.hommr.models.Home;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+
+import java.util.*;
+
+/**
+ * Pages of {@code /home list}, each rendered into a single component sent as one message.
+ * <p>
+ * The homes of a player are sorted and their pages rendered once, then kept until the homes change. Changes replace
+ * the map of the homes of a player instead of modifying it, so the cache holds on to the map it was built from and
+ * is rebuilt as soon as it gets another one, without any invalidation hook. The players listed most recently are
+ * kept, up to {@link #MAX_CACHED_PLAYERS}. Thread-safe.
+ */
+final class HomeListPages {
+
+    /**
+     * Number of homes per page.
+     */
+    static final int PAGE_SIZE = 10;
+
+    /**
+     * Maximum number of players whose pages are kept.
+     */
+    static final int MAX_CACHED_PLAYERS = 256;
+
+    private static final class Rendered {
+        private final Map<String, Home> homes;
+        private final Map<HomeSort, Home[]> sorted = new EnumMap<>(HomeSort.class);
+        private final Map<HomeSort, Component[]> pages = new EnumMap<>(HomeSort.class);
+
+        private Rendered(Map<String, Home> homes) {
+            this.homes = homes;
+        }
+    }
+
+    private final Map<UUID, Rendered> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Rendered> eldest) {
+            return size() > MAX_CACHED_PLAYERS;
+        }
+    };
+
+    /**
+     * Returns a page of the homes of a player, rendering it if the homes changed since it was last rendered.
+     *
+     * @param playerId the UUID of the player
+     * @param homes    the current homes of the player, sorted by name
+     * @param sort     the order of the homes
+     * @param page     the page, from `1`, brought back within the pages of the list
+     * @return the page, with its header and navigation
+     */
+    synchronized Component getPage(UUID playerId, Map<String, Home> homes, HomeSort sort, int page) {
+        Rendered rendered = entry(playerId, homes);
+        Home[] sorted = sorted(rendered, sort);
+        Component[] pages = rendered.pages.computeIfAbsent(sort, key -> new Component[getPageCount(sorted.length)]);
+        int index = Math.max(1, Math.min(page, pages.length)) - 1;
+        if (pages[index] == null) {
+            pages[index] = render(sorted, sort, index, pages.length);
+        }
+        return pages[index];
+    }
+
+    /**
+     * @param homeCount the number of homes
+     * @return the number of pages listing them, at least `1`
+     */
+    static int getPageCount(int homeCount) {
+        return Math.max(1, (homeCount + PAGE_SIZE - 1) / PAGE_SIZE);
+    }
+
+    /**
+     * Forgets the pages of every player.
+     */
+    synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return the number of players whose pages are kept
+     */
+    synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the homes of a player in the given order, sorted once per version of their homes.
+     */
+    synchronized Home[] sorted(UUID playerId, Map<String, Home> homes, HomeSort sort) {
+        return sorted(entry(playerId, homes), sort).clone();
+    }
+
+    private Rendered entry(UUID playerId, Map<String, Home> homes) {
+        Rendered rendered = cache.get(playerId);
+        if (rendered == null || rendered.homes != homes) {
+            rendered = new Rendered(homes);
+            cache.put(playerId, rendered);
+        }
+        return rendered;
+    }
+
+    private static Home[] sorted(Rendered rendered, HomeSort sort) {
+        return rendered.sorted.computeIfAbsent(sort, key -> {
+            Home[] homes = rendered.homes.values().toArray(new Home[0]);
+            key.sort(homes);
+            return homes;
+        });
+    }
+
+    private static Component render(Home[] homes, HomeSort sort, int index, int pageCount) {
+        String sortName = sort.name().toLowerCase(Locale.ROOT);
+        TextComponent.Builder builder = Component.text()
+                .append(HomeCommands.PREFIX)
+                .append(Component.text("Your Homes", NamedTextColor.GOLD, TextDecoration.BOLD))
+                .append(Component.text(" (page " + (index + 1) + "/" + pageCount + ", by " + sortName + ")", NamedTextColor.GRAY));
+
+        int end = Math.min(homes.length, (index + 1) * PAGE_SIZE);
+        for (int i = index * PAGE_SIZE; i < end; i++) {
+            Home home = homes[i];
+            builder.append(Component.newline())
+                    .append(Component.text(" • ", NamedTextColor.DARK_GRAY))
+                    .append(Component.text(home.getName(), NamedTextColor.YELLOW)
+                            .clickEvent(ClickEvent.runCommand("/home " + home.getName()))
+                            .hoverEvent(HoverEvent.showText(Component.text("Click to teleport", NamedTextColor.GRAY))))
+                    .append(Component.text(" (" + home.getWorld() + ")", NamedTextColor.GRAY));
+        }
+
+        builder.append(Component.newline())
+                .append(Component.text(" Total: ", NamedTextColor.GOLD))
+                .append(Component.text(homes.length + " home(s)", NamedTextColor.YELLOW));
+        if (index > 0) {
+            builder.append(Component.text("  « Previous", NamedTextColor.AQUA)
+                    .clickEvent(ClickEvent.runCommand("/home list " + index + " " + sortName)));
+        }
+        if (index + 1 < pageCount) {
+            builder.append(Component.text("  Next »", NamedTextColor.AQUA)
+                    .clickEvent(ClickEvent.runCommand("/home list " + (index + 2) + " " + sortName)));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,47 @@
+package me.axeno.hommr.commands;
+
+import me.axeno.hommr.models.Home;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Order of the homes in {@code /home list}.
+ */
+public enum HomeSort {
+
+    /**
+     * Alphabetical order of the names.
+     */
+    NAME(null),
+
+    /**
+     * Grouped by world, then by name.
+     */
+    WORLD(Comparator.comparing(Home::getWorld)),
+
+    /**
+     * Oldest first, then by name.
+     */
+    CREATED(Comparator.comparingLong(Home::getCreatedAt));
+
+    /**
+     * Order of the homes before their name, `null` to keep the order of the names.
+     */
+    private final Comparator<Home> comparator;
+
+    HomeSort(Comparator<Home> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Sorts homes given in name order; the sort is stable, so homes equal for this order stay sorted by name.
+     *
+     * @param homes the homes, sorted by name, sorted in place
+     */
+    void sort(Home[] homes) {
+        if (comparator != null) {
+            Arrays.sort(homes, comparator);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package me.axeno.hommr.commands;
+
+import me.axeno.hommr.managers.HomeManager;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import revxrsal.commands.autocomplete.SuggestionProvider;
+import revxrsal.commands.bukkit.actor.BukkitCommandActor;
+import revxrsal.commands.node.ExecutionContext;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Suggests the names of the homes of the player typing the command.
+ * <p>
+ * Runs on every keystroke, so it never copies the homes of the player: the names starting with the typed prefix are
+ * found by binary search in their sorted homes, and at most {@link #MAX_SUGGESTIONS} are returned.
+ */
+public class HomeSuggestions implements SuggestionProvider<BukkitCommandActor> {
+
+    /**
+     * Maximum number of names suggested at once.
+     */
+    static final int MAX_SUGGESTIONS = 50;
+
+    @Override
+    public @NotNull Collection<String> getSuggestions(@NotNull ExecutionContext<BukkitCommandActor> context) {
+        Player player = context.actor().asPlayer();
+        if (player == null) {
+            return List.of();
+        }
+        return HomeManager.getHomeNamesStartingWith(player.getUniqueId(), currentToken(context), MAX_SUGGESTIONS);
+    }
+
+    /**
+     * Returns the argument being typed.
+     *
+     * @param context the context of the completion
+     * @return the text after the last space of the input, empty right after a space
+     */
+    static String currentToken(ExecutionContext<BukkitCommandActor> context) {
+        String input = context.input().source();
+        return input.substring(input.lastIndexOf(' ') + 1);
+    }
+}
@@ -0,0 +1,64 @@
+package me.axeno.hommr.commands;
+
+import me.axeno.hommr.managers.HomeManager;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import revxrsal.commands.autocomplete.SuggestionProvider;
+import revxrsal.commands.bukkit.actor.BukkitCommandActor;
+import revxrsal.commands.node.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Suggests the homes of any player as {@code <player>:<home>}, for administration commands.
+ * <p>
+ * Before the colon, the online players whose name starts with the typed text are suggested; after it, the homes of
+ * the named player, if they are cached, found the same way as by {@link HomeSuggestions}.
+ */
+public class OtherHomeSuggestions implements SuggestionProvider<BukkitCommandActor> {
+
+    @Override
+    public @NotNull Collection<String> getSuggestions(@NotNull ExecutionContext<BukkitCommandActor> context) {
+        String token = HomeSuggestions.currentToken(context);
+        int colon = token.indexOf(':');
+        if (colon < 0) {
+            List<String> players = new ArrayList<>();
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (player.getName().regionMatches(true, 0, token, 0, token.length())) {
+                    players.add(player.getName() + ":");
+                    if (players.size() == HomeSuggestions.MAX_SUGGESTIONS) {
+                        break;
+                    }
+                }
+            }
+            return players;
+        }
+
+        String owner = token.substring(0, colon);
+        OfflinePlayer player = findPlayer(owner);
+        if (player == null) {
+            return List.of();
+        }
+        List<String> homes = HomeManager.getHomeNamesStartingWith(player.getUniqueId(), token.substring(colon + 1), HomeSuggestions.MAX_SUGGESTIONS);
+        List<String> suggestions = new ArrayList<>(homes.size());
+        for (String home : homes) {
+            suggestions.add(owner + ":" + home);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Looks up a player by name without querying Mojang.
+     *
+     * @param name the name of the player
+     * @return the player, or `null` if they are neither online nor known to the server
+     */
+    static OfflinePlayer findPlayer(String name) {
+        Player online = Bukkit.getPlayerExact(name);
+        return online != null ? online : Bukkit.getOfflinePlayerIfCached(name);
+    }
+}
@@ -0,0 +1,243 @@
+package me.axeno.hommr.limits;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.permissions.Permissible;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Maximum number of homes of each player, resolved from their permissions once and cached.
+ * <p>
+ * Limits come from three sources, the highest one applying, {@link #UNLIMITED} being the highest:
+ * <ul>
+ *     <li>the default limit, for every player;</li>
+ *     <li>the limit of each configured group, granted by the permission {@code hommr.limits.<group>};</li>
+ *     <li>the permission {@code hommr.homes.<n>}, granting {@code n} homes without configuring anything.</li>
+ * </ul>
+ * Configured worlds may also limit the homes set in them, on top of the overall limit, with their own default and
+ * groups and the permission {@code hommr.homes.<world>.<n>}. Numeric permissions may end with {@code unlimited}
+ * instead of a number.
+ * <p>
+ * Resolving a limit checks every group and scans the permissions of the player, so it is cached per player until
+ * it is {@link #invalidate(UUID) invalidated}, or at most {@code cacheMillis}. Thread-safe.
+ */
+public final class HomeLimits {
+
+    /**
+     * Limit meaning that a player may set any number of homes.
+     */
+    public static final int UNLIMITED = -1;
+
+    static final String GROUP_PREFIX = "hommr.limits.";
+    static final String NUMERIC_PREFIX = "hommr.homes.";
+
+    /**
+     * Limits of a player.
+     *
+     * @param total  the maximum number of homes, {@link #UNLIMITED} for no limit
+     * @param worlds the maximum number of homes in each world limiting them, by lowercase world name
+     */
+    public record Limit(int total, Map<String, Integer> worlds) {
+
+        /**
+         * @param world the name of a world
+         * @return the maximum number of homes in the world, {@link #UNLIMITED} if the world does not limit them
+         */
+        public int forWorld(String world) {
+            return worlds.getOrDefault(world.toLowerCase(Locale.ROOT), UNLIMITED);
+        }
+    }
+
+    /**
+     * Default limit and group limits of a scope: every world, or a single one.
+     */
+    private record Rule(int defaultLimit, Map<String, Integer> groups) {
+
+        private static Rule fromConfig(ConfigurationSection section) {
+            Map<String, Integer> groups = new LinkedHashMap<>();
+            ConfigurationSection groupSection = section.getConfigurationSection("groups");
+            if (groupSection != null) {
+                for (String group : groupSection.getKeys(false)) {
+                    groups.put(group, groupSection.getInt(group));
+                }
+            }
+            return new Rule(section.getInt("default", UNLIMITED), groups);
+        }
+
+        private int resolve(Permissible player, int granted) {
+            int limit = highest(defaultLimit, granted);
+            for (Map.Entry<String, Integer> group : groups.entrySet()) {
+                if (limit == UNLIMITED) {
+                    break;
+                }
+                if (player.hasPermission(GROUP_PREFIX + group.getKey())) {
+                    limit = highest(limit, group.getValue());
+                }
+            }
+            return limit;
+        }
+    }
+
+    private record Cached(Limit limit, long expiresAt) {
+    }
+
+    /**
+     * Value of a numeric permission that was not granted, lower than any limit.
+     */
+    private static final int NOT_GRANTED = Integer.MIN_VALUE;
+
+    private final Rule global;
+    private final Map<String, Rule> worlds;
+    private final long cacheMillis;
+    private final LongSupplier clock;
+    private final Limit defaults;
+    private final Map<UUID, Cached> cache = new ConcurrentHashMap<>();
+
+    private HomeLimits(Rule global, Map<String, Rule> worlds, long cacheMillis, LongSupplier clock) {
+        this.global = global;
+        this.worlds = worlds;
+        this.cacheMillis = cacheMillis;
+        this.clock = clock;
+        Map<String, Integer> worldDefaults = new HashMap<>();
+        worlds.forEach((world, rule) -> {
+            if (rule.defaultLimit() != UNLIMITED) {
+                worldDefaults.put(world, rule.defaultLimit());
+            }
+        });
+        this.defaults = new Limit(global.defaultLimit(), Map.copyOf(worldDefaults));
+    }
+
+    /**
+     * Reads the limits from a configuration section.
+     *
+     * @param section the section, `null` for no limit
+     * @return the limits, caching each player's for {@code cache-seconds}
+     */
+    public static HomeLimits fromConfig(ConfigurationSection section) {
+        return fromConfig(section, System::currentTimeMillis);
+    }
+
+    static HomeLimits fromConfig(ConfigurationSection section, LongSupplier clock) {
+        if (section == null) {
+            return new HomeLimits(new Rule(UNLIMITED, Map.of()), Map.of(), 0, clock);
+        }
+        Map<String, Rule> worlds = new HashMap<>();
+        ConfigurationSection worldSection = section.getConfigurationSection("worlds");
+        if (worldSection != null) {
+            for (String world : worldSection.getKeys(false)) {
+                ConfigurationSection rule = worldSection.getConfigurationSection(world);
+                if (rule != null) {
+                    // Bukkit lowercases permissions, so world names are matched case-insensitively
+                    worlds.put(world.toLowerCase(Locale.ROOT), Rule.fromConfig(rule));
+                }
+            }
+        }
+        long cacheMillis = Math.max(0, section.getLong("cache-seconds", 60)) * 1000;
+        return new HomeLimits(Rule.fromConfig(section), Map.copyOf(worlds), cacheMillis, clock);
+    }
+
+    /**
+     * Returns the limits of a player, resolving them from their permissions if they are not cached.
+     *
+     * @param playerId the UUID of the player
+     * @param player   the player, whose permissions are checked
+     * @return the limits of the player
+     */
+    public Limit get(UUID playerId, Permissible player) {
+        long now = clock.getAsLong();
+        Cached cached = cache.get(playerId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.limit();
+        }
+        Limit limit = resolve(player);
+        cache.put(playerId, new Cached(limit, now + cacheMillis));
+        return limit;
+    }
+
+    /**
+     * Returns the cached limits of a player, for players whose permissions cannot be checked, such as offline ones.
+     *
+     * @param playerId the UUID of the player
+     * @return the cached limits of the player, or the limits of a player without any permission if none are cached
+     */
+    public Limit getCached(UUID playerId) {
+        Cached cached = cache.get(playerId);
+        return cached != null ? cached.limit() : defaults;
+    }
+
+    /**
+     * Forgets the limits of a player, resolved again on the next lookup.
+     *
+     * @param playerId the UUID of the player
+     */
+    public void invalidate(UUID playerId) {
+        cache.remove(playerId);
+    }
+
+    /**
+     * Forgets the limits of every player.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private Limit resolve(Permissible player) {
+        // A single pass over the permissions collects every numeric one
+        int total = NOT_GRANTED;
+        Map<String, Integer> grantedWorlds = null;
+        for (PermissionAttachmentInfo info : player.getEffectivePermissions()) {
+            String permission = info.getPermission().toLowerCase(Locale.ROOT);
+            if (!info.getValue() || !permission.startsWith(NUMERIC_PREFIX)) {
+                continue;
+            }
+            String suffix = permission.substring(NUMERIC_PREFIX.length());
+            int dot = suffix.lastIndexOf('.');
+            int value = parseLimit(suffix.substring(dot + 1));
+            if (value == NOT_GRANTED) {
+                continue;
+            }
+            if (dot < 0) {
+                total = highest(total, value);
+            } else {
+                if (grantedWorlds == null) {
+                    grantedWorlds = new HashMap<>();
+                }
+                grantedWorlds.merge(suffix.substring(0, dot), value, HomeLimits::highest);
+            }
+        }
+
+        Map<String, Integer> worldLimits = new HashMap<>();
+        for (Map.Entry<String, Rule> world : worlds.entrySet()) {
+            int granted = grantedWorlds == null ? NOT_GRANTED : grantedWorlds.getOrDefault(world.getKey(), NOT_GRANTED);
+            int limit = world.getValue().resolve(player, granted);
+            if (limit != UNLIMITED) {
+                worldLimits.put(world.getKey(), limit);
+            }
+        }
+        return new Limit(global.resolve(player, total), Map.copyOf(worldLimits));
+    }
+
+    private static int parseLimit(String value) {
+        if (value.equals("unlimited")) {
+            return UNLIMITED;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return NOT_GRANTED;
+        }
+    }
+
+    /**
+     * @return the higher of two limits, {@link #UNLIMITED} being higher than any
+     */
+    private static int highest(int a, int b) {
+        if (a == UNLIMITED || b == UNLIMITED) {
+            return UNLIMITED;
+        }
+        return Math.max(a, b);
+    }
+}
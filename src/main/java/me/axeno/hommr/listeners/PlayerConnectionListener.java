@@ -0,0 +1,44 @@
+package me.axeno.hommr.listeners;
+
+import me.axeno.hommr.managers.HomeManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Loads and evicts the homes of players as they join and leave when lazy loading is enabled, and refreshes their
+ * home limit.
+ */
+public class PlayerConnectionListener implements Listener {
+
+    /**
+     * Loads the homes of the player off the main thread, once no other plugin denied the login.
+     *
+     * @param event the pre-login event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        HomeManager.handlePreLogin(event.getUniqueId());
+    }
+
+    /**
+     * Forgets the home limit cached for the player, so that it is resolved again from their current permissions.
+     *
+     * @param event the join event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        HomeManager.invalidateMaxHomes(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        HomeManager.handleQuit(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,23 @@
+package me.axeno.hommr.listeners;
+
+import me.axeno.hommr.managers.HomeManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+/**
+ * Interrupts the teleport warmup of players who move.
+ */
+public class TeleportWarmupListener implements Listener {
+
+    /**
+     * Hands the move to the warmups, which return right away unless a warmup is pending.
+     *
+     * @param event the move event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        HomeManager.handleMove(event.getPlayer(), event.getTo());
+    }
+}
@@ -1,31 +1,55 @@
 package me.axeno.hommr.managers;
 
-import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
 import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
-import com.j256.ormlite.misc.TransactionManager;
 import com.j256.ormlite.support.ConnectionSource;
-import com.j256.ormlite.table.TableUtils;
+import com.j256.ormlite.support.DatabaseConnection;
 import lombok.Getter;
 import me.axeno.hommr.Hommr;
 import me.axeno.hommr.models.Home;
+import me.axeno.hommr.storage.ChangeCursor;
+import me.axeno.hommr.storage.HomeChange;
+import me.axeno.hommr.storage.JdbcHomeRepository;
+import me.axeno.hommr.storage.SchemaMigrator;
+import me.axeno.hommr.storage.SharedHomeStorage;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
-public class DatabaseManager {
+/**
+ * JDBC storage backend, for MySQL, MariaDB and SQLite databases.
+ * <p>
+ * The database may be shared by several servers: writes from the cache are optimistic, and with
+ * {@code coherence.enabled} they are recorded in a change log that each server polls.
+ */
+public class DatabaseManager implements SharedHomeStorage {
+
+    private static final long CHANGE_GAP_TIMEOUT_MILLIS = 60_000;
 
     private ConnectionSource connectionSource;
     @Getter
-    private Dao<Home, Integer> homeDao;
+    private JdbcHomeRepository homeRepository;
 
+    /**
+     * Connect to the given database and bring its schema up to date.
+     * <p>
+     * Pending migrations are applied through {@link SchemaMigrator} before the repository is used, which
+     * includes copying the homes of a database created by an older version into the current layout.
+     *
+     * @param dbUrl      the JDBC URL of the database
+     * @param dbUser     the database user
+     * @param dbPassword the password of the database user
+     */
     public void init(String dbUrl, String dbUser, String dbPassword) {
         if (dbUrl == null || dbUrl.isEmpty()) {
             throw new IllegalStateException("Database URL is not configured. Please set 'database.connection.url' in config.yml");
         }
 
-        if (dbUrl.startsWith("jbdc:mysql:")) {
+        JdbcHomeRepository.Dialect dialect = JdbcHomeRepository.Dialect.fromUrl(dbUrl);
+        if (dbUrl.startsWith("jdbc:mysql:")) {
             try {
                 Class.forName("com.mysql.cj.jdbc.Driver");
             } catch (ClassNotFoundException e) {
@@ -35,13 +59,14 @@ public class DatabaseManager {
         }
 
         try {
-            connectionSource = new JdbcPooledConnectionSource(dbUrl, dbUser, dbPassword);
-
-            homeDao = DaoManager.createDao(connectionSource, Home.class);
-            if (!homeDao.isTableExists()) {
-                TableUtils.createTableIfNotExists(connectionSource, Home.class);
+            connectionSource = new JdbcPooledConnectionSource(withStatementCache(dbUrl), dbUser, dbPassword);
+            if (dialect.isMySqlFamily()) {
+                dialect = dialect.forServer(serverVersion());
             }
 
+            homeRepository = new JdbcHomeRepository(connectionSource, dialect);
+            new SchemaMigrator(connectionSource, homeRepository, dialect, Hommr.getInstance().getLogger()).migrate();
+
         } catch (SQLException e) {
             Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to initialize database", e);
             throw new RuntimeException("Database initialization failed", e);
@@ -49,13 +74,49 @@ public class DatabaseManager {
     }
 
     /**
-     * Set up the database connection and DAO for Home entities based on configuration.
+     * Enables the prepared statement cache of the MySQL and MariaDB drivers, unless the URL already configures it.
+     * <p>
+     * The repository prepares its statements on every call, from a handful of fixed SQL strings; with the cache,
+     * the pooled connections reuse them instead of parsing them again. SQLite prepares statements locally, so its
+     * URLs are left as they are.
+     *
+     * @param dbUrl the configured JDBC URL
+     * @return the URL to connect with
+     */
+    static String withStatementCache(String dbUrl) {
+        String properties;
+        if (dbUrl.startsWith("jdbc:mysql:")) {
+            properties = "cachePrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=65536";
+        } else if (dbUrl.startsWith("jdbc:mariadb:")) {
+            properties = "useServerPrepStmts=true&prepStmtCacheSize=256";
+        } else {
+            return dbUrl;
+        }
+        if (dbUrl.contains("prepStmtCache") || dbUrl.contains("cachePrepStmts") || dbUrl.contains("useServerPrepStmts")) {
+            return dbUrl;
+        }
+        return dbUrl + (dbUrl.indexOf('?') < 0 ? '?' : '&') + properties;
+    }
+
+    /**
+     * @return the version reported by the database server
+     */
+    private String serverVersion() throws SQLException {
+        DatabaseConnection connection = connectionSource.getReadOnlyConnection(null);
+        try {
+            return ((JdbcDatabaseConnection) connection).getInternalConnection().getMetaData().getDatabaseProductVersion();
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Set up the database connection for Home entities based on configuration.
      * <p>
-     * Initializes the plugin data folder if necessary, creates a JDBC connection source
-     * and creates a Dao<Home, Integer> for accessing Home records. Ensures the Home table
-     * exists in the database; failures during folder creation, table creation, or overall
-     * initialization are logged.
+     * Reads the connection settings from config.yml and delegates to {@link #init(String, String, String)};
+     * failures during initialization or migration are logged. The change log is enabled by {@code coherence.enabled}.
      */
+    @Override
     public void init() {
         FileConfiguration config = Hommr.getInstance().getConfig();
         String dbUrl = config.getString("database.connection.url");
@@ -63,6 +124,7 @@ public class DatabaseManager {
         String dbPassword = config.getString("database.connection.password", "");
 
         init(dbUrl, dbUser, dbPassword);
+        homeRepository.setChangeLogEnabled(config.getBoolean("coherence.enabled", false));
     }
 
     /**
@@ -70,6 +132,7 @@ public class DatabaseManager {
      * <p>
      * If an error occurs while closing, the exception is caught and a warning is logged.
      */
+    @Override
     public void close() {
         if (connectionSource != null) {
             try {
@@ -88,24 +151,101 @@ public class DatabaseManager {
      * @throws SQLException if a database access error occurs while querying for homes
      */
     public List<Home> getAllHomes() throws SQLException {
-        return homeDao.queryForAll();
+        return homeRepository.findAll();
+    }
+
+    /**
+     * Retrieve the Home records of a single owner, using the {@code (owner, name)} primary key.
+     *
+     * @param owner the UUID of the owner
+     * @return the homes of that owner, empty if none exist
+     * @throws SQLException if a database access error occurs while querying for homes
+     */
+    public List<Home> getHomesByOwner(UUID owner) throws SQLException {
+        return homeRepository.findByOwner(owner);
+    }
+
+    @Override
+    public List<Home> loadAll() throws SQLException {
+        return getAllHomes();
+    }
+
+    @Override
+    public List<Home> loadByOwner(UUID owner) throws SQLException {
+        return getHomesByOwner(owner);
+    }
+
+    @Override
+    public Counts count() throws SQLException {
+        return homeRepository.count();
+    }
+
+    @Override
+    public void upsertBatch(Collection<Home> homes) throws SQLException {
+        homeRepository.saveChanges(homes, List.of());
+    }
+
+    @Override
+    public void deleteBatch(Collection<Home> homes) throws SQLException {
+        homeRepository.saveChanges(List.of(), homes);
     }
 
     /**
      * Replaces all stored Home records with the provided list.
      * <p>
-     * Clears the Home table and inserts the given homes in a single batch operation.
+     * Clears the Home table and inserts the given homes with batched multi-row statements, in one transaction.
      *
      * @param homes the list of Home objects to persist (may be empty)
      * @throws SQLException if an error occurs while clearing the table or saving records
+     * @deprecated wipes the changes made by other servers sharing the database, and is not recorded in the change
+     * log; use {@link #saveChanges(List, List)} or {@link #saveChangesIfUnchanged(List, List)}
      */
+    @Deprecated
     public void saveAllHomes(List<Home> homes) throws SQLException {
-        TransactionManager.callInTransaction(connectionSource, () -> {
-            TableUtils.clearTable(connectionSource, Home.class);
-            for (Home home : homes) {
-                homeDao.create(home);
-            }
-            return null;
-        });
+        homeRepository.replaceAll(homes);
+    }
+
+    /**
+     * Persists a delta of changed homes without touching the other rows.
+     * <p>
+     * Deletions and upserts are sent as batched multi-row statements matched on the unique {@code (owner, name)}
+     * key, in one transaction.
+     *
+     * @param upserts   homes to insert or update
+     * @param deletions homes to delete, matched by owner and name
+     * @throws SQLException if a statement fails; the whole delta is then rolled back
+     */
+    @Override
+    public void saveChanges(List<Home> upserts, List<Home> deletions) throws SQLException {
+        homeRepository.saveChanges(upserts, deletions);
+    }
+
+    @Override
+    public String getNodeId() {
+        return homeRepository.getNodeId();
+    }
+
+    @Override
+    public List<Home> saveChangesIfUnchanged(List<Home> upserts, List<Home> deletions) throws SQLException {
+        return homeRepository.saveChangesIfUnchanged(upserts, deletions);
+    }
+
+    /**
+     * Opens a cursor after the latest change. A change gap is given up after {@value #CHANGE_GAP_TIMEOUT_MILLIS} ms,
+     * well above the duration of a flush transaction.
+     */
+    @Override
+    public ChangeCursor openChangeCursor() throws SQLException {
+        return new ChangeCursor(homeRepository.latestChange(), CHANGE_GAP_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public List<HomeChange> pollChanges(ChangeCursor cursor, int limit) throws SQLException {
+        return homeRepository.pollChanges(cursor, limit);
+    }
+
+    @Override
+    public int pruneChanges(long before) throws SQLException {
+        return homeRepository.pruneChanges(before);
     }
-}
\ No newline at end of file
+}
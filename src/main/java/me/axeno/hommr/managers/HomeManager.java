@@ -5,65 +5,1145 @@ import me.axeno.hommr.Hommr;
 import me.axeno.hommr.events.HomeDeleteEvent;
 import me.axeno.hommr.events.HomeSetEvent;
 import me.axeno.hommr.events.HomeTeleportEvent;
+import me.axeno.hommr.limits.HomeLimits;
+import me.axeno.hommr.metrics.HomeCounters;
+import me.axeno.hommr.metrics.HommrMetrics;
+import me.axeno.hommr.metrics.LatencyHistogram;
 import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.HomeName;
 import me.axeno.hommr.models.PlayerHomes;
+import me.axeno.hommr.spatial.HomeIndex;
+import me.axeno.hommr.storage.ChangeCursor;
+import me.axeno.hommr.storage.FileHomeStorage;
+import me.axeno.hommr.storage.HomeChange;
+import me.axeno.hommr.storage.HomeJournal;
+import me.axeno.hommr.storage.HomeSnapshot;
+import me.axeno.hommr.storage.HomeStorage;
+import me.axeno.hommr.storage.SharedHomeStorage;
+import me.axeno.hommr.storage.StorageExecutor;
+import me.axeno.hommr.teleport.ChunkPrewarmer;
+import me.axeno.hommr.teleport.PermissionDurations;
+import me.axeno.hommr.teleport.TeleportResult;
+import me.axeno.hommr.teleport.TeleportScheduler;
+import me.axeno.hommr.teleport.TeleportWarmups;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 
-import java.sql.SQLException;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 
 public class HomeManager {
 
     @Getter
     private static final Map<UUID, PlayerHomes> playerHomesCache = new ConcurrentHashMap<>();
-    private static DatabaseManager databaseManager;
+    private static HomeStorage storage;
+    private static HomeJournal journal;
+    private static final Object flushLock = new Object();
 
     /**
-     * Initializes the HomeManager: ensures the database manager exists, creates the in-memory player homes cache, and loads all persisted homes into the cache.
+     * Executor running every storage call, so that tick time does not depend on storage latency.
+     */
+    @Getter
+    private static StorageExecutor storageExecutor;
+
+    /**
+     * Global counts of homes and owners, seeded from the storage when the homes are loaded.
+     */
+    @Getter
+    private static final HomeCounters homeCounters = new HomeCounters();
+
+    /**
+     * Spatial index of the cached homes, kept in line by every cached {@link PlayerHomes}.
+     */
+    @Getter
+    private static final HomeIndex homeIndex = new HomeIndex();
+
+    /**
+     * Whether homes are loaded per player on login instead of all at startup.
+     */
+    @Getter
+    private static boolean lazyLoading;
+
+    /**
+     * Offline owners kept in the cache with lazy loading, in least-recently-used order. Online players are pinned.
+     */
+    private static final OfflineEvictionQueue offlineOwners = new OfflineEvictionQueue(0);
+
+    /**
+     * Cache snapshot written on shutdown and loaded on the next startup, in the plugin data folder.
+     */
+    private static final String SNAPSHOT_FILE = "homes.snapshot";
+
+    /**
+     * Owners changed since the reconciliation of a snapshot started, whose cached state must be kept as is;
+     * `null` when no reconciliation is running.
+     */
+    private static volatile Set<UUID> changedDuringReconcile;
+
+    /**
+     * Maximum number of owners reconciled with the storage per tick after a warm start from the snapshot.
+     */
+    static final int RECONCILED_OWNERS_PER_TICK = 500;
+
+    /**
+     * Maximum number of changed homes written in one storage batch by {@link #flushChanges()}.
+     */
+    private static int maxBatchSize = 5000;
+
+    /**
+     * Completed once the homes are loaded and the journal is replayed, or completed exceptionally if the storage
+     * could not be opened. Replaced on every {@link #init()}.
+     */
+    private static volatile CompletableFuture<Void> readiness = CompletableFuture.completedFuture(null);
+
+    /**
+     * Completed once the storage is open and the journal replayed, when the homes of a single player may be loaded
+     * ahead of the full load.
+     */
+    private static volatile CompletableFuture<Void> storageReadiness = CompletableFuture.completedFuture(null);
+
+    /**
+     * Position in the change log of a {@link SharedHomeStorage}, opened before the homes are loaded when
+     * {@code coherence.enabled} is set; `null` otherwise.
+     */
+    private static volatile ChangeCursor changeCursor;
+
+    /**
+     * Maximum number of changes read from the change log by one {@link #pollRemoteChanges()}.
+     */
+    private static final int MAX_POLLED_CHANGES = 1000;
+
+    private static final Object pollLock = new Object();
+    private static long lastChangePrune;
+
+    /**
+     * Keeps the chunks of the most used homes loaded when {@code teleport.prewarm.enabled} is set; `null` otherwise.
+     */
+    @Getter
+    private static ChunkPrewarmer chunkPrewarmer;
+
+    /**
+     * Queue spreading teleports over ticks when {@code teleport.queue.enabled} is set; `null` otherwise.
+     */
+    @Getter
+    private static TeleportScheduler teleportScheduler;
+
+    /**
+     * Warmups and cooldowns of teleports when {@code teleport.warmup} or {@code teleport.cooldown} gives any player a
+     * duration; `null` otherwise.
+     */
+    @Getter
+    private static TeleportWarmups teleportWarmups;
+
+    /**
+     * Maximum number of homes of each player, read from the {@code limits} section.
+     */
+    @Getter
+    private static volatile HomeLimits homeLimits = HomeLimits.fromConfig(null);
+
+    /**
+     * Initializes the HomeManager: opens the storage backend selected by {@code storage.backend}, creates the in-memory player homes cache, and loads all persisted homes into the cache.
+     *
+     * <p>On failure to read from the storage, the method logs a severe error and continues (the cache will be empty).</p>
+     *
+     * <p>When the journal is enabled, changes left in it by a previous run that did not flush them (crash or kill)
+     * are replayed first and flushed before the homes are loaded, which compacts the journal; homes loaded
+     * afterwards never override them if the flush fails.</p>
+     *
+     * <p>Without lazy loading, the cache is filled from the snapshot written by the previous {@link #shutdown()} if
+     * there is one, and reconciled with the storage in the background. Otherwise every home is loaded from the
+     * storage.</p>
+     *
+     * <p>With {@code cache.lazy-loading} enabled, nothing is loaded up front: homes are loaded per player by
+     * {@link #loadPlayerHomes(UUID)} when they log in, and only the players already online are loaded here.
+     * At most {@code cache.max-offline-players} offline owners are then kept, least recently used first out.</p>
+     *
+     * <p>With {@code cache.background-loading} enabled, this returns right away and the storage is opened and
+     * loaded on a separate thread; {@link #whenReady()} tells when it is done. Players logging in meanwhile get
+     * their own homes loaded ahead of the others, see {@link #isReady(UUID)}.</p>
+     */
+    public static void init() {
+        FileConfiguration config = Hommr.getInstance().getConfig();
+        if (storageExecutor == null || storageExecutor.isShutdown()) {
+            int maxConcurrency = Math.max(1, config.getInt("storage.max-concurrent-queries", 4));
+            int maxQueued = Math.max(maxConcurrency, config.getInt("storage.max-queued-tasks", 1000));
+            storageExecutor = new StorageExecutor(maxConcurrency, maxQueued);
+        }
+
+        lazyLoading = config.getBoolean("cache.lazy-loading", false);
+        offlineOwners.setMaxEntries(Math.max(0, config.getInt("cache.max-offline-players", 1000)));
+        maxBatchSize = Math.max(1, config.getInt("autosave.max-batch-size", 5000));
+        playerHomesCache.clear();
+        homeIndex.clear();
+        offlineOwners.clear();
+        homeCounters.reset();
+        if (chunkPrewarmer != null) {
+            chunkPrewarmer.clear();
+        }
+        chunkPrewarmer = config.getBoolean("teleport.prewarm.enabled", false)
+                ? new ChunkPrewarmer(Hommr.getInstance(), Math.max(1, config.getInt("teleport.prewarm.max-chunks", 16)), Bukkit::getWorld)
+                : null;
+        if (teleportScheduler != null) {
+            teleportScheduler.clear();
+        }
+        teleportScheduler = config.getBoolean("teleport.queue.enabled", true)
+                ? new TeleportScheduler((long) (config.getDouble("teleport.queue.tick-budget-millis", 2.0) * 1_000_000),
+                Math.max(1, config.getInt("teleport.queue.max-per-tick", 20)), HomeManager::teleport)
+                : null;
+        if (teleportWarmups != null) {
+            teleportWarmups.clear();
+        }
+        PermissionDurations warmups = PermissionDurations.fromConfig(config.getConfigurationSection("teleport.warmup"), "hommr.warmup.");
+        PermissionDurations cooldowns = PermissionDurations.fromConfig(config.getConfigurationSection("teleport.cooldown"), "hommr.cooldown.");
+        teleportWarmups = warmups.isDisabled() && cooldowns.isDisabled()
+                ? null
+                : new TeleportWarmups(warmups, cooldowns, config.getBoolean("teleport.warmup.cancel-on-move", true), HomeManager::enqueue);
+        homeLimits = HomeLimits.fromConfig(config.getConfigurationSection("limits"));
+        readiness = new CompletableFuture<>();
+        storageReadiness = new CompletableFuture<>();
+
+        if (config.getBoolean("cache.background-loading", false)) {
+            Thread.ofVirtual().name("Hommr-Loader").start(() -> {
+                try {
+                    load(config);
+                } catch (RuntimeException e) {
+                    Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to load homes, home commands are disabled", e);
+                }
+            });
+        } else {
+            load(config);
+        }
+    }
+
+    /**
+     * Opens the storage, replays the journal and fills the cache, then completes {@link #whenReady()}.
+     *
+     * @param config the plugin configuration
+     * @throws IllegalStateException if the storage backend cannot be opened
+     */
+    private static void load(FileConfiguration config) {
+        long start = System.nanoTime();
+        try {
+            if (storage == null) {
+                HomeStorage created = createStorage(config);
+                try {
+                    created.init();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to initialize the home storage", e);
+                }
+                storage = created;
+            }
+        } catch (RuntimeException e) {
+            storageReadiness.completeExceptionally(e);
+            readiness.completeExceptionally(e);
+            throw e;
+        }
+
+        openJournal();
+        // Persists the replayed changes, which compacts the journal, so that the counts include them
+        flushChanges();
+        seedCounters();
+        openChangeCursor(config);
+        storageReadiness.complete(null);
+
+        boolean fromSnapshot = false;
+        if (!lazyLoading) {
+            fromSnapshot = config.getBoolean("cache.snapshot", true) && loadSnapshot();
+            if (!fromSnapshot) {
+                loadAllHomes();
+            }
+        }
+
+        if (fromSnapshot) {
+            reconcileSnapshot();
+        }
+
+        if (lazyLoading) {
+            // Entries created by the journal replay only hold the replayed changes
+            playerHomesCache.values().removeIf(ph -> !ph.isDirty() && !ph.isLoaded() && detach(ph));
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                handlePreLogin(player.getUniqueId());
+            }
+        }
+
+        readiness.complete(null);
+        if (config.getBoolean("cache.background-loading", false)) {
+            Hommr.getInstance().getLogger().info("Homes are ready after "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms of background loading.");
+        }
+    }
+
+    /**
+     * Tells whether every home is loaded and home commands can be served.
+     *
+     * @return `true` once the load started by {@link #init()} is complete
+     */
+    public static boolean isReady() {
+        CompletableFuture<Void> current = readiness;
+        return current.isDone() && !current.isCompletedExceptionally();
+    }
+
+    /**
+     * Tells whether the homes of a player can be served, which is the case before the full load completes for
+     * players whose homes were loaded ahead of it when they logged in.
+     *
+     * @param playerId the UUID of the player
+     * @return `true` if the homes of the player are loaded
+     */
+    public static boolean isReady(UUID playerId) {
+        if (isReady()) {
+            return true;
+        }
+        PlayerHomes playerHomes = playerHomesCache.get(playerId);
+        return playerHomes != null && playerHomes.isLoaded() && storageReadiness.isDone();
+    }
+
+    /**
+     * Tells whether the load started by {@link #init()} failed, in which case homes will not become available
+     * until the plugin is restarted.
+     *
+     * @return `true` if the storage could not be opened
+     */
+    public static boolean isLoadFailed() {
+        return readiness.isCompletedExceptionally();
+    }
+
+    /**
+     * Returns a future completed once every home is loaded.
+     *
+     * @return a future completed once the homes are ready, or completed exceptionally if they could not be loaded;
+     * completing it has no effect on the HomeManager
+     */
+    public static CompletableFuture<Void> whenReady() {
+        return readiness.copy();
+    }
+
+    /**
+     * Creates the storage backend selected by {@code storage.backend}.
+     *
+     * @param config the plugin configuration
+     * @return the uninitialized storage backend
+     * @throws IllegalStateException if the configured backend is unknown
+     */
+    private static HomeStorage createStorage(FileConfiguration config) {
+        String backend = config.getString("storage.backend", "database");
+        return switch (backend.toLowerCase(Locale.ROOT)) {
+            case "database" -> new DatabaseManager();
+            case "file" -> new FileHomeStorage(new File(Hommr.getInstance().getDataFolder(), "homes").toPath());
+            default -> throw new IllegalStateException("Unknown storage backend '" + backend + "' in config.yml (expected 'database' or 'file')");
+        };
+    }
+
+    /**
+     * Fills the cache from the snapshot written on the previous shutdown, then deletes it so that a crash before
+     * the next clean shutdown falls back to a full load.
+     *
+     * @return `true` if the snapshot was loaded, `false` if there was none or it could not be read
+     */
+    private static boolean loadSnapshot() {
+        File file = new File(Hommr.getInstance().getDataFolder(), SNAPSHOT_FILE);
+        if (!file.isFile()) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            List<Home> homes = HomeSnapshot.read(file.toPath());
+            for (Home home : homes) {
+                getOrCreatePlayerHomes(home.getOwner()).loadHomeIfAbsent(home);
+            }
+            Hommr.getInstance().getLogger().info("Loaded " + homes.size() + " homes from the snapshot in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+            return true;
+        } catch (IOException e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to read the home snapshot, loading homes from the storage", e);
+            playerHomesCache.clear();
+            homeIndex.clear();
+            return false;
+        } finally {
+            if (!file.delete()) {
+                Hommr.getInstance().getLogger().warning("Failed to delete the home snapshot " + file);
+            }
+        }
+    }
+
+    /**
+     * Loads every home from the storage in the background and reconciles the cache filled from the snapshot with
+     * it, in case the storage was changed while the server was down.
+     * <p>
+     * The homes are grouped and compared with the cache on the storage thread; only the owners that differ are
+     * then reconciled on the main thread, {@value #RECONCILED_OWNERS_PER_TICK} per tick.
+     */
+    private static void reconcileSnapshot() {
+        changedDuringReconcile = ConcurrentHashMap.newKeySet();
+        StorageExecutor.StorageTask<List<Home>> load = timed(HommrMetrics.STORAGE_LOAD, storage::loadAll);
+        storageExecutor.submit(null, () -> diffSnapshot(load.run()))
+                .thenAccept(differing -> mainThreadExecutor().execute(() -> reconcileInChunks(new ArrayList<>(differing.entrySet()), 0, 0)))
+                .exceptionally(e -> {
+                    changedDuringReconcile = null;
+                    Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to reconcile the home snapshot with the storage", e);
+                    return null;
+                });
+    }
+
+    private static void reconcileInChunks(List<Map.Entry<UUID, List<Home>>> owners, int from, int changed) {
+        int to = Math.min(from + RECONCILED_OWNERS_PER_TICK, owners.size());
+        int total = changed + reconcile(owners.subList(from, to));
+        if (to < owners.size()) {
+            mainThreadExecutor().execute(() -> reconcileInChunks(owners, to, total));
+            return;
+        }
+
+        changedDuringReconcile = null;
+        if (total > 0) {
+            Hommr.getInstance().getLogger().info("Reconciled " + total + " homes that changed in the storage since the snapshot.");
+        }
+    }
+
+    /**
+     * Groups the persisted homes by owner and keeps the owners whose cached homes differ, including cached owners
+     * without any persisted home. Only reads the immutable homes of the cached entries, so it may run on any
+     * thread; {@link #reconcile(Collection)} checks the owners again under their lock.
+     *
+     * @param persisted every persisted home
+     * @return the persisted homes of each owner to reconcile
+     */
+    static Map<UUID, List<Home>> diffSnapshot(List<Home> persisted) {
+        Map<UUID, List<Home>> byOwner = new HashMap<>();
+        for (Home home : persisted) {
+            byOwner.computeIfAbsent(home.getOwner(), owner -> new ArrayList<>()).add(home);
+        }
+        for (UUID owner : playerHomesCache.keySet()) {
+            byOwner.putIfAbsent(owner, List.of());
+        }
+
+        byOwner.entrySet().removeIf(entry -> {
+            PlayerHomes cached = playerHomesCache.get(entry.getKey());
+            Map<String, Home> homes = cached != null ? cached.getHomes() : Map.of();
+            if (homes.size() != entry.getValue().size()) {
+                return false;
+            }
+            for (Home home : entry.getValue()) {
+                Home current = homes.get(HomeName.fold(home.getName()));
+                if (!home.hasSameStoredState(current) || home.getVersion() > current.getVersion()) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        return byOwner;
+    }
+
+    /**
+     * Replaces the cached homes without local changes by their persisted state, skipping the owners changed since
+     * the reconciliation started. Must run on the main thread.
+     *
+     * @param owners the persisted homes of each owner to reconcile, as returned by {@link #diffSnapshot(List)}
+     * @return the number of homes added, replaced or removed
+     */
+    static int reconcile(Collection<Map.Entry<UUID, List<Home>>> owners) {
+        Set<UUID> skipped = changedDuringReconcile;
+        int changed = 0;
+        for (Map.Entry<UUID, List<Home>> entry : owners) {
+            if (skipped != null && skipped.contains(entry.getKey())) {
+                continue;
+            }
+            PlayerHomes playerHomes = getOrCreatePlayerHomes(entry.getKey());
+            changed += playerHomes.reconcile(entry.getValue()).changed();
+            if (playerHomes.getHomeCount() == 0 && !playerHomes.isDirty() && playerHomesCache.remove(entry.getKey(), playerHomes)) {
+                detach(playerHomes);
+            }
+        }
+        return changed;
+    }
+
+    private static void recordChange(UUID owner) {
+        Set<UUID> changed = changedDuringReconcile;
+        if (changed != null) {
+            changed.add(owner);
+        }
+    }
+
+    /**
+     * Seeds the {@link #getHomeCounters() global counts} from the storage. Must run before any change is accepted,
+     * since every later change is counted as it is made.
+     */
+    private static void seedCounters() {
+        try {
+            HomeStorage.Counts counts = storageExecutor.call(null, timed(HommrMetrics.STORAGE_LOAD, storage::count));
+            homeCounters.seed(counts.homesPerWorld(), counts.owners());
+        } catch (Exception e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to count the stored homes, statistics will be off", e);
+        }
+    }
+
+    /**
+     * Opens the change log cursor when the storage is shared and {@code coherence.enabled} is set. Must run before
+     * the homes are loaded, so that every change made after they are read is polled.
+     */
+    private static void openChangeCursor(FileConfiguration config) {
+        changeCursor = null;
+        if (!(storage instanceof SharedHomeStorage shared) || !config.getBoolean("coherence.enabled", false)) {
+            return;
+        }
+        try {
+            changeCursor = storageExecutor.call(null, shared::openChangeCursor);
+            lastChangePrune = System.currentTimeMillis();
+        } catch (Exception e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to open the home change log, changes made by other servers will not be seen", e);
+        }
+    }
+
+    /**
+     * Refreshes the owners whose homes were changed by other servers sharing the storage since the last poll.
+     *
+     * <p>Reads the change log of the {@link SharedHomeStorage} after the cursor, then reloads each changed owner
+     * that is cached, or every changed owner without lazy loading, and aligns the homes without local changes
+     * with the stored ones. Changes of this server are skipped. Also prunes the changes older than
+     * {@code coherence.change-retention-hours} once an hour. Blocks on the storage, so this must not be called
+     * from the main thread.</p>
+     *
+     * @return the number of refreshed owners, `0` if coherence is disabled or the homes are not loaded yet
+     */
+    public static int pollRemoteChanges() {
+        ChangeCursor cursor = changeCursor;
+        if (cursor == null || !(storage instanceof SharedHomeStorage shared) || !isReady()) {
+            return 0;
+        }
+
+        synchronized (pollLock) {
+            List<HomeChange> changes;
+            try {
+                changes = storageExecutor.call(null, timed(HommrMetrics.STORAGE_LOAD, () -> shared.pollChanges(cursor, MAX_POLLED_CHANGES)));
+            } catch (Exception e) {
+                Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to poll the home change log", e);
+                return 0;
+            }
+
+            Set<UUID> owners = new LinkedHashSet<>();
+            for (HomeChange change : changes) {
+                if (!change.node().equals(shared.getNodeId())) {
+                    owners.add(change.owner());
+                }
+            }
+            int refreshed = 0;
+            for (UUID owner : owners) {
+                if (refreshOwner(owner)) {
+                    refreshed++;
+                }
+            }
+
+            pruneChanges(shared);
+            return refreshed;
+        }
+    }
+
+    private static void pruneChanges(SharedHomeStorage shared) {
+        long now = System.currentTimeMillis();
+        if (now - lastChangePrune < TimeUnit.HOURS.toMillis(1)) {
+            return;
+        }
+        lastChangePrune = now;
+        long retention = TimeUnit.HOURS.toMillis(Math.max(1, Hommr.getInstance().getConfig().getLong("coherence.change-retention-hours", 24)));
+        try {
+            storageExecutor.call(null, () -> shared.pruneChanges(now - retention));
+        } catch (Exception e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to prune the home change log", e);
+        }
+    }
+
+    /**
+     * Reloads the homes of an owner and aligns those without local changes with the storage, keeping the
+     * {@link #getHomeCounters() global counts} in line.
+     *
+     * @param owner the UUID of the owner
+     * @return `true` if the owner was reloaded, `false` if it is not cached or the query failed
+     */
+    private static boolean refreshOwner(UUID owner) {
+        PlayerHomes playerHomes = lazyLoading ? playerHomesCache.get(owner) : getOrCreatePlayerHomes(owner);
+        if (playerHomes == null || (lazyLoading && !playerHomes.isLoaded())) {
+            return false;
+        }
+
+        List<Home> persisted;
+        try {
+            persisted = storageExecutor.call(owner, timed(HommrMetrics.STORAGE_LOAD, () -> storage.loadByOwner(owner)));
+        } catch (Exception e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to refresh the homes of " + owner, e);
+            return false;
+        }
+
+        PlayerHomes.Reconciliation reconciliation = playerHomes.reconcile(persisted);
+        countChanges(reconciliation.before(), reconciliation.after());
+        return true;
+    }
+
+    /**
+     * Applies the difference between two states of the homes of one owner to the global counts.
+     */
+    private static void countChanges(Map<String, Home> before, Map<String, Home> after) {
+        boolean ownerAdded = before.isEmpty() && !after.isEmpty();
+        boolean ownerRemoved = !before.isEmpty() && after.isEmpty();
+        for (Map.Entry<String, Home> entry : before.entrySet()) {
+            Home current = after.get(entry.getKey());
+            if (current == null) {
+                homeCounters.homeRemoved(entry.getValue().getWorld(), ownerRemoved);
+                ownerRemoved = false;
+            } else {
+                homeCounters.homeMoved(entry.getValue().getWorld(), current.getWorld());
+            }
+        }
+        for (Map.Entry<String, Home> entry : after.entrySet()) {
+            if (!before.containsKey(entry.getKey())) {
+                homeCounters.homeAdded(entry.getValue().getWorld(), ownerAdded);
+                ownerAdded = false;
+            }
+        }
+    }
+
+    /**
+     * Loads every persisted home into the cache, keeping the homes replayed from the journal or loaded ahead for
+     * players who logged in meanwhile.
+     */
+    private static void loadAllHomes() {
+        try {
+            List<Home> homes = storageExecutor.call(null, timed(HommrMetrics.STORAGE_LOAD, storage::loadAll));
+            for (Home home : homes) {
+                getOrCreatePlayerHomes(home.getOwner()).loadHomeIfAbsent(home);
+            }
+            Hommr.getInstance().getLogger().info("Loaded " + homes.size() + " homes.");
+        } catch (Exception e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to load all homes", e);
+        }
+    }
+
+    /**
+     * Load the homes of a single player into the cache with an indexed query on the owner.
+     *
+     * <p>Waits for the query, which runs on the {@link #getStorageExecutor() storage executor} after any pending
+     * storage task of the same player, so this must not be called from the main thread. Homes set or deleted
+     * locally before the load completes take precedence over the loaded rows. Does nothing if the player is
+     * already loaded, or if lazy loading is disabled and every home is loaded.</p>
+     *
+     * @param playerId the UUID of the player
+     * @return the cached PlayerHomes of the player
+     * @throws Exception if the homes could not be queried
+     */
+    public static PlayerHomes loadPlayerHomes(UUID playerId) throws Exception {
+        PlayerHomes playerHomes = getOrCreatePlayerHomes(playerId);
+        if ((!lazyLoading && isReady()) || playerHomes.isLoaded()) {
+            return playerHomes;
+        }
+
+        HommrMetrics.CACHE_MISSES.increment();
+        for (Home home : storageExecutor.call(playerId, timed(HommrMetrics.STORAGE_LOAD, () -> storage.loadByOwner(playerId)))) {
+            playerHomes.loadHomeIfAbsent(home);
+        }
+        playerHomes.markLoaded();
+        return playerHomes;
+    }
+
+    /**
+     * Load the homes of a player, online or offline, without blocking the calling thread.
+     *
+     * <p>While homes are loaded in the background, waits for the load to complete first.
+     * Completes immediately if the player is already cached, or if every home is cached (lazy loading disabled),
+     * in which case a player without homes gets an empty PlayerHomes that is not added to the cache. Otherwise the
+     * query runs on the {@link #getStorageExecutor() storage executor}; offline players loaded this way are kept in
+     * the bounded offline part of the cache.</p>
+     *
+     * @param playerId the UUID of the player
+     * @return a future completed with the PlayerHomes of the player, or completed exceptionally if the query failed
+     * or was rejected because the storage queue is full
+     */
+    public static CompletableFuture<PlayerHomes> loadPlayerHomesAsync(UUID playerId) {
+        CompletableFuture<Void> pending = lazyLoading ? storageReadiness : readiness;
+        if (!pending.isDone() || pending.isCompletedExceptionally()) {
+            return pending.thenCompose(ignored -> loadPlayerHomesAsync(playerId));
+        }
+
+        PlayerHomes cached = playerHomesCache.get(playerId);
+        if (!lazyLoading) {
+            return CompletableFuture.completedFuture(cached != null ? cached : new PlayerHomes(playerId));
+        }
+        if (cached != null && cached.isLoaded()) {
+            HommrMetrics.CACHE_HITS.increment();
+            offlineOwners.touch(playerId);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        HommrMetrics.CACHE_MISSES.increment();
+        return storageExecutor.submit(playerId, timed(HommrMetrics.STORAGE_LOAD, () -> storage.loadByOwner(playerId))).thenApply(homes -> {
+            PlayerHomes playerHomes = getOrCreatePlayerHomes(playerId);
+            if (!playerHomes.isLoaded()) {
+                homes.forEach(playerHomes::loadHomeIfAbsent);
+                playerHomes.markLoaded();
+            }
+            if (lazyLoading && Bukkit.getPlayer(playerId) == null) {
+                offlineOwners.add(playerId);
+                offlineOwners.evictOverflow(HomeManager::evictIfClean);
+            }
+            return playerHomes;
+        });
+    }
+
+    /**
+     * Retrieve a home of any player, loading their homes off the main thread if needed.
+     *
+     * @param playerId the UUID of the player
+     * @param homeName the name of the home
+     * @return a future completed with the home, or an empty Optional if the player has no home with that name
+     */
+    public static CompletableFuture<Optional<Home>> getHomeAsync(UUID playerId, String homeName) {
+        return loadPlayerHomesAsync(playerId).thenApply(playerHomes -> playerHomes.getHome(homeName));
+    }
+
+    /**
+     * Retrieve every home of any player, loading them off the main thread if needed.
+     *
+     * @param playerId the UUID of the player
+     * @return a future completed with an unmodifiable snapshot of the player's homes
+     */
+    public static CompletableFuture<Collection<Home>> getHomesAsync(UUID playerId) {
+        return loadPlayerHomesAsync(playerId).thenApply(playerHomes -> List.copyOf(playerHomes.getHomes().values()));
+    }
+
+    /**
+     * Create or update a home of an online player once their homes are loaded.
+     *
+     * <p>The change itself, including the {@link HomeSetEvent}, runs on the main thread.</p>
+     *
+     * @param playerId the UUID of the player, who must be online when the change is applied
+     * @param homeName the name of the home
+     * @param location the location of the home
+     * @return a future completed with the result of {@link #setHome(Player, String, Location)}, or `false` if the player is offline
+     */
+    public static CompletableFuture<Boolean> setHomeAsync(UUID playerId, String homeName, Location location) {
+        return loadPlayerHomesAsync(playerId).thenApplyAsync(playerHomes -> {
+            Player player = Bukkit.getPlayer(playerId);
+            return player != null && setHome(player, homeName, location);
+        }, mainThreadExecutor());
+    }
+
+    /**
+     * Delete a home of an online player once their homes are loaded.
+     *
+     * <p>The change itself, including the {@link HomeDeleteEvent}, runs on the main thread.</p>
+     *
+     * @param playerId the UUID of the player, who must be online when the change is applied
+     * @param homeName the name of the home
+     * @return a future completed with the result of {@link #deleteHome(Player, String)}, or `false` if the player is offline
+     */
+    public static CompletableFuture<Boolean> deleteHomeAsync(UUID playerId, String homeName) {
+        return loadPlayerHomesAsync(playerId).thenApplyAsync(playerHomes -> {
+            Player player = Bukkit.getPlayer(playerId);
+            return player != null && deleteHome(player, homeName);
+        }, mainThreadExecutor());
+    }
+
+    /**
+     * Executor running tasks on the server main thread.
+     *
+     * @return the main thread executor of the plugin
+     */
+    public static Executor mainThreadExecutor() {
+        return Bukkit.getScheduler().getMainThreadExecutor(Hommr.getInstance());
+    }
+
+    /**
+     * Loads the homes of a player who is logging in. Called from the async pre-login thread.
+     *
+     * <p>Without lazy loading, this only does something while the homes are loaded in the background: the homes
+     * of the player are then queried on their own, concurrently with the full load, so that they can use their
+     * homes before it completes.</p>
+     *
+     * @param playerId the UUID of the player logging in
+     */
+    public static void handlePreLogin(UUID playerId) {
+        if (!lazyLoading && readiness.isDone()) {
+            return;
+        }
+        try {
+            // The journal must be replayed first, so that the loaded homes do not override its changes
+            storageReadiness.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        offlineOwners.remove(playerId);
+        try {
+            loadPlayerHomes(playerId);
+        } catch (Exception e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to load homes of " + playerId, e);
+        }
+    }
+
+    /**
+     * Unpins a player who left: their home limit is forgotten, their pending and queued teleports are dropped, and
+     * their entry joins the offline owners and may be evicted once its changes are flushed.
+     *
+     * @param playerId the UUID of the player who quit
+     */
+    public static void handleQuit(UUID playerId) {
+        homeLimits.invalidate(playerId);
+        if (teleportWarmups != null) {
+            teleportWarmups.cancel(playerId);
+        }
+        if (teleportScheduler != null) {
+            teleportScheduler.cancel(playerId);
+        }
+        if (!lazyLoading) {
+            return;
+        }
+
+        offlineOwners.add(playerId);
+        offlineOwners.evictOverflow(HomeManager::evictIfClean);
+    }
+
+    /**
+     * Drops the cache entry of an offline owner if it has no unsaved changes.
+     *
+     * @param playerId the UUID of the owner
+     * @return `true` if the owner is no longer cached, `false` if the entry was kept because it is dirty
+     */
+    private static boolean evictIfClean(UUID playerId) {
+        return playerHomesCache.computeIfPresent(playerId, (id, ph) -> ph.isDirty() || !detach(ph) ? ph : null) == null;
+    }
+
+    /**
+     * Removes the homes of an entry leaving the cache from the {@link #getHomeIndex() spatial index}.
+     *
+     * @return always `true`, so that it can end an eviction predicate
+     */
+    private static boolean detach(PlayerHomes playerHomes) {
+        playerHomes.detachIndex();
+        return true;
+    }
+
+    /**
+     * Returns the cached entry of a player without creating one, recording the access for offline owners.
      *
-     * <p>On failure to read from the database, the method logs a severe error and continues (the cache will be empty).</p>
+     * @param playerId the UUID of the player
+     * @return the cached PlayerHomes, or `null` if the player has no cached entry
      */
-    public static void init() {
-        if (databaseManager == null) {
-            databaseManager = new DatabaseManager();
-            databaseManager.init();
+    private static PlayerHomes getCachedPlayerHomes(UUID playerId) {
+        PlayerHomes playerHomes = playerHomesCache.get(playerId);
+        if (playerHomes == null) {
+            HommrMetrics.CACHE_MISSES.increment();
+        } else {
+            HommrMetrics.CACHE_HITS.increment();
+            if (lazyLoading) {
+                offlineOwners.touch(playerId);
+            }
         }
+        return playerHomes;
+    }
 
-        playerHomesCache.clear();
+    /**
+     * Wraps a storage task so that its duration, excluding the time spent queued, is recorded.
+     */
+    private static <T> StorageExecutor.StorageTask<T> timed(LatencyHistogram histogram, StorageExecutor.StorageTask<T> task) {
+        return () -> {
+            long start = HommrMetrics.start();
+            try {
+                return task.run();
+            } finally {
+                histogram.recordSince(start);
+            }
+        };
+    }
+
+    /**
+     * Dispatches an event to its listeners, recording the time they took.
+     */
+    private static void callEvent(Event event) {
+        long start = HommrMetrics.start();
+        Bukkit.getPluginManager().callEvent(event);
+        HommrMetrics.EVENT_DISPATCH.recordSince(start);
+    }
+
+    /**
+     * Opens the mutation journal if enabled in the configuration and replays the changes it still holds into the
+     * cache, where they stay dirty until the next flush.
+     */
+    private static void openJournal() {
+        FileConfiguration config = Hommr.getInstance().getConfig();
+        if (journal != null || !config.getBoolean("journal.enabled", true)) {
+            return;
+        }
 
         try {
-            List<Home> homes = databaseManager.getAllHomes();
-            for (Home home : homes) {
-                PlayerHomes ph = playerHomesCache.computeIfAbsent(home.getOwner(), PlayerHomes::new);
-                ph.setHome(home.getName(), home);
+            File directory = new File(Hommr.getInstance().getDataFolder(), "journal");
+            journal = HomeJournal.open(directory.toPath(), Hommr.getInstance().getLogger());
+
+            int replayed = journal.replay(new HomeJournal.Listener() {
+                @Override
+                public void onSet(Home home) {
+                    // The version of the stored row is not journaled, the home is written unconditionally
+                    home.setVersion(Home.UNKNOWN_VERSION);
+                    getOrCreatePlayerHomes(home.getOwner()).setHome(home.getName(), home);
+                }
+
+                @Override
+                public void onDelete(UUID owner, String name) {
+                    PlayerHomes playerHomes = getOrCreatePlayerHomes(owner);
+                    if (!playerHomes.removeHome(name)) {
+                        // Not loaded yet: only the owner and name are needed to delete it
+                        Home deleted = new Home(0, owner, name, "", 0, 0, 0, 0, 0, 0);
+                        deleted.setVersion(Home.UNKNOWN_VERSION);
+                        playerHomes.markDeleted(deleted);
+                    }
+                }
+            });
+
+            if (replayed > 0) {
+                Hommr.getInstance().getLogger().info("Replayed " + replayed + " home changes from the journal.");
             }
-            Hommr.getInstance().getLogger().info("Loaded " + homes.size() + " homes.");
-        } catch (SQLException e) {
-            Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to load all homes", e);
+        } catch (IOException e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to open the home journal, changes will only be persisted on flush", e);
+            journal = null;
         }
     }
 
     /**
-     * Persists all homes currently held in the in-memory cache to persistent storage and closes the database manager.
+     * Flushes the homes changed since the last flush to persistent storage, writes the cache snapshot, waits for
+     * the other pending storage operations and closes the storage backend.
      *
-     * If the database manager is not initialized, this method does nothing. On failure to save homes a severe log entry is recorded.
+     * If the storage is not initialized, nothing is flushed.
      */
     public static void shutdown() {
-        if (databaseManager != null) {
+        if (storage != null) {
+            flushChanges();
+            writeSnapshot();
+        }
+        if (storageExecutor != null) {
+            try {
+                if (!storageExecutor.shutdown(5, TimeUnit.SECONDS)) {
+                    Hommr.getInstance().getLogger().warning("Pending home operations did not finish before shutdown.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (storage != null) {
+            storage.close();
+        }
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        if (chunkPrewarmer != null) {
+            chunkPrewarmer.clear();
+        }
+        if (teleportWarmups != null) {
+            teleportWarmups.clear();
+        }
+        if (teleportScheduler != null) {
+            teleportScheduler.clear();
+        }
+    }
+
+    /**
+     * Writes the cache to the snapshot file loaded by the next {@link #init()}, unless homes are loaded lazily,
+     * not fully loaded yet, or the snapshot is disabled.
+     */
+    private static void writeSnapshot() {
+        if (lazyLoading || !Hommr.getInstance().getConfig().getBoolean("cache.snapshot", true)) {
+            return;
+        }
+        if (!isReady()) {
+            // A partial cache would hide the homes that were not loaded yet until the next reconciliation
+            Hommr.getInstance().getLogger().warning("Homes were not fully loaded, skipping the home snapshot.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            File file = new File(Hommr.getInstance().getDataFolder(), SNAPSHOT_FILE);
+            int written = HomeSnapshot.write(file.toPath(), playerHomesCache.values());
+            Hommr.getInstance().getLogger().info("Wrote " + written + " homes to the snapshot in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+        } catch (IOException e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to write the home snapshot, the next startup will load every home from the storage", e);
+        }
+    }
+
+    /**
+     * Write-behind flush: persists only the homes set or deleted since the previous flush.
+     *
+     * <p>Dirty entries are drained from every cached {@link PlayerHomes}, so a home edited several times since the
+     * previous flush is written once, with its latest state. The delta is written in transactions of at most
+     * {@code autosave.max-batch-size} homes. If a batch fails, the homes of that batch and the following ones are
+     * marked dirty again so the next flush retries them. Concurrent calls are serialized, which makes this safe
+     * to run from the autosave task while the plugin is shutting down.</p>
+     *
+     * <p>The journal is rotated before draining and the sealed segments are compacted once every batch is
+     * persisted, since every change they record is then in the storage.</p>
+     *
+     * @return the number of rows written or deleted, `0` if there was nothing to flush or the first batch failed
+     */
+    public static int flushChanges() {
+        if (storage == null) {
+            return 0;
+        }
+
+        synchronized (flushLock) {
+            long sealedSegment = rotateJournal();
+
+            List<Home> upserts = new ArrayList<>();
+            List<Home> deletions = new ArrayList<>();
+            List<PlayerHomes> flushing = new ArrayList<>();
+            for (PlayerHomes ph : playerHomesCache.values()) {
+                if (ph.isDirty()) {
+                    ph.drainChanges(upserts, deletions);
+                    flushing.add(ph);
+                }
+            }
+
+            if (upserts.isEmpty() && deletions.isEmpty()) {
+                flushing.forEach(PlayerHomes::completeFlush);
+                compactJournal(sealedSegment);
+                return 0;
+            }
+
+            long start = System.nanoTime();
+            int batches = 0;
+            int savedUpserts = 0;
+            int savedDeletions = 0;
+            List<Home> conflicts = new ArrayList<>();
             try {
-                List<Home> allHomes = new ArrayList<>();
-                for (PlayerHomes ph : playerHomesCache.values()) {
-                    allHomes.addAll(ph.getHomes().values());
+                while (savedUpserts < upserts.size() || savedDeletions < deletions.size()) {
+                    int deletionCount = Math.min(maxBatchSize, deletions.size() - savedDeletions);
+                    int upsertCount = Math.min(maxBatchSize - deletionCount, upserts.size() - savedUpserts);
+                    List<Home> batchDeletions = deletions.subList(savedDeletions, savedDeletions + deletionCount);
+                    List<Home> batchUpserts = upserts.subList(savedUpserts, savedUpserts + upsertCount);
+                    // Keyed by owner, so that loads of these owners queued meanwhile read the written rows
+                    List<Home> batchConflicts = storageExecutor.callWithKeys(owners(batchUpserts, batchDeletions),
+                            timed(HommrMetrics.STORAGE_SAVE, () -> save(batchUpserts, batchDeletions)));
+                    confirmDeleted(batchDeletions);
+                    confirmWritten(batchUpserts, batchConflicts);
+                    conflicts.addAll(batchConflicts);
+                    savedUpserts += upsertCount;
+                    savedDeletions += deletionCount;
+                    batches++;
+                }
+            } catch (Exception e) {
+                Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to save changed homes, they will be retried on the next flush", e);
+                for (Home home : upserts.subList(savedUpserts, upserts.size())) {
+                    getOrCreatePlayerHomes(home.getOwner()).markDirty(home.getName());
+                }
+                for (Home home : deletions.subList(savedDeletions, deletions.size())) {
+                    getOrCreatePlayerHomes(home.getOwner()).markDirty(home.getName());
                 }
-                databaseManager.saveAllHomes(allHomes);
-                Hommr.getInstance().getLogger().info("Saved " + allHomes.size() + " homes.");
-            } catch (SQLException e) {
-                Hommr.getInstance().getLogger().log(java.util.logging.Level.SEVERE, "Failed to save all homes", e);
+                flushing.forEach(PlayerHomes::completeFlush);
+                return savedUpserts + savedDeletions;
             }
-            databaseManager.close();
+
+            compactJournal(sealedSegment);
+            flushing.forEach(PlayerHomes::completeFlush);
+            if (!conflicts.isEmpty()) {
+                resolveConflicts(conflicts);
+            }
+            if (lazyLoading) {
+                offlineOwners.evictOverflow(HomeManager::evictIfClean);
+            }
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Hommr.getInstance().getLogger().info("Saved " + upserts.size() + " changed and " + deletions.size()
+                    + " deleted homes in " + elapsedMillis + " ms (" + batches + (batches == 1 ? " batch)." : " batches)."));
+            return upserts.size() + deletions.size();
+        }
+    }
+
+    private static Set<UUID> owners(List<Home> upserts, List<Home> deletions) {
+        Set<UUID> owners = new HashSet<>();
+        upserts.forEach(home -> owners.add(home.getOwner()));
+        deletions.forEach(home -> owners.add(home.getOwner()));
+        return owners;
+    }
+
+    /**
+     * Writes a batch of changes, optimistically if the storage is shared.
+     *
+     * @return the homes not written because another server changed them meanwhile
+     */
+    private static List<Home> save(List<Home> upserts, List<Home> deletions) throws Exception {
+        if (storage instanceof SharedHomeStorage shared) {
+            return shared.saveChangesIfUnchanged(upserts, deletions);
+        }
+        storage.saveChanges(upserts, deletions);
+        return List.of();
+    }
+
+    /**
+     * Moves the written homes of a batch to their next version.
+     */
+    private static void confirmWritten(List<Home> upserts, List<Home> conflicts) {
+        Set<Home> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        skipped.addAll(conflicts);
+        for (Home home : upserts) {
+            if (skipped.contains(home)) {
+                continue;
+            }
+            PlayerHomes ph = playerHomesCache.get(home.getOwner());
+            if (ph != null) {
+                ph.confirmWritten(home);
+            } else {
+                home.setVersion(Home.nextVersion(home.getVersion()));
+            }
+        }
+    }
+
+    /**
+     * Drops the changes that lost against a change made by another server, reloading their owners from the storage.
+     */
+    private static void resolveConflicts(List<Home> conflicts) {
+        Hommr.getInstance().getLogger().warning(conflicts.size() + " changed homes were changed by another server"
+                + " meanwhile and were not saved; the stored version is kept.");
+        Set<UUID> owners = new LinkedHashSet<>();
+        for (Home home : conflicts) {
+            owners.add(home.getOwner());
+        }
+        owners.forEach(HomeManager::refreshOwner);
+    }
+
+    private static void confirmDeleted(List<Home> deletions) {
+        for (Home home : deletions) {
+            PlayerHomes ph = playerHomesCache.get(home.getOwner());
+            if (ph != null) {
+                ph.confirmDeleted(home);
+            }
+        }
+    }
+
+    /**
+     * Seals the current journal segment before a flush.
+     *
+     * @return the id of the newest sealed segment, or `-1` if there is no journal or it could not be rotated
+     */
+    private static long rotateJournal() {
+        if (journal == null) {
+            return -1;
+        }
+        try {
+            return journal.rotate();
+        } catch (IOException e) {
+            Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to rotate the home journal", e);
+            return -1;
+        }
+    }
+
+    private static void compactJournal(long sealedSegment) {
+        if (journal != null && sealedSegment >= 0) {
+            journal.compact(sealedSegment);
         }
     }
 
@@ -74,15 +1154,16 @@ public class HomeManager {
      * @return the PlayerHomes for the specified player; created and stored in the cache if absent
      */
     private static PlayerHomes getOrCreatePlayerHomes(UUID playerId) {
-        return playerHomesCache.computeIfAbsent(playerId, PlayerHomes::new);
+        return playerHomesCache.computeIfAbsent(playerId, id -> new PlayerHomes(id, homeIndex));
     }
 
     /**
      * Create or update a player's home with the given name and location.
      *
      * Attempts to store the provided location as a home for the player. If the player has reached
-     * the configured maximum number of homes and the operation would create a new home, the method
-     * fails and returns `false`. A HomeSetEvent is fired before the change; if that event is
+     * their {@link #getMaxHomes(Player) maximum number of homes} and the operation would create a new home, or
+     * their maximum number of homes in the world of the location and the home would be added to that world, the
+     * method fails and returns `false`. A HomeSetEvent is fired before the change; if that event is
      * cancelled the operation is aborted.
      *
      * @param player   the player who owns the home
@@ -93,8 +1174,9 @@ public class HomeManager {
     public static boolean setHome(Player player, String homeName, Location location) {
         PlayerHomes playerHomes = getOrCreatePlayerHomes(player.getUniqueId());
 
-        boolean isUpdate = playerHomes.hasHome(homeName);
-        if (!isUpdate && getMaxHomes(player) != -1 && playerHomes.getHomeCount() >= getMaxHomes(player)) {
+        Home existing = playerHomes.findHome(homeName);
+        boolean isUpdate = existing != null;
+        if (isLimitReached(player, playerHomes, existing, location.getWorld().getName())) {
             return false;
         }
 
@@ -102,28 +1184,68 @@ public class HomeManager {
 
         // Call the event
         HomeSetEvent event = new HomeSetEvent(player, homeName, home, isUpdate);
-        Bukkit.getPluginManager().callEvent(event);
+        callEvent(event);
 
         if (event.isCancelled()) {
             return false;
         }
 
-        playerHomes.setHome(homeName, home);
+        Home previous = playerHomes.setHome(homeName, home);
+        if (previous == null) {
+            homeCounters.homeAdded(home.getWorld(), playerHomes.getHomeCount() == 1);
+        } else {
+            homeCounters.homeMoved(previous.getWorld(), home.getWorld());
+        }
+        HommrMetrics.HOMES_SET.increment();
+        recordChange(player.getUniqueId());
+        if (journal != null) {
+            journal.appendSet(home);
+        }
         return true;
     }
 
+    /**
+     * Checks the limits of a player before a home is set.
+     *
+     * @param existing the home replaced, `null` if a new home is added
+     * @param world    the name of the world of the home
+     * @return `true` if setting the home would exceed a limit
+     */
+    private static boolean isLimitReached(Player player, PlayerHomes playerHomes, Home existing, String world) {
+        HomeLimits.Limit limit = homeLimits.get(player.getUniqueId(), player);
+        if (existing == null && limit.total() != HomeLimits.UNLIMITED && playerHomes.getHomeCount() >= limit.total()) {
+            return true;
+        }
+        int worldLimit = limit.forWorld(world);
+        return worldLimit != HomeLimits.UNLIMITED && (existing == null || !existing.getWorld().equals(world))
+                && playerHomes.getHomeCount(world) >= worldLimit;
+    }
+
     /**
      * Retrieve the home with the given name for the specified player.
      *
-     * If the player has no existing PlayerHomes entry in the in-memory cache, one will be created.
+     * Does not create a cache entry for unknown players. With lazy loading, only cached players are looked up;
+     * use {@link #loadPlayerHomesAsync(UUID)} for offline players.
      *
      * @param playerId the UUID of the player
      * @param homeName the name of the home to retrieve
      * @return an Optional containing the Home if found, or an empty Optional if no home with that name exists
      */
     public static Optional<Home> getHome(UUID playerId, String homeName) {
-        PlayerHomes playerHomes = getOrCreatePlayerHomes(playerId);
-        return playerHomes.getHome(homeName);
+        return Optional.ofNullable(findHome(playerId, homeName));
+    }
+
+    /**
+     * Retrieve the home with the given name for the specified player without allocating, for the hot
+     * {@code /home <name>} path. Same lookup rules as {@link #getHome(UUID, String)}.
+     *
+     * @param playerId the UUID of the player
+     * @param homeName the name of the home to retrieve, case-insensitive
+     * @return the Home, or `null` if no home with that name exists
+     */
+    public static Home findHome(UUID playerId, String homeName) {
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes == null ? null : playerHomes.findHome(homeName);
     }
 
     /**
@@ -134,56 +1256,205 @@ public class HomeManager {
      * @return `true` if the home was removed, `false` if the home did not exist or the deletion was cancelled
      */
     public static boolean deleteHome(Player player, String homeName) {
-        PlayerHomes playerHomes = getOrCreatePlayerHomes(player.getUniqueId());
+        PlayerHomes playerHomes = playerHomesCache.get(player.getUniqueId());
+        if (playerHomes == null) {
+            return false;
+        }
 
-        Optional<Home> homeOpt = playerHomes.getHome(homeName);
-        if (homeOpt.isEmpty()) {
+        Home home = playerHomes.findHome(homeName);
+        if (home == null) {
             return false;
         }
 
         // Call the event
-        HomeDeleteEvent event = new HomeDeleteEvent(player, homeName, homeOpt.get());
-        Bukkit.getPluginManager().callEvent(event);
+        HomeDeleteEvent event = new HomeDeleteEvent(player, homeName, home);
+        callEvent(event);
 
         if (event.isCancelled()) {
             return false;
         }
 
-        return playerHomes.removeHome(homeName);
+        if (!playerHomes.removeHome(homeName)) {
+            return false;
+        }
+        homeCounters.homeRemoved(home.getWorld(), playerHomes.getHomeCount() == 0);
+        HommrMetrics.HOMES_DELETED.increment();
+        recordChange(player.getUniqueId());
+        if (journal != null) {
+            journal.appendDelete(player.getUniqueId(), home.getName());
+        }
+        return true;
     }
 
     /**
      * Teleports the given player to the specified home if available and permitted.
      *
-     * Attempts to locate the home by name for the player, reconstruct its location, fire a HomeTeleportEvent
-     * and, if the event is not cancelled, perform the teleport.
+     * <p>Starts the same teleport as {@link #teleportToHomeAsync(Player, String)} without waiting for it.</p>
      *
      * @param player   the player to teleport
      * @param homeName the name of the home to teleport to
-     * @return `true` if the player was teleported, `false` if the home was not found, the location could not be reconstructed, or the teleport was cancelled
+     * @return `true` if the teleport was started or done, `false` if the home was not found, the location could not be reconstructed, or the teleport was cancelled
+     * @deprecated the player is only moved once the chunk of the home is loaded; use
+     * {@link #teleportToHomeAsync(Player, String)} to know when and whether the teleport succeeded
      */
+    @Deprecated
     public static boolean teleportToHome(Player player, String homeName) {
-        Optional<Home> homeOpt = getHome(player.getUniqueId(), homeName);
-        if (homeOpt.isEmpty()) {
-            return false;
+        return isStarted(teleportToHomeAsync(player, homeName));
+    }
+
+    private static boolean isStarted(CompletableFuture<TeleportResult> teleport) {
+        TeleportResult result = teleport.getNow(null);
+        return result == null || result.isSuccess();
+    }
+
+    /**
+     * Teleports the given player to the specified home without loading its chunk on the main thread.
+     *
+     * <p>Must be called from the main thread. See {@link #teleportToHomeAsync(Player, Home)}.</p>
+     *
+     * @param player   the player to teleport
+     * @param homeName the name of the home to teleport to, case-insensitive
+     * @return a future completed on the main thread with the outcome of the teleport
+     */
+    public static CompletableFuture<TeleportResult> teleportToHomeAsync(Player player, String homeName) {
+        long start = HommrMetrics.start();
+        Home home = findHome(player.getUniqueId(), homeName);
+        if (home == null) {
+            return CompletableFuture.completedFuture(TeleportResult.HOME_NOT_FOUND);
+        }
+        return schedule(player, home, start);
+    }
+
+    /**
+     * Teleports the given player to a home already looked up without loading its chunk on the main thread.
+     *
+     * <p>Must be called from the main thread. Players on {@link #getTeleportWarmups() cooldown} are refused, and
+     * players with a warmup wait for it without moving first. With the teleport queue enabled, the teleport then
+     * waits in the {@link #getTeleportScheduler() queue} during bursts. Once dispatched, the HomeTeleportEvent is fired, before
+     * anything is loaded; if it is not cancelled, the chunk of the home is loaded asynchronously and the player is
+     * moved once it is, with {@link Player#teleportAsync(Location)}. The duration recorded for the teleport includes
+     * the time spent queued and the chunk load, but not the warmup.</p>
+     *
+     * @param player the player to teleport
+     * @param home   the home to teleport to
+     * @return a future completed on the main thread with the outcome of the teleport
+     */
+    public static CompletableFuture<TeleportResult> teleportToHomeAsync(Player player, Home home) {
+        return schedule(player, home, HommrMetrics.start());
+    }
+
+    /**
+     * Hands a teleport to the {@link #getTeleportWarmups() warmups}, or straight to the queue without them.
+     */
+    private static CompletableFuture<TeleportResult> schedule(Player player, Home home, long start) {
+        TeleportWarmups warmups = teleportWarmups;
+        return warmups != null ? warmups.submit(player, home, start) : enqueue(player, home, start);
+    }
+
+    /**
+     * Hands a teleport to the {@link #getTeleportScheduler() teleport queue}, or starts it right away without one.
+     */
+    private static CompletableFuture<TeleportResult> enqueue(Player player, Home home, long start) {
+        TeleportScheduler scheduler = teleportScheduler;
+        return scheduler != null ? scheduler.submit(player, home, start) : teleport(player, home, start);
+    }
+
+    /**
+     * Dispatches the teleports whose warmup ended, then the queued teleports that fit in the budget of the tick.
+     * Must run on the main thread at every tick.
+     */
+    public static void tickTeleports() {
+        TeleportWarmups warmups = teleportWarmups;
+        if (warmups != null) {
+            warmups.tick();
+        }
+        TeleportScheduler scheduler = teleportScheduler;
+        if (scheduler != null) {
+            scheduler.tick();
+        }
+    }
+
+    /**
+     * Returns the position of the teleport of a player in the teleport queue.
+     *
+     * @param playerId the UUID of the player
+     * @return the position, from `1` for the next teleport dispatched, or `0` if the player has no queued teleport
+     */
+    public static int getTeleportQueuePosition(UUID playerId) {
+        TeleportScheduler scheduler = teleportScheduler;
+        return scheduler == null ? 0 : scheduler.getPosition(playerId);
+    }
+
+    /**
+     * Returns the time left before the pending teleport of a player is dispatched.
+     *
+     * @param playerId the UUID of the player
+     * @return the time in milliseconds, or `0` if the player has no teleport waiting for its warmup
+     */
+    public static long getRemainingWarmupMillis(UUID playerId) {
+        TeleportWarmups warmups = teleportWarmups;
+        return warmups == null ? 0 : warmups.getRemainingWarmupMillis(playerId);
+    }
+
+    /**
+     * Returns the time left before a player may teleport to a home again.
+     *
+     * @param playerId the UUID of the player
+     * @return the time in milliseconds, or `0` if the player is not on cooldown
+     */
+    public static long getRemainingCooldownMillis(UUID playerId) {
+        TeleportWarmups warmups = teleportWarmups;
+        return warmups == null ? 0 : warmups.getRemainingCooldownMillis(playerId);
+    }
+
+    /**
+     * Interrupts the teleport warmup of a player who moved to another block. Must run on the main thread.
+     *
+     * @param player the player who moved
+     * @param to     the location they moved to
+     */
+    public static void handleMove(Player player, Location to) {
+        TeleportWarmups warmups = teleportWarmups;
+        if (warmups != null) {
+            warmups.handleMove(player, to);
         }
+    }
 
-        Home home = homeOpt.get();
+    private static CompletableFuture<TeleportResult> teleport(Player player, Home home, long start) {
         Location location = home.toLocation();
         if (location == null) {
-            return false; // The location could not be reconstructed
+            return CompletableFuture.completedFuture(TeleportResult.WORLD_NOT_FOUND);
         }
 
         // Call the event
-        HomeTeleportEvent event = new HomeTeleportEvent(player, homeName, home);
-        Bukkit.getPluginManager().callEvent(event);
+        HomeTeleportEvent event = new HomeTeleportEvent(player, home.getName(), home);
+        callEvent(event);
 
         if (event.isCancelled()) {
-            return false;
+            return CompletableFuture.completedFuture(TeleportResult.CANCELLED);
         }
 
-        player.teleport(location);
-        return true;
+        if (chunkPrewarmer != null) {
+            chunkPrewarmer.record(location);
+        }
+        return location.getWorld().getChunkAtAsync(location)
+                .thenCompose(chunk -> player.isOnline() ? player.teleportAsync(location) : CompletableFuture.completedFuture(false))
+                .thenApply(moved -> moved ? TeleportResult.SUCCESS : TeleportResult.FAILED)
+                .exceptionally(e -> {
+                    Hommr.getInstance().getLogger().log(java.util.logging.Level.WARNING, "Failed to teleport " + player.getName() + " to home " + home.getName(), e);
+                    return TeleportResult.FAILED;
+                })
+                .whenComplete((result, e) -> HommrMetrics.TELEPORT.recordSince(start));
+    }
+
+    /**
+     * Moves the chunk tickets of the {@link #getChunkPrewarmer() prewarmer} to the most used homes. Must run on the
+     * main thread; does nothing unless {@code teleport.prewarm.enabled} is set.
+     */
+    public static void refreshPrewarmedChunks() {
+        if (chunkPrewarmer != null) {
+            chunkPrewarmer.refresh();
+        }
     }
 
     /**
@@ -193,7 +1464,35 @@ public class HomeManager {
      * @return the set of home names owned by the player, empty if the player has no homes
      */
     public static Set<String> getHomeNames(UUID playerId) {
-        return getOrCreatePlayerHomes(playerId).getHomeNames();
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes == null ? Collections.emptySet() : playerHomes.getHomeNames();
+    }
+
+    /**
+     * Retrieve the homes of a player as of the call.
+     *
+     * <p>Each change to the homes of the player replaces the map instead of modifying it, so what is derived from a
+     * map, such as a rendered list, stays valid as long as this returns the same instance.</p>
+     *
+     * @param playerId the UUID of the player
+     * @return an immutable map of the homes keyed by folded name, sorted by name; empty if the player is not cached
+     */
+    public static Map<String, Home> getHomes(UUID playerId) {
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes == null ? Map.of() : playerHomes.getHomes();
+    }
+
+    /**
+     * Retrieve the names of the homes of a player starting with a prefix, for tab completion.
+     *
+     * @param playerId the UUID of the player
+     * @param prefix   the prefix, case-insensitive
+     * @param limit    the maximum number of names returned
+     * @return an unmodifiable list of up to {@code limit} matching names, sorted; empty if the player is not cached
+     */
+    public static List<String> getHomeNamesStartingWith(UUID playerId, String prefix, int limit) {
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes == null ? List.of() : playerHomes.getHomeNamesStartingWith(prefix, limit);
     }
 
     /**
@@ -203,7 +1502,20 @@ public class HomeManager {
      * @return the number of homes the player currently has
      */
     public static int getHomeCount(UUID playerId) {
-        return getOrCreatePlayerHomes(playerId).getHomeCount();
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes == null ? 0 : playerHomes.getHomeCount();
+    }
+
+    /**
+     * Retrieve the number of homes owned by the specified player in a world.
+     *
+     * @param playerId the UUID of the player
+     * @param world    the name of the world
+     * @return the number of homes the player currently has in the world
+     */
+    public static int getHomeCount(UUID playerId, String world) {
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes == null ? 0 : playerHomes.getHomeCount(world);
     }
 
     /**
@@ -214,21 +1526,125 @@ public class HomeManager {
      * @return `true` if the player has a home with the given name, `false` otherwise
      */
     public static boolean hasHome(UUID playerId, String homeName) {
-        return getOrCreatePlayerHomes(playerId).hasHome(homeName);
+        PlayerHomes playerHomes = getCachedPlayerHomes(playerId);
+        return playerHomes != null && playerHomes.hasHome(homeName);
+    }
+
+    /**
+     * Finds the home of a player closest to where they stand, in their current world.
+     *
+     * <p>Players have few homes, so this compares the homes of the player directly rather than querying the
+     * {@link #getHomeIndex() spatial index}, which holds the homes of every owner.</p>
+     *
+     * @param player the player
+     * @return the closest home of the player in their world, or `null` if they have none there
+     */
+    public static Home findNearestHome(Player player) {
+        PlayerHomes playerHomes = getCachedPlayerHomes(player.getUniqueId());
+        if (playerHomes == null) {
+            return null;
+        }
+
+        Location location = player.getLocation();
+        String world = location.getWorld().getName();
+        Home nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (Home home : playerHomes.getHomes().values()) {
+            if (!home.getWorld().equals(world)) {
+                continue;
+            }
+            double dx = home.getX() - location.getX();
+            double dy = home.getY() - location.getY();
+            double dz = home.getZ() - location.getZ();
+            double distance = dx * dx + dy * dy + dz * dz;
+            if (distance < nearestDistance) {
+                nearest = home;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds the cached homes of any owner closest to a location.
+     *
+     * <p>With lazy loading, only the homes of cached players are considered.</p>
+     *
+     * @param location the location, whose world must be set
+     * @param count    the maximum number of homes to return
+     * @return up to {@code count} homes in the world of the location, closest first
+     */
+    public static List<Home> getNearestHomes(Location location, int count) {
+        return homeIndex.nearest(location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), count);
+    }
+
+    /**
+     * Finds the cached homes of any owner within a distance of a location.
+     *
+     * <p>With lazy loading, only the homes of cached players are considered.</p>
+     *
+     * @param location the location, whose world must be set
+     * @param radius   the maximum distance, in blocks
+     * @return the homes in the world of the location within the radius, closest first
+     */
+    public static List<Home> getHomesWithin(Location location, double radius) {
+        return homeIndex.within(location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), radius);
     }
 
 
     /**
      * Determine the maximum number of homes allowed for the given player.
      *
-     * <p>Currently returns a placeholder value indicating no limit; permission- or
-     * configuration-based limits should be implemented later.</p>
+     * <p>Resolved from the {@code limits} section and the permissions of the player on the first call, then cached
+     * until the player rejoins, {@code limits.cache-seconds} pass or the configuration is reloaded.</p>
      *
      * @param player the player whose home limit is being queried
      * @return `-1` if unlimited, otherwise the maximum number of homes permitted for the player
      */
-    public static int getMaxHomes(@SuppressWarnings("unused") Player player) {
-        // TODO: Implement a system to determine max homes based on permissions or other criteria
-        return -1; // -1 means unlimited
+    public static int getMaxHomes(Player player) {
+        return homeLimits.get(player.getUniqueId(), player).total();
+    }
+
+    /**
+     * Determine the maximum number of homes allowed for the given player in a world, on top of
+     * {@link #getMaxHomes(Player)}.
+     *
+     * @param player the player whose home limit is being queried
+     * @param world  the name of the world
+     * @return `-1` if the world does not limit homes, otherwise the maximum number of homes permitted in it
+     */
+    public static int getMaxHomes(Player player, String world) {
+        return homeLimits.get(player.getUniqueId(), player).forWorld(world);
+    }
+
+    /**
+     * Determine the maximum number of homes allowed for a player who may be offline.
+     *
+     * <p>The limit of an online player is resolved from their permissions; the limit of an offline player is the
+     * one cached while they were online, or the limit of a player without any permission.</p>
+     *
+     * @param playerId the UUID of the player
+     * @return the limits of the player
+     */
+    public static HomeLimits.Limit getHomeLimit(UUID playerId) {
+        Player player = Bukkit.getPlayer(playerId);
+        return player != null ? homeLimits.get(playerId, player) : homeLimits.getCached(playerId);
+    }
+
+    /**
+     * Forgets the cached home limit of a player, for instance after their permissions changed.
+     *
+     * @param playerId the UUID of the player
+     */
+    public static void invalidateMaxHomes(UUID playerId) {
+        homeLimits.invalidate(playerId);
+    }
+
+    /**
+     * Reads the {@code limits} section again from the configuration, which must have been reloaded, and forgets
+     * every cached limit.
+     */
+    public static void reloadLimits() {
+        homeLimits = HomeLimits.fromConfig(Hommr.getInstance().getConfig().getConfigurationSection("limits"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package me.axeno.hommr.managers;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Approximate least-recently-used order of the offline owners held in {@link HomeManager#getPlayerHomesCache()}.
+ * <p>
+ * Online players are never tracked here, which pins their entries in the cache. Once more than
+ * {@code maxEntries} offline owners are tracked, {@link #evictOverflow(Predicate)} drops the least recently
+ * used ones, skipping those the eviction callback refuses (entries with unsaved changes).
+ * <p>
+ * {@link #touch(UUID)} runs on every cache hit, so it only stamps the access time of the owner, without locking.
+ * Eviction then picks the oldest of {@value #SAMPLE_SIZE} owners sampled in hash order, which is random for
+ * UUIDs, resuming where the previous pick stopped.
+ */
+class OfflineEvictionQueue {
+
+    /**
+     * Number of owners compared to pick each one to evict.
+     */
+    static final int SAMPLE_SIZE = 8;
+
+    private static final class Access {
+        private volatile long lastUsed;
+
+        private Access(long lastUsed) {
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final Map<UUID, Access> owners = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private volatile int maxEntries;
+
+    /**
+     * Position of the sampling in {@link #owners}; guarded by this queue.
+     */
+    private Iterator<Map.Entry<UUID, Access>> cursor;
+
+    OfflineEvictionQueue(int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    OfflineEvictionQueue(int maxEntries, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Starts tracking an offline owner as the most recently used one.
+     *
+     * @param owner the UUID of the owner
+     */
+    void add(UUID owner) {
+        owners.put(owner, new Access(clock.getAsLong()));
+    }
+
+    /**
+     * Stops tracking an owner, pinning its entry, typically because the player logged in.
+     *
+     * @param owner the UUID of the owner
+     */
+    void remove(UUID owner) {
+        owners.remove(owner);
+    }
+
+    /**
+     * Marks a tracked owner as recently used; does nothing for untracked (online) owners.
+     *
+     * @param owner the UUID of the owner
+     */
+    void touch(UUID owner) {
+        Access access = owners.get(owner);
+        if (access != null) {
+            access.lastUsed = clock.getAsLong();
+        }
+    }
+
+    int size() {
+        return owners.size();
+    }
+
+    void clear() {
+        owners.clear();
+    }
+
+    /**
+     * Evicts least recently used owners until the bound is respected or no evictable owner is left.
+     *
+     * @param evictor attempts to drop the cache entry of an owner, returning `false` if it must be kept for now
+     * @return the number of evicted owners
+     */
+    synchronized int evictOverflow(Predicate<UUID> evictor) {
+        int evicted = 0;
+        Set<UUID> kept = null;
+        while (owners.size() > maxEntries) {
+            Map.Entry<UUID, Access> oldest = sampleOldest(kept);
+            if (oldest == null) {
+                break;
+            }
+            if (evictor.test(oldest.getKey())) {
+                owners.remove(oldest.getKey(), oldest.getValue());
+                evicted++;
+            } else {
+                if (kept == null) {
+                    kept = new HashSet<>();
+                }
+                kept.add(oldest.getKey());
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the least recently used of the next {@value #SAMPLE_SIZE} owners not kept, or `null` if every owner
+     * is kept. Restarts the sampling at most once, which visits every owner still tracked.
+     */
+    private Map.Entry<UUID, Access> sampleOldest(Set<UUID> kept) {
+        Map.Entry<UUID, Access> oldest = null;
+        int sampled = 0;
+        boolean restarted = false;
+        while (sampled < SAMPLE_SIZE) {
+            if (cursor == null || !cursor.hasNext()) {
+                if (restarted) {
+                    break;
+                }
+                cursor = owners.entrySet().iterator();
+                restarted = true;
+                continue;
+            }
+            Map.Entry<UUID, Access> entry = cursor.next();
+            // The iterator may still return owners removed since it was created
+            if ((kept != null && kept.contains(entry.getKey())) || owners.get(entry.getKey()) != entry.getValue()) {
+                continue;
+            }
+            sampled++;
+            if (oldest == null || entry.getValue().lastUsed < oldest.getValue().lastUsed) {
+                oldest = entry;
+            }
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,121 @@
+package me.axeno.hommr.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global counts of the persisted and pending homes: in total, per world, and of owners with at least one home.
+ * <p>
+ * Counts are seeded once from the storage with {@link #seed(Map, long)}, then kept up to date as homes are set
+ * and deleted, so they stay correct when only part of the players is cached. Reads take a {@link LongAdder#sum()}
+ * and never scan the cache.
+ */
+public final class HomeCounters {
+
+    private final LongAdder totalHomes = new LongAdder();
+    private final LongAdder activeOwners = new LongAdder();
+    private final Map<String, LongAdder> homesPerWorld = new ConcurrentHashMap<>();
+
+    /**
+     * Replaces every count with the ones read from the storage.
+     *
+     * @param homesPerWorld the number of stored homes per world name
+     * @param owners        the number of distinct owners of stored homes
+     */
+    public void seed(Map<String, Long> homesPerWorld, long owners) {
+        reset();
+        homesPerWorld.forEach((world, count) -> {
+            this.homesPerWorld.computeIfAbsent(world, ignored -> new LongAdder()).add(count);
+            totalHomes.add(count);
+        });
+        activeOwners.add(owners);
+    }
+
+    /**
+     * Counts a new home.
+     *
+     * @param world        the world of the home
+     * @param firstOfOwner whether it is the only home of its owner
+     */
+    public void homeAdded(String world, boolean firstOfOwner) {
+        totalHomes.increment();
+        homesPerWorld.computeIfAbsent(world, ignored -> new LongAdder()).increment();
+        if (firstOfOwner) {
+            activeOwners.increment();
+        }
+    }
+
+    /**
+     * Counts a deleted home.
+     *
+     * @param world       the world of the home
+     * @param lastOfOwner whether its owner has no home left
+     */
+    public void homeRemoved(String world, boolean lastOfOwner) {
+        totalHomes.decrement();
+        homesPerWorld.computeIfAbsent(world, ignored -> new LongAdder()).decrement();
+        if (lastOfOwner) {
+            activeOwners.decrement();
+        }
+    }
+
+    /**
+     * Counts a home moved to another world by an update.
+     *
+     * @param from the previous world of the home
+     * @param to   the new world of the home
+     */
+    public void homeMoved(String from, String to) {
+        if (!from.equals(to)) {
+            homesPerWorld.computeIfAbsent(from, ignored -> new LongAdder()).decrement();
+            homesPerWorld.computeIfAbsent(to, ignored -> new LongAdder()).increment();
+        }
+    }
+
+    public long getTotalHomes() {
+        return totalHomes.sum();
+    }
+
+    public long getActiveOwners() {
+        return activeOwners.sum();
+    }
+
+    /**
+     * Returns the number of homes in one world.
+     *
+     * @param world the world name
+     * @return the number of homes, `0` if the world has none
+     */
+    public long getHomes(String world) {
+        LongAdder count = homesPerWorld.get(world);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Returns the number of homes of every world having at least one.
+     *
+     * @return the counts by world name, sorted by name
+     */
+    public Map<String, Long> getHomesPerWorld() {
+        Map<String, Long> counts = new TreeMap<>();
+        homesPerWorld.forEach((world, count) -> {
+            long sum = count.sum();
+            if (sum > 0) {
+                counts.put(world, sum);
+            }
+        });
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Sets every count to zero.
+     */
+    public void reset() {
+        totalHomes.reset();
+        activeOwners.reset();
+        homesPerWorld.clear();
+    }
+}
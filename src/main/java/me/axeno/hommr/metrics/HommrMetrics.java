@@ -0,0 +1,129 @@
+package me.axeno.hommr.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Internal metrics of Hommr: latency histograms of the hot paths and counters of cache and home activity.
+ * <p>
+ * Recording is a couple of {@link System#nanoTime()} calls and {@link LongAdder} increments; when disabled with
+ * {@code metrics.enabled}, {@link #start()} returns `0` and timers record nothing. Read through
+ * {@link #snapshot()}, the {@code /hommr stats} command or {@code HommrApi#getMetrics()}.
+ */
+public final class HommrMetrics {
+
+    /**
+     * Storage queries loading homes, all of them or those of one player.
+     */
+    public static final LatencyHistogram STORAGE_LOAD = new LatencyHistogram("storage.load");
+
+    /**
+     * Storage writes of changed homes, per batch.
+     */
+    public static final LatencyHistogram STORAGE_SAVE = new LatencyHistogram("storage.save");
+
+    /**
+     * Execution of player commands on the main thread.
+     */
+    public static final LatencyHistogram COMMAND = new LatencyHistogram("command");
+
+    /**
+     * Dispatch of the Hommr events to their listeners.
+     */
+    public static final LatencyHistogram EVENT_DISPATCH = new LatencyHistogram("event.dispatch");
+
+    /**
+     * Teleports, from the home lookup to the arrival of the player.
+     */
+    public static final LatencyHistogram TELEPORT = new LatencyHistogram("teleport");
+
+    /**
+     * Lookups served by an entry already in the cache.
+     */
+    public static final LongAdder CACHE_HITS = new LongAdder();
+
+    /**
+     * Lookups of a player missing from the cache, which load from the storage with lazy loading.
+     */
+    public static final LongAdder CACHE_MISSES = new LongAdder();
+
+    /**
+     * Homes created or updated.
+     */
+    public static final LongAdder HOMES_SET = new LongAdder();
+
+    /**
+     * Homes deleted.
+     */
+    public static final LongAdder HOMES_DELETED = new LongAdder();
+
+    private static final List<LatencyHistogram> HISTOGRAMS = List.of(STORAGE_LOAD, STORAGE_SAVE, COMMAND, EVENT_DISPATCH, TELEPORT);
+
+    private static volatile boolean enabled = true;
+
+    private HommrMetrics() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        HommrMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time to pass to {@link LatencyHistogram#recordSince(long)}, `0` if metrics are disabled
+     */
+    public static long start() {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        return now == 0 ? 1 : now;
+    }
+
+    /**
+     * Reads every metric.
+     *
+     * @return the histograms and counters, in a stable order
+     */
+    public static Snapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> histograms = new LinkedHashMap<>();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histograms.put(histogram.getName(), histogram.snapshot());
+        }
+
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("cache.hits", CACHE_HITS.sum());
+        counters.put("cache.misses", CACHE_MISSES.sum());
+        counters.put("homes.set", HOMES_SET.sum());
+        counters.put("homes.deleted", HOMES_DELETED.sum());
+        return new Snapshot(Collections.unmodifiableMap(histograms), Collections.unmodifiableMap(counters));
+    }
+
+    /**
+     * Clears every metric.
+     */
+    public static void reset() {
+        HISTOGRAMS.forEach(LatencyHistogram::reset);
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        HOMES_SET.reset();
+        HOMES_DELETED.reset();
+    }
+
+    /**
+     * Metrics at one point in time.
+     *
+     * @param histograms the latency histograms by name
+     * @param counters   the counters by name
+     */
+    public record Snapshot(Map<String, LatencyHistogram.Snapshot> histograms, Map<String, Long> counters) {
+    }
+}
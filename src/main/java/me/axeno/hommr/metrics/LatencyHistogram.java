@@ -0,0 +1,141 @@
+package me.axeno.hommr.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with power-of-two buckets, cheap enough to record on every call of a hot path.
+ * <p>
+ * Bucket {@code i} counts the samples below {@code 2^i} nanoseconds and at or above {@code 2^(i-1)}, so
+ * percentiles are approximated to their bucket upper bound, within a factor of two. Recording takes a few
+ * uncontended {@link LongAdder} increments and never allocates or locks.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values are counted as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since a start obtained from {@link HommrMetrics#start()}, unless metrics were
+     * disabled when it was taken.
+     *
+     * @param start the start time, `0` when metrics are disabled
+     */
+    public void recordSince(long start) {
+        if (start != 0) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reads the current state of the histogram. Samples recorded meanwhile may be partially included.
+     *
+     * @return a snapshot of the histogram
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(name, count.sum(), totalNanos.sum(), maxNanos.get(), counts);
+    }
+
+    /**
+     * Clears every recorded sample.
+     */
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    /**
+     * State of a histogram at one point in time.
+     *
+     * @param name       the name of the histogram
+     * @param count      the number of samples
+     * @param totalNanos the sum of the samples, in nanoseconds
+     * @param maxNanos   the largest sample, in nanoseconds
+     * @param buckets    the number of samples per power-of-two bucket
+     */
+    public record Snapshot(String name, long count, long totalNanos, long maxNanos, long[] buckets) {
+
+        /**
+         * @return the mean sample in nanoseconds, `0` without samples
+         */
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Approximates a percentile by the upper bound of the bucket holding it, capped at the largest sample.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the approximate percentile in nanoseconds, `0` without samples
+         */
+        public long percentileNanos(double percentile) {
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    long upperBound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return Math.min(upperBound, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * Formats a duration for display, in milliseconds with microsecond precision.
+         *
+         * @param nanos the duration in nanoseconds
+         * @return the formatted duration, such as {@code 1.234 ms}
+         */
+        public static String format(long nanos) {
+            return String.format(Locale.ROOT, "%.3f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+}
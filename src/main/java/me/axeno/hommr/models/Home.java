@@ -1,52 +1,103 @@
 package me.axeno.hommr.models;
 
-import com.j256.ormlite.field.DatabaseField;
-import com.j256.ormlite.table.DatabaseTable;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 
+import java.util.Objects;
 import java.util.UUID;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
-@DatabaseTable(tableName = "homes")
 public class Home {
 
-    @DatabaseField(generatedId = true)
+    /**
+     * {@link #getVersion() Version} of a home not stored yet.
+     */
+    public static final long NEW_VERSION = 0;
+
+    /**
+     * {@link #getVersion() Version} of a home whose stored version is not known, such as one replayed from the
+     * journal; it is written unconditionally.
+     */
+    public static final long UNKNOWN_VERSION = -1;
+
+    /**
+     * Legacy surrogate key; homes are identified by owner and name and this is always 0 for loaded homes.
+     */
     private int id;
 
-    @DatabaseField(canBeNull = false, index = true)
     private UUID owner;
 
-    @DatabaseField(canBeNull = false)
     private String name;
 
-    @DatabaseField(canBeNull = false)
     private String world;
 
-    @DatabaseField(canBeNull = false)
     private double x;
 
-    @DatabaseField(canBeNull = false)
     private double y;
 
-    @DatabaseField(canBeNull = false)
     private double z;
 
-    @DatabaseField(canBeNull = false)
     private float yaw;
 
-    @DatabaseField(canBeNull = false)
     private float pitch;
 
-    @DatabaseField(canBeNull = false)
     private long createdAt;
 
+    /**
+     * Version of the stored row this home was read from or last written as, incremented by every write. Shared
+     * storages only write a home if the row still has this version, so that a change made meanwhile by another
+     * server is not overwritten.
+     */
+    private long version;
+
+    public Home(int id, UUID owner, String name, String world, double x, double y, double z, float yaw, float pitch, long createdAt) {
+        this.id = id;
+        this.owner = owner;
+        this.name = name;
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the version a home has once written.
+     *
+     * @param version the version of the home before the write
+     * @return the version after the write, {@link #UNKNOWN_VERSION} if the version before it was unknown
+     */
+    public static long nextVersion(long version) {
+        return version == UNKNOWN_VERSION ? UNKNOWN_VERSION : version + 1;
+    }
+
+    /**
+     * Whether another home is stored the same way as this one: same owner, name, world, position, rotation and
+     * creation time. The surrogate id and the {@link #getVersion() version} are ignored, since only shared storages
+     * keep versions and a home loaded from any other storage is always at {@link #NEW_VERSION}.
+     *
+     * @param other the home to compare with, may be `null`
+     * @return `true` if both homes hold the same stored state
+     */
+    public boolean hasSameStoredState(Home other) {
+        return other != null
+                && Objects.equals(owner, other.owner)
+                && Objects.equals(name, other.name)
+                && Objects.equals(world, other.world)
+                && Double.compare(x, other.x) == 0
+                && Double.compare(y, other.y) == 0
+                && Double.compare(z, other.z) == 0
+                && Float.compare(yaw, other.yaw) == 0
+                && Float.compare(pitch, other.pitch) == 0
+                && createdAt == other.createdAt;
+    }
+
     /**
      * Create a Home instance from a Bukkit Location for the given owner and name.
      *
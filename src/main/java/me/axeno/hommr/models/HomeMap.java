@@ -0,0 +1,251 @@
+package me.axeno.hommr.models;
+
+import java.util.*;
+
+/**
+ * Immutable map of the homes of a player, keyed by {@link HomeName#fold(String) folded} name.
+ * <p>
+ * Keys, their hashes and homes are held in parallel arrays sorted by key. Most players have a handful of homes,
+ * for which this takes a fraction of the memory of a hash map and its nodes. Changes return a new map and never
+ * write to the arrays of the old one, so readers never need a lock; replacing a home shares the key and hash
+ * arrays, which are never mutated once built.
+ * <p>
+ * Lookups accept names in any case and never allocate: small maps are scanned comparing hashes first, larger
+ * ones are binary searched, folding the looked up name on the fly.
+ */
+final class HomeMap extends AbstractMap<String, Home> {
+
+    static final HomeMap EMPTY = new HomeMap(new String[0], new int[0], new Home[0]);
+
+    /**
+     * Size up to which a lookup scans the hashes instead of binary searching the keys.
+     */
+    private static final int LINEAR_SCAN_MAX = 8;
+
+    private final String[] keys;
+    private final int[] hashes;
+    private final Home[] values;
+
+    private HomeMap(String[] keys, int[] hashes, Home[] values) {
+        this.keys = keys;
+        this.hashes = hashes;
+        this.values = values;
+    }
+
+    /**
+     * Returns the home with the given name.
+     *
+     * @param name the home name, in any case
+     * @return the home, or `null` if there is none with that name
+     */
+    Home find(String name) {
+        int index = indexOf(name);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Returns the home with the given name.
+     *
+     * @param name the key of the home name
+     * @return the home, or `null` if there is none with that name
+     */
+    Home find(HomeName name) {
+        String key = name.key();
+        if (keys.length <= LINEAR_SCAN_MAX) {
+            int hash = name.hashCode();
+            for (int i = 0; i < keys.length; i++) {
+                if (hashes[i] == hash && keys[i].equals(key)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    private int indexOf(String name) {
+        if (keys.length <= LINEAR_SCAN_MAX) {
+            int hash = HomeName.foldedHash(name);
+            for (int i = 0; i < keys.length; i++) {
+                if (hashes[i] == hash && HomeName.compareFolded(keys[i], name) == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = HomeName.compareFolded(keys[mid], name);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the keys starting with a prefix, found by binary search since keys are sorted.
+     *
+     * @param prefix the prefix, in any case
+     * @param limit  the maximum number of keys returned
+     * @return an unmodifiable view of the matching keys, in key order
+     */
+    List<String> keysStartingWith(String prefix, int limit) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (HomeName.compareFolded(keys[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < keys.length && end - low < limit && HomeName.startsWithFolded(keys[end], prefix)) {
+            end++;
+        }
+        return Collections.unmodifiableList(Arrays.asList(keys).subList(low, end));
+    }
+
+    /**
+     * Returns a map with the given home under the given key, replacing the home already there if any.
+     *
+     * @param key  the folded name of the home
+     * @param home the home
+     * @return the new map
+     */
+    HomeMap with(String key, Home home) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+            Home[] newValues = values.clone();
+            newValues[index] = home;
+            return new HomeMap(keys, hashes, newValues);
+        }
+
+        int insertion = -index - 1;
+        String[] newKeys = new String[keys.length + 1];
+        int[] newHashes = new int[hashes.length + 1];
+        Home[] newValues = new Home[values.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertion);
+        System.arraycopy(hashes, 0, newHashes, 0, insertion);
+        System.arraycopy(values, 0, newValues, 0, insertion);
+        newKeys[insertion] = key;
+        newHashes[insertion] = key.hashCode();
+        newValues[insertion] = home;
+        System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+        System.arraycopy(hashes, insertion, newHashes, insertion + 1, hashes.length - insertion);
+        System.arraycopy(values, insertion, newValues, insertion + 1, values.length - insertion);
+        return new HomeMap(newKeys, newHashes, newValues);
+    }
+
+    /**
+     * Returns a map without the given key.
+     *
+     * @param key the folded name of the home
+     * @return the new map, or this map if it has no such key
+     */
+    HomeMap without(String key) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
+            return this;
+        }
+        if (keys.length == 1) {
+            return EMPTY;
+        }
+
+        String[] newKeys = new String[keys.length - 1];
+        int[] newHashes = new int[hashes.length - 1];
+        Home[] newValues = new Home[values.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(hashes, 0, newHashes, 0, index);
+        System.arraycopy(values, 0, newValues, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(hashes, index + 1, newHashes, index, hashes.length - index - 1);
+        System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+        return new HomeMap(newKeys, newHashes, newValues);
+    }
+
+    /**
+     * Returns the home with the given name, in any case.
+     */
+    @Override
+    public Home get(Object key) {
+        return key instanceof String name ? find(name) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<String> iterator() {
+                return Arrays.asList(keys).iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    @Override
+    public Collection<Home> values() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    @Override
+    public Set<Entry<String, Home>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Home>> iterator() {
+                return new Iterator<>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Home> next() {
+                        if (index >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Home> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package me.axeno.hommr.models;
+
+/**
+ * Canonical, case-insensitive key of a home name.
+ * <p>
+ * Names are folded character by character with {@link Character#toLowerCase(char)}, which does not depend on the
+ * default locale (a Turkish locale would otherwise turn {@code "HOME"} into {@code "hıme"}) and keeps the length
+ * of the name. The hash of the folded name is computed once.
+ * <p>
+ * The static helpers fold on the fly, so that a raw name typed by a player can be looked up without allocating.
+ */
+public final class HomeName implements Comparable<HomeName> {
+
+    private final String key;
+    private final int hash;
+
+    private HomeName(String key) {
+        this.key = key;
+        this.hash = key.hashCode();
+    }
+
+    /**
+     * Returns the key of a home name.
+     *
+     * @param name the home name, in any case
+     * @return the canonical key of the name
+     */
+    public static HomeName of(String name) {
+        return new HomeName(fold(name));
+    }
+
+    /**
+     * Folds a home name to its canonical lowercase form.
+     *
+     * @param name the home name, in any case
+     * @return the folded name, the given instance itself if it is already folded
+     */
+    public static String fold(String name) {
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (Character.toLowerCase(c) != c) {
+                char[] folded = name.toCharArray();
+                for (int j = i; j < length; j++) {
+                    folded[j] = Character.toLowerCase(folded[j]);
+                }
+                return new String(folded);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Computes the hash of the folded form of a name without folding it, equal to {@code fold(name).hashCode()}.
+     *
+     * @param name the home name, in any case
+     * @return the hash of the folded name
+     */
+    public static int foldedHash(String name) {
+        int hash = 0;
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + Character.toLowerCase(name.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Compares a folded name with the folded form of a raw name, without folding it.
+     *
+     * @param folded a folded name
+     * @param name   a home name, in any case
+     * @return a negative number, zero or a positive number as the folded name sorts before, equal to or after the
+     * folded form of the raw name, in the order of {@link String#compareTo(String)}
+     */
+    public static int compareFolded(String folded, String name) {
+        int length = Math.min(folded.length(), name.length());
+        for (int i = 0; i < length; i++) {
+            char a = folded.charAt(i);
+            char b = Character.toLowerCase(name.charAt(i));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return folded.length() - name.length();
+    }
+
+    /**
+     * Checks whether a folded name starts with the folded form of a raw prefix, without folding it.
+     *
+     * @param folded a folded name
+     * @param prefix a prefix, in any case
+     * @return `true` if the folded name starts with the folded prefix
+     */
+    public static boolean startsWithFolded(String folded, String prefix) {
+        int length = prefix.length();
+        if (folded.length() < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (folded.charAt(i) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public int compareTo(HomeName other) {
+        return key.compareTo(other.key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof HomeName other && hash == other.hash && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
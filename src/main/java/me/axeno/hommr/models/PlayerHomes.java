@@ -1,43 +1,217 @@
 package me.axeno.hommr.models;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import me.axeno.hommr.spatial.HomeIndex;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The homes of a player, with the changes not persisted yet.
+ * <p>
+ * Homes are held in an immutable {@link HomeMap} replaced on every change, so reads never lock; changes are
+ * serialized on this object. The bookkeeping of unsaved changes is only allocated while there are some. Stored
+ * homes share the owner UUID instance of this entry and a pooled world name, so that neither is copied per home.
+ * <p>
+ * When created with a {@link HomeIndex}, every home added or removed is added to or removed from the index under
+ * the same lock, until {@link #detachIndex()} is called.
+ */
 @Getter
 public class PlayerHomes {
     private final UUID playerId;
-    private final Map<String, Home> homes;
+
+    @Getter(AccessLevel.NONE)
+    private volatile HomeMap homes = HomeMap.EMPTY;
+
+    /**
+     * Folded names of the homes changed since the last successful flush; `null` when there are none.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile Set<String> dirtyNames;
+
+    /**
+     * Homes removed from {@link #homes} whose deletion has not been persisted yet, keyed by folded name;
+     * `null` when there are none.
+     */
+    @Getter(AccessLevel.NONE)
+    private Map<String, Home> tombstones;
+
+    /**
+     * Whether every persisted home of the player has been loaded, as opposed to an entry holding only local changes.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Folded names drained by the flush in progress, kept until the write completes; `null` when no flush is in
+     * progress. The entry must not be evicted meanwhile.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile Set<String> flushingNames;
+
+    /**
+     * Spatial index kept in line with {@link #homes}; `null` when the homes are not indexed.
+     */
+    @Getter(AccessLevel.NONE)
+    private HomeIndex index;
 
     /**
      * Creates a PlayerHomes instance for the specified player.
      *
-     * Initializes the object and prepares an empty, thread-safe map for storing the player's named homes.
+     * Initializes the object with no homes; nothing else is allocated until homes are stored.
      *
      * @param playerId UUID identifying the player whose homes will be managed
      */
     public PlayerHomes(UUID playerId) {
         this.playerId = playerId;
-        this.homes = new ConcurrentHashMap<>();
     }
 
     /**
-     * Stores a Home under the given name for this player, using the lowercase form of the name.
+     * Creates a PlayerHomes instance whose homes are kept in a spatial index.
+     *
+     * @param playerId UUID identifying the player whose homes will be managed
+     * @param index    the index to add the homes of the player to, or `null` to not index them
+     */
+    public PlayerHomes(UUID playerId, HomeIndex index) {
+        this.playerId = playerId;
+        this.index = index;
+    }
+
+    /**
+     * Returns the homes of the player keyed by folded name, as of the call.
+     *
+     * @return an immutable snapshot of the homes, sorted by name
+     */
+    public Map<String, Home> getHomes() {
+        return homes;
+    }
+
+    /**
+     * Stores a Home under the given name for this player, using the folded form of the name.
+     * <p>
+     * The home is marked dirty so that the next flush persists it. It takes the {@link Home#getVersion() version}
+     * of the home it replaces, or of the deleted home whose deletion is still pending, since the write will apply
+     * to the same stored row.
+     *
+     * @param name the home name; its {@link HomeName#fold(String) folded} form is used as the storage key
+     * @param home the Home instance to store; replaces any existing home with the same folded name
+     * @return the home replaced, or `null` if the player had no home with that name
+     */
+    public synchronized Home setHome(String name, Home home) {
+        String key = HomeName.fold(name);
+        Home previous = homes.get(key);
+        Home base = previous != null ? previous : (tombstones != null ? tombstones.get(key) : null);
+        if (base != null) {
+            home.setVersion(base.getVersion());
+        }
+        homes = homes.with(key, compact(home));
+        if (tombstones != null) {
+            removeTombstone(key);
+        }
+        addDirty(key);
+        indexReplace(previous, home);
+        return previous;
+    }
+
+    /**
+     * Stores a Home that is already persisted, without marking it dirty.
      *
-     * @param name the home name; its lowercase form is used as the storage key
-     * @param home the Home instance to store; replaces any existing home with the same lowercase name
+     * @param home the Home loaded from storage
      */
-    public void setHome(String name, Home home) {
-        homes.put(name.toLowerCase(), home);
+    public synchronized void loadHome(Home home) {
+        String key = HomeName.fold(home.getName());
+        Home previous = homes.get(key);
+        homes = homes.with(key, compact(home));
+        indexReplace(previous, home);
+    }
+
+    /**
+     * Stores a Home loaded from storage unless the name was set or removed locally in the meantime.
+     *
+     * @param home the Home loaded from storage
+     */
+    public synchronized void loadHomeIfAbsent(Home home) {
+        String key = HomeName.fold(home.getName());
+        if ((tombstones == null || !tombstones.containsKey(key)) && !homes.containsKey(key)) {
+            homes = homes.with(key, compact(home));
+            indexReplace(null, home);
+        }
+    }
+
+    /**
+     * Marks this entry as holding every persisted home of the player.
+     */
+    public void markLoaded() {
+        this.loaded = true;
     }
 
     public Optional<Home> getHome(String name) {
-        return Optional.ofNullable(homes.get(name.toLowerCase()));
+        return Optional.ofNullable(homes.find(name));
+    }
+
+    /**
+     * Returns the home with the given name without allocating, for hot paths such as {@code /home <name>}.
+     *
+     * @param name the home name, case-insensitive
+     * @return the home, or `null` if the player has no home with that name
+     */
+    public Home findHome(String name) {
+        return homes.find(name);
+    }
+
+    /**
+     * Returns the home with the given name key.
+     *
+     * @param name the key of the home name
+     * @return the home, or `null` if the player has no home with that name
+     */
+    public Home findHome(HomeName name) {
+        return homes.find(name);
+    }
+
+    /**
+     * Returns the names of the homes starting with a prefix, for tab completion. Never copies the names: the homes
+     * are kept sorted by name, so the matches are found by binary search.
+     *
+     * @param prefix the prefix, case-insensitive
+     * @param limit  the maximum number of names returned
+     * @return an unmodifiable list of the matching folded names, sorted
+     */
+    public List<String> getHomeNamesStartingWith(String prefix, int limit) {
+        return homes.keysStartingWith(prefix, limit);
     }
 
-    public boolean removeHome(String name) {
-        return homes.remove(name.toLowerCase()) != null;
+    /**
+     * Removes the home with the given name and records a tombstone so the deletion is persisted on the next flush.
+     *
+     * @param name the home name, case-insensitive
+     * @return `true` if a home was removed, `false` if no home with that name existed
+     */
+    public synchronized boolean removeHome(String name) {
+        String key = HomeName.fold(name);
+        Home removed = homes.get(key);
+        if (removed == null) {
+            return false;
+        }
+        homes = homes.without(key);
+        addTombstone(key, removed);
+        addDirty(key);
+        indexReplace(removed, null);
+        return true;
+    }
+
+    /**
+     * Records the deletion of a home whether or not it is loaded, so that it is persisted on the next flush and
+     * the home is not loaded again in the meantime.
+     *
+     * @param home the deleted home; only its owner and name are used to delete it from the storage
+     */
+    public synchronized void markDeleted(Home home) {
+        String key = HomeName.fold(home.getName());
+        Home removed = homes.get(key);
+        homes = homes.without(key);
+        addTombstone(key, home);
+        addDirty(key);
+        indexReplace(removed, null);
     }
 
     public Set<String> getHomeNames() {
@@ -45,10 +219,230 @@ public class PlayerHomes {
     }
 
     public boolean hasHome(String name) {
-        return homes.containsKey(name.toLowerCase());
+        return homes.find(name) != null;
     }
 
     public int getHomeCount() {
         return homes.size();
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts the homes of the player in a world.
+     *
+     * @param world the name of the world
+     * @return the number of homes in the world
+     */
+    public int getHomeCount(String world) {
+        int count = 0;
+        for (Home home : homes.values()) {
+            if (home.getWorld().equals(world)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether this player has changes that have not been persisted yet.
+     *
+     * @return `true` if at least one home was set or removed since the last flush, or a flush of this entry is in progress
+     */
+    public boolean isDirty() {
+        return flushingNames != null || dirtyNames != null;
+    }
+
+    /**
+     * Marks the home with the given name as changed so the next flush persists its current state.
+     *
+     * @param name the home name, case-insensitive
+     */
+    public synchronized void markDirty(String name) {
+        addDirty(HomeName.fold(name));
+    }
+
+    /**
+     * Moves every pending change into the given collections and clears the dirty set.
+     * <p>
+     * A mutation made after the drain marks its name dirty again for the next one. Tombstones are kept until
+     * {@link #confirmDeleted(Home)} is called, which lets a failed flush be retried with {@link #markDirty(String)}.
+     * The entry stays dirty until {@link #completeFlush()} is called.
+     *
+     * @param upserts   receives the homes that must be inserted or updated
+     * @param deletions receives the homes that must be deleted
+     */
+    public synchronized void drainChanges(Collection<Home> upserts, Collection<Home> deletions) {
+        Set<String> drained = dirtyNames;
+        if (drained == null) {
+            return;
+        }
+
+        flushingNames = drained;
+        dirtyNames = null;
+        for (String key : drained) {
+            Home home = homes.get(key);
+            if (home != null) {
+                upserts.add(home);
+                continue;
+            }
+
+            Home tombstone = tombstones != null ? tombstones.get(key) : null;
+            if (tombstone != null) {
+                deletions.add(tombstone);
+            }
+        }
+    }
+
+    /**
+     * Ends the flush started by {@link #drainChanges(Collection, Collection)}, whether it succeeded or not.
+     */
+    public synchronized void completeFlush() {
+        flushingNames = null;
+    }
+
+    /**
+     * Outcome of {@link #reconcile(Collection)}.
+     *
+     * @param before  the homes before the reconciliation
+     * @param after   the homes after it
+     * @param changed the number of homes added, replaced or removed
+     */
+    public record Reconciliation(Map<String, Home> before, Map<String, Home> after, int changed) {
+    }
+
+    /**
+     * Aligns the homes without local changes with their persisted state.
+     * <p>
+     * Homes that are dirty, being flushed or awaiting deletion are kept as they are, since the persisted state may
+     * predate their write; the others are replaced by the persisted version, added if only persisted, or removed
+     * if no longer persisted. Homes are compared by their {@link Home#hasSameStoredState(Home) stored state}; one
+     * that only differs by a newer persisted version takes that version without counting as changed. Nothing is
+     * marked dirty.
+     *
+     * @param persisted every persisted home of the player
+     * @return the homes before and after, taken under the same lock as the reconciliation
+     */
+    public synchronized Reconciliation reconcile(Collection<Home> persisted) {
+        Set<String> dirty = dirtyNames != null ? dirtyNames : Set.of();
+        Set<String> inFlight = flushingNames != null ? flushingNames : Set.of();
+        Map<String, Home> deleted = tombstones != null ? tombstones : Map.of();
+
+        int changed = 0;
+        HomeMap before = homes;
+        HomeMap reconciled = before;
+        Set<String> persistedNames = new HashSet<>();
+        for (Home home : persisted) {
+            String key = HomeName.fold(home.getName());
+            persistedNames.add(key);
+            if (dirty.contains(key) || inFlight.contains(key) || deleted.containsKey(key)) {
+                continue;
+            }
+            Home current = reconciled.get(key);
+            if (home.hasSameStoredState(current)) {
+                // Written meanwhile with the same content, by another server sharing the storage
+                if (home.getVersion() > current.getVersion()) {
+                    current.setVersion(home.getVersion());
+                }
+                continue;
+            }
+            reconciled = reconciled.with(key, compact(home));
+            indexReplace(current, home);
+            changed++;
+        }
+
+        for (Map.Entry<String, Home> entry : before.entrySet()) {
+            String key = entry.getKey();
+            if (!persistedNames.contains(key) && !dirty.contains(key) && !inFlight.contains(key)) {
+                reconciled = reconciled.without(key);
+                indexReplace(entry.getValue(), null);
+                changed++;
+            }
+        }
+        homes = reconciled;
+        return new Reconciliation(before, reconciled, changed);
+    }
+
+    /**
+     * Drops the tombstone of a home once its deletion has been persisted.
+     *
+     * @param home the deleted home, as returned by {@link #drainChanges(Collection, Collection)}
+     */
+    public synchronized void confirmDeleted(Home home) {
+        if (tombstones != null && tombstones.remove(HomeName.fold(home.getName()), home) && tombstones.isEmpty()) {
+            tombstones = null;
+        }
+    }
+
+    /**
+     * Records that a home drained by {@link #drainChanges(Collection, Collection)} was written, moving it to its
+     * {@link Home#nextVersion(long) next version}. The home or deletion that replaced it meanwhile, based on the
+     * same version, moves along.
+     *
+     * @param home the written home
+     */
+    public synchronized void confirmWritten(Home home) {
+        long written = home.getVersion();
+        long next = Home.nextVersion(written);
+        home.setVersion(next);
+
+        String key = HomeName.fold(home.getName());
+        Home current = homes.get(key);
+        if (current == null && tombstones != null) {
+            current = tombstones.get(key);
+        }
+        if (current != null && current != home && current.getVersion() == written) {
+            current.setVersion(next);
+        }
+    }
+
+    /**
+     * Removes the homes of the player from the spatial index and stops indexing them, when the entry leaves the cache.
+     */
+    public synchronized void detachIndex() {
+        if (index != null) {
+            homes.values().forEach(index::remove);
+            index = null;
+        }
+    }
+
+    private void indexReplace(Home previous, Home current) {
+        if (index != null) {
+            index.replace(previous, current);
+        }
+    }
+
+    /**
+     * Points the owner and world of a stored home to the shared instances, dropping the per-home copies.
+     */
+    private Home compact(Home home) {
+        if (home.getOwner() != playerId && playerId.equals(home.getOwner())) {
+            home.setOwner(playerId);
+        }
+        home.setWorld(WorldNames.intern(home.getWorld()));
+        return home;
+    }
+
+    private void addDirty(String key) {
+        Set<String> dirty = dirtyNames;
+        if (dirty == null) {
+            dirty = new HashSet<>(4);
+            dirty.add(key);
+            dirtyNames = dirty;
+        } else {
+            dirty.add(key);
+        }
+    }
+
+    private void addTombstone(String key, Home home) {
+        if (tombstones == null) {
+            tombstones = new HashMap<>(4);
+        }
+        tombstones.put(key, home);
+    }
+
+    private void removeTombstone(String key) {
+        tombstones.remove(key);
+        if (tombstones.isEmpty()) {
+            tombstones = null;
+        }
+    }
+}
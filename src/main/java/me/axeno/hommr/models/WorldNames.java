@@ -0,0 +1,31 @@
+package me.axeno.hommr.models;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of world names, so that the homes of a world share a single name instance instead of a copy each.
+ * <p>
+ * A server has a handful of worlds, so names are never released.
+ */
+public final class WorldNames {
+
+    private static final Map<String, String> NAMES = new ConcurrentHashMap<>();
+
+    private WorldNames() {
+    }
+
+    /**
+     * Returns the pooled instance equal to the given world name, pooling it if needed.
+     *
+     * @param world the world name, may be `null`
+     * @return the pooled name, or `null` if the given name is `null`
+     */
+    public static String intern(String world) {
+        if (world == null) {
+            return null;
+        }
+        String pooled = NAMES.putIfAbsent(world, world);
+        return pooled != null ? pooled : world;
+    }
+}
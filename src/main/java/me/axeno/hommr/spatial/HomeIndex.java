@@ -0,0 +1,287 @@
+package me.axeno.hommr.spatial;
+
+import me.axeno.hommr.models.Home;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spatial index of the cached homes, answering nearest and radius queries without scanning every home.
+ * <p>
+ * Homes are bucketed per world into a grid of chunk-sized cells, and into a coarse grid of region-sized cells. A
+ * radius query visits the chunk cells overlapping the square around the circle, or the occupied cells if there are
+ * fewer. A nearest query visits rings of cells around the origin, nearest first, and stops as soon as no farther
+ * ring can hold a closer home. It starts on the chunk grid and moves to the region grid when the closest homes are
+ * too far for a few rings of chunks to reach them; when the rings would outnumber the occupied cells, the occupied
+ * cells are scanned instead.
+ * <p>
+ * Distances are euclidean in three dimensions, like {@link org.bukkit.Location#distance(org.bukkit.Location)}.
+ * Queries never lock and may run on any thread; changes are serialized per world.
+ */
+public final class HomeIndex {
+
+    /**
+     * Maximum number of chunk cells visited by a nearest query before it moves to the region grid.
+     */
+    private static final int MAX_CHUNK_CELLS = 256;
+
+    private final Map<String, WorldHomes> worlds = new ConcurrentHashMap<>();
+
+    private record WorldHomes(WorldGrid chunks, WorldGrid regions) {
+    }
+
+    /**
+     * Adds a home to the index.
+     *
+     * @param home the home; its coordinates must not change while it is indexed
+     */
+    public void add(Home home) {
+        WorldHomes homes = worlds.computeIfAbsent(home.getWorld(),
+                world -> new WorldHomes(new WorldGrid(WorldGrid.CHUNK_SHIFT), new WorldGrid(WorldGrid.REGION_SHIFT)));
+        homes.chunks().add(home);
+        homes.regions().add(home);
+    }
+
+    /**
+     * Removes a home from the index, matched by identity.
+     *
+     * @param home the home
+     * @return `true` if the home was indexed
+     */
+    public boolean remove(Home home) {
+        WorldHomes homes = worlds.get(home.getWorld());
+        return homes != null && homes.regions().remove(home) && homes.chunks().remove(home);
+    }
+
+    /**
+     * Replaces a home by another, either of which may be `null`.
+     *
+     * @param previous the home to remove
+     * @param current  the home to add
+     */
+    public void replace(Home previous, Home current) {
+        if (previous == current) {
+            return;
+        }
+        if (previous != null) {
+            remove(previous);
+        }
+        if (current != null) {
+            add(current);
+        }
+    }
+
+    /**
+     * Removes every home.
+     */
+    public void clear() {
+        worlds.clear();
+    }
+
+    /**
+     * @return the number of indexed homes
+     */
+    public int size() {
+        int size = 0;
+        for (WorldHomes homes : worlds.values()) {
+            size += homes.chunks().size();
+        }
+        return size;
+    }
+
+    /**
+     * Finds the homes closest to a point.
+     *
+     * @param world the world name
+     * @param x     the x coordinate of the point
+     * @param y     the y coordinate of the point
+     * @param z     the z coordinate of the point
+     * @param count the maximum number of homes to return
+     * @return up to {@code count} homes of the world, closest first
+     */
+    public List<Home> nearest(String world, double x, double y, double z, int count) {
+        WorldHomes homes = worlds.get(world);
+        if (homes == null || count <= 0) {
+            return List.of();
+        }
+
+        Nearest nearest = new Nearest(x, y, z, count);
+        if (!searchRings(homes.chunks(), nearest, MAX_CHUNK_CELLS)) {
+            nearest.clear();
+            searchRings(homes.regions(), nearest, Long.MAX_VALUE);
+        }
+        return nearest.sorted();
+    }
+
+    /**
+     * Offers the homes of a grid to a nearest query ring by ring, until no farther ring can hold a closer home.
+     *
+     * @param maxCells the maximum number of cells to visit
+     * @return `true` if the query is complete, `false` if it would visit more cells than allowed
+     */
+    private static boolean searchRings(WorldGrid grid, Nearest nearest, long maxCells) {
+        int originX = grid.cellOf(nearest.x);
+        int originZ = grid.cellOf(nearest.z);
+        for (int ring = 0; ; ring++) {
+            long visited = (2L * ring + 1) * (2L * ring + 1);
+            int cellCount = grid.cellCount();
+            if (visited > cellCount && cellCount <= maxCells) {
+                // Cheaper to look at every occupied cell than at the remaining rings
+                nearest.clear();
+                grid.cells().values().forEach(nearest::offerAll);
+                return true;
+            }
+            if (visited > maxCells) {
+                return false;
+            }
+
+            visitRing(grid, originX, originZ, ring, nearest);
+
+            // Homes outside of the rings visited so far are at least this far away
+            double bound = (double) ring * grid.cellSize();
+            if (nearest.isFull() && nearest.worstDistanceSquared() <= bound * bound) {
+                return true;
+            }
+            if (grid.isCoveredBy(originX - ring, originX + ring, originZ - ring, originZ + ring)) {
+                return true;
+            }
+        }
+    }
+
+    private static void visitRing(WorldGrid grid, int originX, int originZ, int ring, Nearest nearest) {
+        if (ring == 0) {
+            nearest.offerAll(grid.cell(originX, originZ));
+            return;
+        }
+        for (int dx = -ring; dx <= ring; dx++) {
+            nearest.offerAll(grid.cell(originX + dx, originZ - ring));
+            nearest.offerAll(grid.cell(originX + dx, originZ + ring));
+        }
+        for (int dz = -ring + 1; dz < ring; dz++) {
+            nearest.offerAll(grid.cell(originX - ring, originZ + dz));
+            nearest.offerAll(grid.cell(originX + ring, originZ + dz));
+        }
+    }
+
+    /**
+     * Finds the homes within a distance of a point.
+     *
+     * @param world  the world name
+     * @param x      the x coordinate of the point
+     * @param y      the y coordinate of the point
+     * @param z      the z coordinate of the point
+     * @param radius the maximum distance, in blocks
+     * @return the homes of the world within the radius, closest first
+     */
+    public List<Home> within(String world, double x, double y, double z, double radius) {
+        WorldHomes homes = worlds.get(world);
+        if (homes == null || radius < 0) {
+            return List.of();
+        }
+
+        WorldGrid grid = homes.chunks();
+        int minX = grid.cellOf(x - radius);
+        int maxX = grid.cellOf(x + radius);
+        int minZ = grid.cellOf(z - radius);
+        int maxZ = grid.cellOf(z + radius);
+        double radiusSquared = radius * radius;
+        List<Home> found = new ArrayList<>();
+
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > grid.cellCount()) {
+            for (Map.Entry<Long, Home[]> entry : grid.cells().entrySet()) {
+                int cellX = WorldGrid.cellX(entry.getKey());
+                int cellZ = WorldGrid.cellZ(entry.getKey());
+                if (cellX >= minX && cellX <= maxX && cellZ >= minZ && cellZ <= maxZ) {
+                    collectWithin(entry.getValue(), x, y, z, radiusSquared, found);
+                }
+            }
+        } else {
+            for (int cellX = minX; cellX <= maxX; cellX++) {
+                for (int cellZ = minZ; cellZ <= maxZ; cellZ++) {
+                    collectWithin(grid.cell(cellX, cellZ), x, y, z, radiusSquared, found);
+                }
+            }
+        }
+
+        found.sort(Comparator.comparingDouble(home -> distanceSquared(home, x, y, z)));
+        return found;
+    }
+
+    private static void collectWithin(Home[] cell, double x, double y, double z, double radiusSquared, List<Home> found) {
+        if (cell == null) {
+            return;
+        }
+        for (Home home : cell) {
+            if (distanceSquared(home, x, y, z) <= radiusSquared) {
+                found.add(home);
+            }
+        }
+    }
+
+    static double distanceSquared(Home home, double x, double y, double z) {
+        double dx = home.getX() - x;
+        double dy = home.getY() - y;
+        double dz = home.getZ() - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Bounded max-heap of the closest homes offered so far.
+     */
+    private static final class Nearest {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final int count;
+        private final PriorityQueue<Candidate> heap;
+
+        private record Candidate(Home home, double distanceSquared) {
+        }
+
+        Nearest(double x, double y, double z, int count) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.count = count;
+            this.heap = new PriorityQueue<>(Math.min(count, 64) + 1,
+                    Comparator.comparingDouble(Candidate::distanceSquared).reversed());
+        }
+
+        void offerAll(Home[] cell) {
+            if (cell == null) {
+                return;
+            }
+            for (Home home : cell) {
+                double distance = distanceSquared(home, x, y, z);
+                if (heap.size() < count) {
+                    heap.add(new Candidate(home, distance));
+                } else if (distance < heap.peek().distanceSquared()) {
+                    heap.poll();
+                    heap.add(new Candidate(home, distance));
+                }
+            }
+        }
+
+        boolean isFull() {
+            return heap.size() == count;
+        }
+
+        double worstDistanceSquared() {
+            return heap.peek().distanceSquared();
+        }
+
+        void clear() {
+            heap.clear();
+        }
+
+        List<Home> sorted() {
+            Candidate[] candidates = heap.toArray(new Candidate[0]);
+            Arrays.sort(candidates, Comparator.comparingDouble(Candidate::distanceSquared));
+            List<Home> homes = new ArrayList<>(candidates.length);
+            for (Candidate candidate : candidates) {
+                homes.add(candidate.home());
+            }
+            return homes;
+        }
+    }
+}
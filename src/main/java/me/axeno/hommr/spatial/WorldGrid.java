@@ -0,0 +1,153 @@
+package me.axeno.hommr.spatial;
+
+import me.axeno.hommr.models.Home;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Homes of one world bucketed into square cells of a power of two blocks.
+ * <p>
+ * Each cell holds an immutable array of the homes it covers, replaced on every change, so queries read cells
+ * without locking while changes are serialized on the grid.
+ */
+final class WorldGrid {
+
+    /**
+     * Shift of the cells of the fine grid, one chunk wide.
+     */
+    static final int CHUNK_SHIFT = 4;
+
+    /**
+     * Shift of the cells of the coarse grid, one region file (32 by 32 chunks) wide.
+     */
+    static final int REGION_SHIFT = 9;
+
+    private static final Home[] EMPTY = new Home[0];
+
+    private final int shift;
+
+    private final Map<Long, Home[]> cells = new ConcurrentHashMap<>();
+    private volatile int size;
+
+    /**
+     * Bounds of the cells that ever held a home; they only grow.
+     */
+    private volatile int minCellX = Integer.MAX_VALUE;
+    private volatile int maxCellX = Integer.MIN_VALUE;
+    private volatile int minCellZ = Integer.MAX_VALUE;
+    private volatile int maxCellZ = Integer.MIN_VALUE;
+
+    WorldGrid(int shift) {
+        this.shift = shift;
+    }
+
+    int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate) >> shift;
+    }
+
+    int cellSize() {
+        return 1 << shift;
+    }
+
+    static long key(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    static int cellX(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int cellZ(long key) {
+        return (int) key;
+    }
+
+    synchronized void add(Home home) {
+        int cellX = cellOf(home.getX());
+        int cellZ = cellOf(home.getZ());
+        long key = key(cellX, cellZ);
+        Home[] cell = cells.getOrDefault(key, EMPTY);
+        Home[] grown = Arrays.copyOf(cell, cell.length + 1);
+        grown[cell.length] = home;
+        cells.put(key, grown);
+        size++;
+
+        if (cellX < minCellX) {
+            minCellX = cellX;
+        }
+        if (cellX > maxCellX) {
+            maxCellX = cellX;
+        }
+        if (cellZ < minCellZ) {
+            minCellZ = cellZ;
+        }
+        if (cellZ > maxCellZ) {
+            maxCellZ = cellZ;
+        }
+    }
+
+    /**
+     * Removes a home, matched by identity.
+     *
+     * @return `true` if the home was in the grid
+     */
+    synchronized boolean remove(Home home) {
+        long key = key(cellOf(home.getX()), cellOf(home.getZ()));
+        if (removeFrom(key, home)) {
+            return true;
+        }
+        // The coordinates of the home were changed after it was indexed
+        for (Long other : cells.keySet()) {
+            if (removeFrom(other, home)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean removeFrom(long key, Home home) {
+        Home[] cell = cells.get(key);
+        if (cell == null) {
+            return false;
+        }
+        for (int i = 0; i < cell.length; i++) {
+            if (cell[i] == home) {
+                if (cell.length == 1) {
+                    cells.remove(key);
+                } else {
+                    Home[] shrunk = new Home[cell.length - 1];
+                    System.arraycopy(cell, 0, shrunk, 0, i);
+                    System.arraycopy(cell, i + 1, shrunk, i, cell.length - i - 1);
+                    cells.put(key, shrunk);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Home[] cell(int cellX, int cellZ) {
+        return cells.get(key(cellX, cellZ));
+    }
+
+    Map<Long, Home[]> cells() {
+        return cells;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int cellCount() {
+        return cells.size();
+    }
+
+    /**
+     * Tells whether a square of cells covers every cell that may hold a home.
+     */
+    boolean isCoveredBy(int minX, int maxX, int minZ, int maxZ) {
+        return minX <= minCellX && maxX >= maxCellX && minZ <= minCellZ && maxZ >= maxCellZ;
+    }
+}
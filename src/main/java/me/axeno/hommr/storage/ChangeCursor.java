@@ -0,0 +1,66 @@
+package me.axeno.hommr.storage;
+
+import java.util.*;
+
+/**
+ * Position of a server in the change log of a {@link SharedHomeStorage}.
+ * <p>
+ * Sequence numbers are allocated when a change is inserted but become visible when its transaction commits, so
+ * a change may show up after changes with a higher number. The numbers skipped by a poll are therefore kept as
+ * gaps and read again by the next polls, until they show up or {@code gapTimeoutMillis} elapses, after which
+ * they are assumed to belong to a rolled back transaction.
+ */
+public final class ChangeCursor {
+
+    /**
+     * Maximum number of gaps kept; numbers skipped beyond it are not tracked.
+     */
+    static final int MAX_GAPS = 1000;
+
+    private final long gapTimeoutMillis;
+    private long position;
+
+    /**
+     * Skipped sequence numbers, with the time they were first skipped.
+     */
+    private final SortedMap<Long, Long> gaps = new TreeMap<>();
+
+    public ChangeCursor(long position, long gapTimeoutMillis) {
+        this.position = position;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+    }
+
+    /**
+     * @return the highest sequence number read
+     */
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the sequence numbers below the position that have not been read yet, in ascending order
+     */
+    public synchronized List<Long> getGaps() {
+        return List.copyOf(gaps.keySet());
+    }
+
+    /**
+     * Moves the cursor past the changes read by a poll.
+     *
+     * @param seqs the sequence numbers read, in ascending order
+     * @param now  the current time in milliseconds
+     */
+    public synchronized void advance(List<Long> seqs, long now) {
+        for (long seq : seqs) {
+            if (gaps.remove(seq) != null || seq <= position) {
+                continue;
+            }
+            for (long skipped = position + 1; skipped < seq && gaps.size() < MAX_GAPS; skipped++) {
+                gaps.put(skipped, now);
+            }
+            position = seq;
+        }
+
+        gaps.values().removeIf(firstSkipped -> now - firstSkipped >= gapTimeoutMillis);
+    }
+}
@@ -0,0 +1,220 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.HomeName;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Storage backend keeping the homes of each player in a small binary file, without any database.
+ * <p>
+ * Files are sharded into 256 directories by the first two hex digits of the owner UUID, so no directory grows
+ * beyond a few thousand entries. A file is always rewritten whole: the new content goes to a temporary file
+ * which is synced and then atomically renamed over the old one, so a crash leaves either the old or the new
+ * homes, never a torn file.
+ * <p>
+ * File layout: {@code [magic][version][home count]}, then for each home {@code [name][world][x][y][z][yaw]
+ * [pitch][createdAt]}, and a trailing CRC32 of everything before it. The owner is the file name.
+ */
+public class FileHomeStorage implements HomeStorage {
+
+    private static final int MAGIC = 0x484D5248; // "HMRH"
+    private static final byte FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path directory;
+
+    /**
+     * Serializes read-modify-write cycles on the file of an owner; owners are spread over a fixed set of locks.
+     */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public FileHomeStorage(Path directory) {
+        this.directory = directory;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public List<Home> loadAll() throws IOException {
+        List<Home> homes = new ArrayList<>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + SUFFIX)) {
+                    for (Path file : files) {
+                        UUID owner = ownerOf(file);
+                        if (owner != null) {
+                            homes.addAll(read(owner, file).values());
+                        }
+                    }
+                }
+            }
+        }
+        return homes;
+    }
+
+    @Override
+    public List<Home> loadByOwner(UUID owner) throws IOException {
+        synchronized (lockOf(owner)) {
+            return new ArrayList<>(read(owner, pathOf(owner)).values());
+        }
+    }
+
+    @Override
+    public void upsertBatch(Collection<Home> homes) throws IOException {
+        saveChanges(List.copyOf(homes), List.of());
+    }
+
+    @Override
+    public void deleteBatch(Collection<Home> homes) throws IOException {
+        saveChanges(List.of(), List.copyOf(homes));
+    }
+
+    /**
+     * Applies the delta with one rewrite per affected owner.
+     * <p>
+     * Each owner file is replaced atomically, but the delta as a whole is not: a failure leaves the owners
+     * processed before it updated.
+     */
+    @Override
+    public void saveChanges(List<Home> upserts, List<Home> deletions) throws IOException {
+        Map<UUID, List<Home>> upsertsByOwner = groupByOwner(upserts);
+        Map<UUID, List<Home>> deletionsByOwner = groupByOwner(deletions);
+        Set<UUID> owners = new HashSet<>(upsertsByOwner.keySet());
+        owners.addAll(deletionsByOwner.keySet());
+
+        for (UUID owner : owners) {
+            synchronized (lockOf(owner)) {
+                Path file = pathOf(owner);
+                Map<String, Home> homes = read(owner, file);
+                for (Home home : deletionsByOwner.getOrDefault(owner, List.of())) {
+                    homes.remove(HomeName.fold(home.getName()));
+                }
+                for (Home home : upsertsByOwner.getOrDefault(owner, List.of())) {
+                    homes.put(HomeName.fold(home.getName()), home);
+                }
+                write(file, homes.values());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // Files are closed after each operation
+    }
+
+    private Path pathOf(UUID owner) {
+        String name = owner.toString();
+        return directory.resolve(name.substring(0, 2)).resolve(name + SUFFIX);
+    }
+
+    private Object lockOf(UUID owner) {
+        return locks[Math.floorMod(owner.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static UUID ownerOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return UUID.fromString(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Map<UUID, List<Home>> groupByOwner(List<Home> homes) {
+        Map<UUID, List<Home>> byOwner = new HashMap<>();
+        for (Home home : homes) {
+            byOwner.computeIfAbsent(home.getOwner(), owner -> new ArrayList<>()).add(home);
+        }
+        return byOwner;
+    }
+
+    /**
+     * Reads the homes of an owner, keyed by folded name, in file order.
+     */
+    private static Map<String, Home> read(UUID owner, Path file) throws IOException {
+        Map<String, Home> homes = new LinkedHashMap<>();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return homes;
+        }
+
+        if (bytes.length < 4 || checksum(bytes, bytes.length - 4) != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) {
+            throw new IOException("Corrupted home file " + file);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+            throw new IOException("Unsupported home file " + file);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Home home = new Home(0, owner, in.readUTF(), in.readUTF(),
+                    in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readFloat(), in.readFloat(), in.readLong());
+            homes.put(HomeName.fold(home.getName()), home);
+        }
+        return homes;
+    }
+
+    private static void write(Path file, Collection<Home> homes) throws IOException {
+        if (homes.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + homes.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(homes.size());
+            for (Home home : homes) {
+                out.writeUTF(home.getName());
+                out.writeUTF(home.getWorld());
+                out.writeDouble(home.getX());
+                out.writeDouble(home.getY());
+                out.writeDouble(home.getZ());
+                out.writeFloat(home.getYaw());
+                out.writeFloat(home.getPitch());
+                out.writeLong(home.getCreatedAt());
+            }
+        }
+        byte[] content = bytes.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(content.length + 4)
+                .put(content)
+                .putInt(checksum(content, content.length))
+                .flip();
+
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+}
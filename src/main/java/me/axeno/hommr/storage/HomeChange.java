@@ -0,0 +1,15 @@
+package me.axeno.hommr.storage;
+
+import java.util.UUID;
+
+/**
+ * Entry of the change log of a {@link SharedHomeStorage}: a home of {@code owner} named {@code name} was set or
+ * deleted by the server {@code node}.
+ *
+ * @param seq   the position of the change in the log
+ * @param owner the owner of the changed home
+ * @param name  the name of the changed home
+ * @param node  the {@link SharedHomeStorage#getNodeId() id} of the server that made the change
+ */
+public record HomeChange(long seq, UUID owner, String name, String node) {
+}
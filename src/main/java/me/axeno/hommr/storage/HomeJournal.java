@@ -0,0 +1,374 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of home mutations, used to survive a crash between two database flushes.
+ * <p>
+ * Mutations are encoded on the calling thread and handed to a background writer, which writes every record
+ * queued so far and then issues a single {@code fsync} for the whole group. The journal is split into numbered
+ * segment files: {@link #rotate()} seals the current segment before a flush and {@link #compact(long)} deletes
+ * the sealed segments once the database holds their changes.
+ * <p>
+ * Each record is framed as {@code [length][crc32][payload]}, so a record torn by a crash is detected on
+ * {@link #replay(Listener)} and ends the replay of its segment.
+ */
+public class HomeJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte RECORD_SET = 1;
+    private static final byte RECORD_DELETE = 2;
+
+    /**
+     * Sentinel queued by {@link #close()} to stop the writer; the channel must not be interrupted mid-write.
+     */
+    private static final byte[] STOP = new byte[0];
+
+    private final Path directory;
+    private final Logger logger;
+    private final BlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+    private final Object segmentLock = new Object();
+    private final Thread writer;
+    private final AtomicLong appended = new AtomicLong();
+
+    private FileChannel channel;
+    private long segmentId;
+    /**
+     * Number of appended records the writer is done with, written or failed; guarded by {@link #segmentLock}.
+     */
+    private long handled;
+
+    /**
+     * Receives the mutations read back by {@link #replay(Listener)}, in the order they were appended.
+     */
+    public interface Listener {
+        void onSet(Home home);
+
+        void onDelete(UUID owner, String name);
+    }
+
+    private HomeJournal(Path directory, long segmentId, Logger logger) throws IOException {
+        this.directory = directory;
+        this.logger = logger;
+        this.segmentId = segmentId;
+        this.channel = openSegment(segmentId);
+
+        this.writer = new Thread(this::writeLoop, "Hommr-Journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens the journal stored in the given directory, creating it if needed.
+     * <p>
+     * Existing segments are left untouched so they can be replayed; new records go to a fresh segment.
+     *
+     * @param directory the directory holding the segment files
+     * @param logger    the logger used to report write failures
+     * @return the opened journal
+     * @throws IOException if the directory or the new segment cannot be created
+     */
+    public static HomeJournal open(Path directory, Logger logger) throws IOException {
+        Files.createDirectories(directory);
+        long lastId = 0;
+        for (long id : listSegments(directory)) {
+            lastId = Math.max(lastId, id);
+        }
+        return new HomeJournal(directory, lastId + 1, logger);
+    }
+
+    /**
+     * Records that a home was created or updated.
+     *
+     * @param home the new state of the home
+     */
+    public void appendSet(Home home) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_SET);
+            writeUuid(out, home.getOwner());
+            out.writeUTF(home.getName());
+            out.writeUTF(home.getWorld());
+            out.writeDouble(home.getX());
+            out.writeDouble(home.getY());
+            out.writeDouble(home.getZ());
+            out.writeFloat(home.getYaw());
+            out.writeFloat(home.getPitch());
+            out.writeLong(home.getCreatedAt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enqueue(frame(bytes.toByteArray()));
+    }
+
+    /**
+     * Records that a home was deleted.
+     *
+     * @param owner the UUID of the home owner
+     * @param name  the name of the deleted home
+     */
+    public void appendDelete(UUID owner, String name) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_DELETE);
+            writeUuid(out, owner);
+            out.writeUTF(name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enqueue(frame(bytes.toByteArray()));
+    }
+
+    /**
+     * Waits until every record appended so far is written and synced, or failed to be.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitWritten() throws InterruptedException {
+        long target = appended.get();
+        synchronized (segmentLock) {
+            while (handled < target) {
+                segmentLock.wait();
+            }
+        }
+    }
+
+    /**
+     * Seals the current segment so that it can be compacted once the changes made so far are persisted.
+     * <p>
+     * Records still queued at this point may land in the next segment, which only means they are kept longer.
+     *
+     * @return the id of the newest sealed segment, to be passed to {@link #compact(long)}
+     * @throws IOException if the current segment cannot be synced or the next one cannot be created
+     */
+    public long rotate() throws IOException {
+        synchronized (segmentLock) {
+            if (channel.position() == 0) {
+                return segmentId - 1;
+            }
+            channel.force(false);
+            channel.close();
+            long sealed = segmentId;
+            segmentId++;
+            channel = openSegment(segmentId);
+            return sealed;
+        }
+    }
+
+    /**
+     * Deletes every segment up to and including the given id.
+     *
+     * @param sealedSegmentId the id returned by {@link #rotate()} before the changes were persisted
+     */
+    public void compact(long sealedSegmentId) {
+        try {
+            for (long id : listSegments(directory)) {
+                if (id <= sealedSegmentId) {
+                    Files.deleteIfExists(segmentPath(directory, id));
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to compact the home journal", e);
+        }
+    }
+
+    /**
+     * Replays every segment written before this journal was opened, oldest first.
+     * <p>
+     * Replay of a segment stops at the first truncated or corrupted record, which can only be the tail
+     * written while the server crashed.
+     *
+     * @param listener receives the replayed mutations
+     * @return the number of replayed records
+     * @throws IOException if a segment cannot be read
+     */
+    public int replay(Listener listener) throws IOException {
+        int count = 0;
+        for (long id : listSegments(directory)) {
+            if (id == segmentId) {
+                continue;
+            }
+            count += replaySegment(segmentPath(directory, id), listener);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the records still queued, syncs them and stops the writer thread.
+     */
+    public void close() {
+        pending.add(STOP);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (segmentLock) {
+            try {
+                List<byte[]> batch = new ArrayList<>();
+                pending.drainTo(batch);
+                batch.removeIf(record -> record == STOP);
+                handled += batch.size();
+                segmentLock.notifyAll();
+                writeBatch(batch);
+                channel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close the home journal", e);
+            }
+        }
+    }
+
+    /**
+     * Group commit loop: waits for a record, takes every record queued behind it and syncs them with one fsync.
+     */
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending.drainTo(batch);
+            stopping = batch.removeIf(record -> record == STOP);
+
+            synchronized (segmentLock) {
+                try {
+                    writeBatch(batch);
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Failed to write " + batch.size() + " records to the home journal", e);
+                }
+                handled += batch.size();
+                segmentLock.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void enqueue(byte[] record) {
+        appended.incrementAndGet();
+        pending.add(record);
+    }
+
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int size = 0;
+        for (byte[] record : batch) {
+            size += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] record : batch) {
+            buffer.put(record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(segmentPath(directory, id),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static int replaySegment(Path segment, Listener listener) throws IOException {
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > 1 << 16) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                    if (payload.length != length || checksum(payload) != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = record.readByte();
+                UUID owner = new UUID(record.readLong(), record.readLong());
+                String name = record.readUTF();
+                if (type == RECORD_SET) {
+                    listener.onSet(new Home(0, owner, name, record.readUTF(),
+                            record.readDouble(), record.readDouble(), record.readDouble(),
+                            record.readFloat(), record.readFloat(), record.readLong()));
+                } else if (type == RECORD_DELETE) {
+                    listener.onDelete(owner, name);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // Not a segment written by this journal
+                        }
+                    });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static Path segmentPath(Path directory, long id) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%016d", id) + SEGMENT_SUFFIX);
+    }
+
+    private static byte[] frame(byte[] payload) {
+        return ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .array();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+}
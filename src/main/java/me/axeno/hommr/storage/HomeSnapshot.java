@@ -0,0 +1,177 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.PlayerHomes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary image of the home cache, written on shutdown and read back on the next startup instead of querying
+ * every home from the storage.
+ * <p>
+ * Layout: {@code [magic][version][written at][world count][world names]...[owner count]}, then for each owner
+ * {@code [uuid][home count]} followed by home records {@code [name][world index][x][y][z][yaw][pitch][createdAt]
+ * [row version]}, and a trailing CRC32 of everything before it. World names are stored once in the dictionary and
+ * referenced by index. Strings, including the name starting each home record, are prefixed with their UTF-8 length
+ * as an unsigned short, so records are variable-width and are read in sequence.
+ * <p>
+ * The file is read through a read-only memory mapping, and world names are shared between the loaded homes.
+ */
+public final class HomeSnapshot {
+
+    private static final int MAGIC = 0x484D5253; // "HMRS"
+    private static final byte FORMAT_VERSION = 2;
+
+    private HomeSnapshot() {
+    }
+
+    /**
+     * Writes the homes of the given players to a snapshot file, replacing it atomically.
+     *
+     * @param file    the snapshot file
+     * @param players the cached homes to write
+     * @return the number of written homes
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static int write(Path file, Collection<PlayerHomes> players) throws IOException {
+        // Copy first, so that the counts written match the records even if homes change meanwhile
+        Map<UUID, List<Home>> owners = new LinkedHashMap<>();
+        Map<String, Integer> worlds = new LinkedHashMap<>();
+        for (PlayerHomes playerHomes : players) {
+            List<Home> homes = List.copyOf(playerHomes.getHomes().values());
+            if (homes.isEmpty()) {
+                continue;
+            }
+            owners.put(playerHomes.getPlayerId(), homes);
+            for (Home home : homes) {
+                worlds.putIfAbsent(home.getWorld(), worlds.size());
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        int homeCount = 0;
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+
+            out.writeInt(worlds.size());
+            for (String world : worlds.keySet()) {
+                writeString(out, world);
+            }
+
+            out.writeInt(owners.size());
+            for (Map.Entry<UUID, List<Home>> entry : owners.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(entry.getValue().size());
+                for (Home home : entry.getValue()) {
+                    writeString(out, home.getName());
+                    out.writeInt(worlds.get(home.getWorld()));
+                    out.writeDouble(home.getX());
+                    out.writeDouble(home.getY());
+                    out.writeDouble(home.getZ());
+                    out.writeFloat(home.getYaw());
+                    out.writeFloat(home.getPitch());
+                    out.writeLong(home.getCreatedAt());
+                    out.writeLong(home.getVersion());
+                    homeCount++;
+                }
+            }
+            out.flush();
+
+            ByteBuffer checksum = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+            while (checksum.hasRemaining()) {
+                channel.write(checksum);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return homeCount;
+    }
+
+    /**
+     * Reads every home of a snapshot file.
+     *
+     * @param file the snapshot file
+     * @return the homes of the snapshot
+     * @throws IOException if the file cannot be read, is truncated or fails its checksum
+     */
+    public static List<Home> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid home snapshot size: " + size);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int contentLength = (int) size - 4;
+            CRC32 crc = new CRC32();
+            crc.update(mapped.slice(0, contentLength));
+            if ((int) crc.getValue() != mapped.getInt(contentLength)) {
+                throw new IOException("Corrupted home snapshot " + file);
+            }
+
+            ByteBuffer buffer = mapped.slice(0, contentLength);
+            try {
+                if (buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION) {
+                    throw new IOException("Unsupported home snapshot " + file);
+                }
+                buffer.getLong();
+
+                String[] worlds = new String[buffer.getInt()];
+                for (int i = 0; i < worlds.length; i++) {
+                    worlds[i] = readString(buffer);
+                }
+
+                List<Home> homes = new ArrayList<>();
+                int ownerCount = buffer.getInt();
+                for (int i = 0; i < ownerCount; i++) {
+                    UUID owner = new UUID(buffer.getLong(), buffer.getLong());
+                    int count = buffer.getInt();
+                    for (int j = 0; j < count; j++) {
+                        Home home = new Home(0, owner, readString(buffer), worlds[buffer.getInt()],
+                                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                                buffer.getFloat(), buffer.getFloat(), buffer.getLong());
+                        home.setVersion(buffer.getLong());
+                        homes.add(home);
+                    }
+                }
+                return homes;
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed home snapshot " + file, e);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for the home snapshot: " + value.length() + " characters");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+
+import java.util.*;
+
+/**
+ * Persistent store of homes, implemented by each storage backend selectable with {@code storage.backend}.
+ * <p>
+ * Homes are identified by their owner and their case-insensitive name. Methods perform blocking I/O and are
+ * called through the {@link StorageExecutor}, never from the main thread once the server is running. Failures
+ * surface as the backend's own exception type, such as {@link java.sql.SQLException} or
+ * {@link java.io.IOException}.
+ */
+public interface HomeStorage {
+
+    /**
+     * Opens the backend, creating or migrating its structure if needed.
+     *
+     * @throws Exception if the backend cannot be opened
+     */
+    void init() throws Exception;
+
+    /**
+     * Retrieve every stored home.
+     *
+     * @return all homes
+     * @throws Exception if the homes cannot be read
+     */
+    List<Home> loadAll() throws Exception;
+
+    /**
+     * Retrieve the homes of one owner.
+     *
+     * @param owner the UUID of the owner
+     * @return the homes of the owner, empty if none exist
+     * @throws Exception if the homes cannot be read
+     */
+    List<Home> loadByOwner(UUID owner) throws Exception;
+
+    /**
+     * Inserts homes, replacing those with the same owner and name.
+     *
+     * @param homes the homes to store
+     * @throws Exception if the homes cannot be written
+     */
+    void upsertBatch(Collection<Home> homes) throws Exception;
+
+    /**
+     * Deletes homes, matched by owner and name.
+     *
+     * @param homes the homes to delete
+     * @throws Exception if the homes cannot be deleted
+     */
+    void deleteBatch(Collection<Home> homes) throws Exception;
+
+    /**
+     * Persists a delta of changed homes: deletions first, then upserts.
+     * <p>
+     * Backends able to apply both atomically should override this.
+     *
+     * @param upserts   homes to insert or update
+     * @param deletions homes to delete
+     * @throws Exception if the delta cannot be written
+     */
+    default void saveChanges(List<Home> upserts, List<Home> deletions) throws Exception {
+        deleteBatch(deletions);
+        upsertBatch(upserts);
+    }
+
+    /**
+     * Counts the stored homes per world and their distinct owners, to seed the global statistics.
+     * <p>
+     * The default implementation loads every home; backends able to count natively should override this.
+     *
+     * @return the counts
+     * @throws Exception if the homes cannot be counted
+     */
+    default Counts count() throws Exception {
+        Map<String, Long> homesPerWorld = new HashMap<>();
+        Set<UUID> owners = new HashSet<>();
+        for (Home home : loadAll()) {
+            homesPerWorld.merge(home.getWorld(), 1L, Long::sum);
+            owners.add(home.getOwner());
+        }
+        return new Counts(homesPerWorld, owners.size());
+    }
+
+    /**
+     * Releases the resources held by the backend.
+     */
+    void close();
+
+    /**
+     * Number of stored homes.
+     *
+     * @param homesPerWorld the number of homes per world name
+     * @param owners        the number of distinct owners of at least one home
+     */
+    record Counts(Map<String, Long> homesPerWorld, long owners) {
+    }
+}
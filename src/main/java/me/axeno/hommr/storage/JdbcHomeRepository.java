@@ -0,0 +1,647 @@
+package me.axeno.hommr.storage;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.HomeName;
+
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Home table access through plain JDBC prepared statements, without ORMLite reflection.
+ * <p>
+ * Writes are sent as multi-row statements of up to {@value #ROWS_PER_STATEMENT} rows, added to a JDBC batch and
+ * committed in one transaction, so saving 100k homes takes about a hundred round trips instead of 100k.
+ * <p>
+ * Rows live in the layout created by {@link SchemaMigrator}: owners are stored as 16 raw bytes, world names are
+ * replaced by an id from the {@value #WORLDS_TABLE} dictionary, and {@code (owner, name_key)} is the primary key
+ * that upserts match on, {@code name_key} being the {@link HomeName#fold(String) folded} name compared as binary,
+ * so that the database tells names apart exactly as the cache does. Each row carries a version incremented by every write, and with the change log enabled,
+ * every write is also recorded in {@value #CHANGES_TABLE} for the other servers sharing the database.
+ */
+public class JdbcHomeRepository {
+
+    /**
+     * Maximum number of rows bound to one statement; 10 parameters per row stays well under the placeholder limit
+     * of both MySQL and SQLite.
+     */
+    static final int ROWS_PER_STATEMENT = 1000;
+
+    static final String TABLE = "hommr_homes";
+    static final String WORLDS_TABLE = "hommr_worlds";
+    static final String CHANGES_TABLE = "hommr_changes";
+    private static final String COLUMNS = "owner, name, name_key, world_id, x, y, z, yaw, pitch, created_at, version";
+    private static final String SELECT = "SELECT h.owner, h.name, w.name, h.x, h.y, h.z, h.yaw, h.pitch, h.created_at, h.version"
+            + " FROM " + TABLE + " h JOIN " + WORLDS_TABLE + " w ON w.id = h.world_id";
+    /**
+     * Placeholders of one inserted row; rows are inserted at version 1.
+     */
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1)";
+    private static final String UPDATE_IF_UNCHANGED = "UPDATE " + TABLE + " SET name = ?, world_id = ?, x = ?, y = ?, z = ?,"
+            + " yaw = ?, pitch = ?, created_at = ?, version = version + 1 WHERE owner = ? AND name_key = ? AND version = ?";
+    private static final String DELETE_IF_UNCHANGED = "DELETE FROM " + TABLE + " WHERE owner = ? AND name_key = ? AND version = ?";
+
+    /**
+     * SQL flavours supported by the repository.
+     */
+    public enum Dialect {
+        /**
+         * MySQL 8.0.19 and later, whose upserts refer to the inserted row through a row alias.
+         */
+        MYSQL(" AS new ON DUPLICATE KEY UPDATE name = new.name, world_id = new.world_id, x = new.x, y = new.y,"
+                + " z = new.z, yaw = new.yaw, pitch = new.pitch, created_at = new.created_at, version = version + 1",
+                "", "INSERT IGNORE INTO "),
+        /**
+         * MariaDB, and MySQL before 8.0.19, without row aliases; their upserts use {@code VALUES(col)}, deprecated
+         * by MySQL.
+         */
+        MARIADB(" ON DUPLICATE KEY UPDATE name = VALUES(name), world_id = VALUES(world_id), x = VALUES(x), y = VALUES(y),"
+                + " z = VALUES(z), yaw = VALUES(yaw), pitch = VALUES(pitch), created_at = VALUES(created_at), version = version + 1",
+                "", "INSERT IGNORE INTO "),
+        SQLITE(" ON CONFLICT (owner, name_key) DO UPDATE SET name = excluded.name, world_id = excluded.world_id,"
+                + " x = excluded.x, y = excluded.y, z = excluded.z, yaw = excluded.yaw, pitch = excluded.pitch,"
+                + " created_at = excluded.created_at, version = version + 1", "VALUES ", "INSERT OR IGNORE INTO ");
+
+        private static final Pattern SERVER_VERSION = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+
+        private final String upsertClause;
+        /**
+         * Prefix of the row list in {@code (owner, name) IN (...)}; SQLite only accepts a VALUES subquery there.
+         */
+        private final String rowListPrefix;
+        private final String insertIgnore;
+
+        Dialect(String upsertClause, String rowListPrefix, String insertIgnore) {
+            this.upsertClause = upsertClause;
+            this.rowListPrefix = rowListPrefix;
+            this.insertIgnore = insertIgnore;
+        }
+
+        /**
+         * Resolve the dialect of a JDBC URL.
+         *
+         * @param jdbcUrl the JDBC URL of the database
+         * @return the matching dialect
+         * @throws IllegalArgumentException if the database is neither MySQL/MariaDB nor SQLite
+         */
+        public static Dialect fromUrl(String jdbcUrl) {
+            if (jdbcUrl.startsWith("jdbc:mysql:")) {
+                return MYSQL;
+            }
+            if (jdbcUrl.startsWith("jdbc:mariadb:")) {
+                return MARIADB;
+            }
+            if (jdbcUrl.startsWith("jdbc:sqlite:")) {
+                return SQLITE;
+            }
+            throw new IllegalArgumentException("Unsupported database URL: " + jdbcUrl + " (supported: MySQL, MariaDB, SQLite)");
+        }
+
+        /**
+         * Adjusts the dialect resolved from the URL to the server actually connected to, since a MySQL URL may
+         * point to a MariaDB server or to a MySQL server too old for row aliases.
+         *
+         * @param serverVersion the version reported by the server, such as {@code 8.0.36} or {@code 10.11.6-MariaDB}
+         * @return the dialect to use with the server
+         */
+        public Dialect forServer(String serverVersion) {
+            if (this == SQLITE) {
+                return this;
+            }
+            if (serverVersion.toLowerCase(Locale.ROOT).contains("mariadb")) {
+                return MARIADB;
+            }
+            Matcher version = SERVER_VERSION.matcher(serverVersion);
+            if (!version.find()) {
+                return this;
+            }
+            int major = Integer.parseInt(version.group(1));
+            int minor = Integer.parseInt(version.group(2));
+            int patch = Integer.parseInt(version.group(3));
+            boolean rowAliases = major > 8 || (major == 8 && (minor > 0 || patch >= 19));
+            return rowAliases ? MYSQL : MARIADB;
+        }
+
+        /**
+         * @return `true` for MySQL and MariaDB, which share their DDL
+         */
+        public boolean isMySqlFamily() {
+            return this != SQLITE;
+        }
+    }
+
+    private final ConnectionSource connectionSource;
+    private final Dialect dialect;
+
+    /**
+     * Ids of the world names already present in the dictionary; ids are never reassigned, so entries stay valid.
+     */
+    private final Map<String, Integer> worldIds = new ConcurrentHashMap<>();
+
+    /**
+     * Id of this server in the change log.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Whether writes are recorded in the change log, which is only read when several servers share the database.
+     */
+    private volatile boolean changeLogEnabled;
+
+    public JdbcHomeRepository(ConnectionSource connectionSource, Dialect dialect) {
+        this.connectionSource = connectionSource;
+        this.dialect = dialect;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isChangeLogEnabled() {
+        return changeLogEnabled;
+    }
+
+    public void setChangeLogEnabled(boolean changeLogEnabled) {
+        this.changeLogEnabled = changeLogEnabled;
+    }
+
+    /**
+     * Retrieve every home.
+     *
+     * @return all homes
+     * @throws SQLException if the query fails
+     */
+    public List<Home> findAll() throws SQLException {
+        return withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT)) {
+                return readHomes(statement);
+            }
+        });
+    }
+
+    /**
+     * Retrieve the homes of one owner through the owner index.
+     *
+     * @param owner the UUID of the owner
+     * @return the homes of the owner
+     * @throws SQLException if the query fails
+     */
+    public List<Home> findByOwner(UUID owner) throws SQLException {
+        return withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT + " WHERE h.owner = ?")) {
+                statement.setBytes(1, toBytes(owner));
+                return readHomes(statement);
+            }
+        });
+    }
+
+    /**
+     * Counts the homes per world and their distinct owners with two aggregate queries.
+     *
+     * @return the counts
+     * @throws SQLException if a query fails
+     */
+    public HomeStorage.Counts count() throws SQLException {
+        return withConnection(connection -> {
+            Map<String, Long> homesPerWorld = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT w.name, COUNT(*) FROM " + TABLE
+                    + " h JOIN " + WORLDS_TABLE + " w ON w.id = h.world_id GROUP BY w.name");
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    homesPerWorld.put(resultSet.getString(1), resultSet.getLong(2));
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(DISTINCT owner) FROM " + TABLE);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return new HomeStorage.Counts(homesPerWorld, resultSet.getLong(1));
+            }
+        });
+    }
+
+    /**
+     * Inserts or updates homes, matched by owner and name, and deletes others, in one transaction.
+     *
+     * @param upserts   homes to insert or update
+     * @param deletions homes to delete
+     * @throws SQLException if a statement fails; the transaction is then rolled back
+     */
+    public void saveChanges(Collection<Home> upserts, Collection<Home> deletions) throws SQLException {
+        withConnection(connection -> {
+            resolveWorldIds(connection, upserts);
+            return inTransaction(connection, transaction -> {
+                deleteAll(transaction, deletions);
+                upsertAll(transaction, upserts);
+                logChanges(transaction, deletions);
+                logChanges(transaction, upserts);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Inserts, updates and deletes homes in one transaction, skipping those whose row was changed since it was
+     * read, as described by {@link SharedHomeStorage#saveChangesIfUnchanged(List, List)}.
+     *
+     * @param upserts   homes to insert or update
+     * @param deletions homes to delete
+     * @return the homes that were skipped, empty if none
+     * @throws SQLException if a statement fails; the transaction is then rolled back
+     */
+    public List<Home> saveChangesIfUnchanged(Collection<Home> upserts, Collection<Home> deletions) throws SQLException {
+        return withConnection(connection -> {
+            resolveWorldIds(connection, upserts);
+            return inTransaction(connection, transaction -> {
+                List<Home> conflicts = new ArrayList<>();
+                List<Home> written = new ArrayList<>(upserts.size() + deletions.size());
+
+                List<Home> unconditionalDeletions = new ArrayList<>();
+                List<Home> checkedDeletions = new ArrayList<>();
+                for (Home home : deletions) {
+                    (home.getVersion() > 0 ? checkedDeletions : unconditionalDeletions).add(home);
+                }
+                deleteAll(transaction, unconditionalDeletions);
+                written.addAll(unconditionalDeletions);
+                executeChecked(transaction, DELETE_IF_UNCHANGED, checkedDeletions, (statement, home) -> {
+                    statement.setBytes(1, toBytes(home.getOwner()));
+                    statement.setString(2, HomeName.fold(home.getName()));
+                    statement.setLong(3, home.getVersion());
+                }, written, conflicts);
+
+                List<Home> unconditionalUpserts = new ArrayList<>();
+                List<Home> inserts = new ArrayList<>();
+                List<Home> updates = new ArrayList<>();
+                for (Home home : upserts) {
+                    if (home.getVersion() == Home.NEW_VERSION) {
+                        inserts.add(home);
+                    } else {
+                        (home.getVersion() > 0 ? updates : unconditionalUpserts).add(home);
+                    }
+                }
+                upsertAll(transaction, unconditionalUpserts);
+                written.addAll(unconditionalUpserts);
+                executeChecked(transaction, dialect.insertIgnore + TABLE + " (" + COLUMNS + ") VALUES " + ROW_PLACEHOLDERS,
+                        inserts, (statement, home) -> bindHomes(statement, List.of(home)), written, conflicts);
+                executeChecked(transaction, UPDATE_IF_UNCHANGED, updates, (statement, home) -> {
+                    statement.setString(1, home.getName());
+                    statement.setInt(2, worldIds.get(home.getWorld()));
+                    statement.setDouble(3, home.getX());
+                    statement.setDouble(4, home.getY());
+                    statement.setDouble(5, home.getZ());
+                    statement.setFloat(6, home.getYaw());
+                    statement.setFloat(7, home.getPitch());
+                    statement.setLong(8, home.getCreatedAt());
+                    statement.setBytes(9, toBytes(home.getOwner()));
+                    statement.setString(10, HomeName.fold(home.getName()));
+                    statement.setLong(11, home.getVersion());
+                }, written, conflicts);
+
+                logChanges(transaction, written);
+                return conflicts;
+            });
+        });
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement statement, Home home) throws SQLException;
+    }
+
+    /**
+     * Runs a single-row statement per home in one JDBC batch, sorting the homes by whether a row was affected.
+     * A driver that does not report the affected rows of a batch, such as MySQL with
+     * {@code rewriteBatchedStatements}, makes every home count as written.
+     */
+    private static void executeChecked(Connection connection, String sql, List<Home> homes, Binder binder,
+                                       List<Home> written, List<Home> conflicts) throws SQLException {
+        if (homes.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Home home : homes) {
+                binder.bind(statement, home);
+                statement.addBatch();
+            }
+            int[] counts = statement.executeBatch();
+            for (int i = 0; i < homes.size(); i++) {
+                (counts[i] == 0 ? conflicts : written).add(homes.get(i));
+            }
+        }
+    }
+
+    /**
+     * Records writes in the change log when it is enabled, with multi-row inserts.
+     */
+    private void logChanges(Connection connection, Collection<Home> homes) throws SQLException {
+        if (!changeLogEnabled || homes.isEmpty()) {
+            return;
+        }
+        List<Home> rows = homes instanceof List<Home> list ? list : new ArrayList<>(homes);
+        long now = System.currentTimeMillis();
+
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Home> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            StringBuilder sql = new StringBuilder(64 + chunk.size() * 16)
+                    .append("INSERT INTO ").append(CHANGES_TABLE).append(" (owner, name, node, changed_at) VALUES ");
+            appendRepeated(sql, "(?, ?, ?, ?)", chunk.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (Home home : chunk) {
+                    statement.setBytes(index++, toBytes(home.getOwner()));
+                    statement.setString(index++, home.getName());
+                    statement.setString(index++, nodeId);
+                    statement.setLong(index++, now);
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Returns the sequence number of the latest change, through the primary key.
+     *
+     * @return the latest sequence number, `0` if the change log is empty
+     * @throws SQLException if the query fails
+     */
+    public long latestChange() throws SQLException {
+        return withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT MAX(seq) FROM " + CHANGES_TABLE);
+                 ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        });
+    }
+
+    /**
+     * Reads the changes after a cursor and its gaps through the primary key, then moves the cursor past them.
+     *
+     * @param cursor the cursor to read from
+     * @param limit  the maximum number of changes to read
+     * @return the changes in sequence order
+     * @throws SQLException if the query fails
+     */
+    public List<HomeChange> pollChanges(ChangeCursor cursor, int limit) throws SQLException {
+        long position = cursor.getPosition();
+        List<Long> gaps = cursor.getGaps();
+        StringBuilder sql = new StringBuilder("SELECT seq, owner, name, node FROM ").append(CHANGES_TABLE).append(" WHERE seq > ?");
+        if (!gaps.isEmpty()) {
+            sql.append(" OR seq IN (");
+            appendRepeated(sql, "?", gaps.size());
+            sql.append(')');
+        }
+        sql.append(" ORDER BY seq LIMIT ?");
+
+        List<HomeChange> changes = withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                statement.setLong(index++, position);
+                for (long gap : gaps) {
+                    statement.setLong(index++, gap);
+                }
+                statement.setInt(index, limit);
+
+                List<HomeChange> read = new ArrayList<>();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        read.add(new HomeChange(resultSet.getLong(1), fromBytes(resultSet.getBytes(2)),
+                                resultSet.getString(3), resultSet.getString(4)));
+                    }
+                }
+                return read;
+            }
+        });
+
+        List<Long> seqs = new ArrayList<>(changes.size());
+        for (HomeChange change : changes) {
+            seqs.add(change.seq());
+        }
+        cursor.advance(seqs, System.currentTimeMillis());
+        return changes;
+    }
+
+    /**
+     * Deletes the changes logged before the given time, through the time index.
+     *
+     * @param before the time in milliseconds since the epoch
+     * @return the number of deleted changes
+     * @throws SQLException if the statement fails
+     */
+    public int pruneChanges(long before) throws SQLException {
+        return withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + CHANGES_TABLE + " WHERE changed_at < ?")) {
+                statement.setLong(1, before);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Replaces the whole content of the table with the given homes, in one transaction.
+     *
+     * @param homes the homes to store
+     * @throws SQLException if a statement fails; the transaction is then rolled back
+     */
+    public void replaceAll(Collection<Home> homes) throws SQLException {
+        withConnection(connection -> {
+            resolveWorldIds(connection, homes);
+            return inTransaction(connection, transaction -> {
+                try (Statement statement = transaction.createStatement()) {
+                    statement.executeUpdate("DELETE FROM " + TABLE);
+                }
+                upsertAll(transaction, homes);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Makes sure every world of the given homes has a dictionary id, inserting the missing ones.
+     * <p>
+     * Must run outside of the transaction writing the homes: an id cached here and then rolled back along
+     * with that transaction would point to a missing dictionary row.
+     *
+     * @param connection a connection in auto-commit mode
+     * @param homes      the homes about to be written
+     * @throws SQLException if a world cannot be inserted or looked up
+     */
+    void resolveWorldIds(Connection connection, Collection<Home> homes) throws SQLException {
+        for (Home home : homes) {
+            String world = home.getWorld();
+            if (worldIds.containsKey(world)) {
+                continue;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(dialect.insertIgnore + WORLDS_TABLE + " (name) VALUES (?)")) {
+                insert.setString(1, world);
+                insert.executeUpdate();
+            }
+            try (PreparedStatement select = connection.prepareStatement("SELECT id FROM " + WORLDS_TABLE + " WHERE name = ?")) {
+                select.setString(1, world);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("World " + world + " is missing from " + WORLDS_TABLE);
+                    }
+                    worldIds.put(world, resultSet.getInt(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts or updates homes on the given connection; their worlds must have been resolved with
+     * {@link #resolveWorldIds(Connection, Collection)}.
+     */
+    void upsertAll(Connection connection, Collection<Home> homes) throws SQLException {
+        if (homes.isEmpty()) {
+            return;
+        }
+        List<Home> rows = homes instanceof List<Home> list ? list : new ArrayList<>(homes);
+        int fullChunks = rows.size() / ROWS_PER_STATEMENT;
+
+        if (fullChunks > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(ROWS_PER_STATEMENT))) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    int from = chunk * ROWS_PER_STATEMENT;
+                    bindHomes(statement, rows.subList(from, from + ROWS_PER_STATEMENT));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+
+        int remainder = rows.size() % ROWS_PER_STATEMENT;
+        if (remainder > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(remainder))) {
+                bindHomes(statement, rows.subList(rows.size() - remainder, rows.size()));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void deleteAll(Connection connection, Collection<Home> homes) throws SQLException {
+        if (homes.isEmpty()) {
+            return;
+        }
+        List<Home> rows = homes instanceof List<Home> list ? list : new ArrayList<>(homes);
+
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Home> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            try (PreparedStatement statement = connection.prepareStatement(deleteSql(chunk.size()))) {
+                int index = 1;
+                for (Home home : chunk) {
+                    statement.setBytes(index++, toBytes(home.getOwner()));
+                    statement.setString(index++, HomeName.fold(home.getName()));
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * (ROW_PLACEHOLDERS.length() + 2))
+                .append("INSERT INTO ").append(TABLE).append(" (").append(COLUMNS).append(") VALUES ");
+        appendRepeated(sql, ROW_PLACEHOLDERS, rows);
+        return sql.append(dialect.upsertClause).toString();
+    }
+
+    private String deleteSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * 8)
+                .append("DELETE FROM ").append(TABLE).append(" WHERE (owner, name_key) IN (").append(dialect.rowListPrefix);
+        appendRepeated(sql, "(?, ?)", rows);
+        return sql.append(')').toString();
+    }
+
+    private static void appendRepeated(StringBuilder sql, String element, int count) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(element);
+        }
+    }
+
+    private void bindHomes(PreparedStatement statement, List<Home> homes) throws SQLException {
+        int index = 1;
+        for (Home home : homes) {
+            statement.setBytes(index++, toBytes(home.getOwner()));
+            statement.setString(index++, home.getName());
+            statement.setString(index++, HomeName.fold(home.getName()));
+            statement.setInt(index++, worldIds.get(home.getWorld()));
+            statement.setDouble(index++, home.getX());
+            statement.setDouble(index++, home.getY());
+            statement.setDouble(index++, home.getZ());
+            statement.setFloat(index++, home.getYaw());
+            statement.setFloat(index++, home.getPitch());
+            statement.setLong(index++, home.getCreatedAt());
+        }
+    }
+
+    private static List<Home> readHomes(PreparedStatement statement) throws SQLException {
+        List<Home> homes = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Home home = new Home(
+                        0,
+                        fromBytes(resultSet.getBytes(1)),
+                        resultSet.getString(2),
+                        resultSet.getString(3),
+                        resultSet.getDouble(4),
+                        resultSet.getDouble(5),
+                        resultSet.getDouble(6),
+                        resultSet.getFloat(7),
+                        resultSet.getFloat(8),
+                        resultSet.getLong(9)
+                );
+                home.setVersion(resultSet.getLong(10));
+                homes.add(home);
+            }
+        }
+        return homes;
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    @FunctionalInterface
+    interface ConnectionCallback<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    private <T> T withConnection(ConnectionCallback<T> callback) throws SQLException {
+        DatabaseConnection databaseConnection = connectionSource.getReadWriteConnection(TABLE);
+        try {
+            return callback.apply(((JdbcDatabaseConnection) databaseConnection).getInternalConnection());
+        } finally {
+            connectionSource.releaseConnection(databaseConnection);
+        }
+    }
+
+    static <T> T inTransaction(Connection connection, ConnectionCallback<T> callback) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            T result = callback.apply(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package me.axeno.hommr.storage;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.HomeName;
+
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database schema up to date by applying the pending migrations in version order.
+ * <p>
+ * Applied versions are recorded in the {@value #VERSION_TABLE} table, so each migration runs once per database.
+ * Migrations that copy data do it in chunks, each committed with its position in {@value #CURSOR_TABLE}: no
+ * long transaction holds locks on a large table, and a copy interrupted by a restart resumes where it stopped.
+ */
+public class SchemaMigrator {
+
+    static final String VERSION_TABLE = "hommr_schema_version";
+    static final String CURSOR_TABLE = "hommr_migration_cursor";
+
+    /**
+     * Table created by ORMLite for {@link Home} before migrations existed.
+     */
+    static final String LEGACY_TABLE = "homes";
+    static final String LEGACY_BACKUP_TABLE = "homes_legacy";
+    private static final String LEGACY_UNIQUE_KEY = "homes_owner_name";
+
+    static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    /**
+     * Named lock held while migrating a MySQL or MariaDB database, so servers sharing it migrate one at a time.
+     */
+    static final String MIGRATION_LOCK = "hommr_migrate";
+    static final int MIGRATION_LOCK_TIMEOUT_SECONDS = 300;
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private record Migration(int version, String description, Step step) {
+    }
+
+    private final ConnectionSource connectionSource;
+    private final JdbcHomeRepository repository;
+    private final JdbcHomeRepository.Dialect dialect;
+    private final Logger logger;
+    private final int chunkSize;
+
+    private final List<Migration> migrations = List.of(
+            new Migration(1, "unique (owner, name) key on the legacy homes table", this::addLegacyUniqueKey),
+            new Migration(2, "binary owners, world dictionary and (owner, name) primary key", this::moveToCompactLayout),
+            new Migration(3, "row versions and change log for servers sharing the database", this::addChangeLog),
+            new Migration(4, "homes keyed on their folded name, compared as binary", this::addNameKey)
+    );
+
+    public SchemaMigrator(ConnectionSource connectionSource, JdbcHomeRepository repository,
+                          JdbcHomeRepository.Dialect dialect, Logger logger) {
+        this(connectionSource, repository, dialect, logger, DEFAULT_CHUNK_SIZE);
+    }
+
+    SchemaMigrator(ConnectionSource connectionSource, JdbcHomeRepository repository,
+                   JdbcHomeRepository.Dialect dialect, Logger logger, int chunkSize) {
+        this.connectionSource = connectionSource;
+        this.repository = repository;
+        this.dialect = dialect;
+        this.logger = logger;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Applies every migration newer than the recorded schema version.
+     * <p>
+     * On MySQL and MariaDB, the migrations run under the {@value #MIGRATION_LOCK} lock, and the schema version is
+     * read once it is held, so a server starting while another migrates waits and then skips what was applied.
+     * SQLite databases only have one writer.
+     *
+     * @return the number of applied migrations
+     * @throws SQLException if a migration fails, or if another server kept migrating for
+     *                      {@value #MIGRATION_LOCK_TIMEOUT_SECONDS} seconds; the versions applied before stay recorded
+     */
+    public int migrate() throws SQLException {
+        DatabaseConnection databaseConnection = connectionSource.getReadWriteConnection(VERSION_TABLE);
+        try {
+            Connection connection = ((JdbcDatabaseConnection) databaseConnection).getInternalConnection();
+            if (!dialect.isMySqlFamily()) {
+                return applyPending(connection);
+            }
+            acquireMigrationLock(connection);
+            try {
+                return applyPending(connection);
+            } finally {
+                releaseMigrationLock(connection);
+            }
+        } finally {
+            connectionSource.releaseConnection(databaseConnection);
+        }
+    }
+
+    /**
+     * Returns the latest migration version known to this build.
+     *
+     * @return the schema version of a fully migrated database
+     */
+    public int getLatestVersion() {
+        return migrations.getLast().version();
+    }
+
+    private int applyPending(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " (version INT NOT NULL PRIMARY KEY,"
+                    + " description VARCHAR(255) NOT NULL, applied_at BIGINT NOT NULL)");
+        }
+
+        int current = currentVersion(connection);
+        int applied = 0;
+        for (Migration migration : migrations) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            logger.info("Applying database migration " + migration.version() + ": " + migration.description());
+            migration.step().apply(connection);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO " + VERSION_TABLE + " (version, description, applied_at) VALUES (?, ?, ?)")) {
+                statement.setInt(1, migration.version());
+                statement.setString(2, migration.description());
+                statement.setLong(3, System.currentTimeMillis());
+                statement.executeUpdate();
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    private static void acquireMigrationLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, MIGRATION_LOCK);
+            statement.setInt(2, MIGRATION_LOCK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                // 0 on timeout, NULL on error
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another server to migrate the database");
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the lock taken by {@link #acquireMigrationLock(Connection)}. It is held by the connection, which
+     * goes back to the pool afterwards, so it must not outlive the migration.
+     */
+    private void releaseMigrationLock(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, MIGRATION_LOCK);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to release the database migration lock", e);
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Version 1: removes duplicate {@code (owner, name)} rows from the legacy table, keeping the most recently
+     * inserted one, and adds the unique key. Nothing to do on a fresh database.
+     */
+    private void addLegacyUniqueKey(Connection connection) throws SQLException {
+        if (!tableExists(connection, LEGACY_TABLE)) {
+            return;
+        }
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, LEGACY_TABLE, true, false)) {
+            while (indexes.next()) {
+                if (LEGACY_UNIQUE_KEY.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+
+        JdbcHomeRepository.inTransaction(connection, transaction -> {
+            try (Statement statement = transaction.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + LEGACY_TABLE + " WHERE id NOT IN (SELECT keep_id FROM"
+                        + " (SELECT MAX(id) AS keep_id FROM " + LEGACY_TABLE + " GROUP BY owner, name) AS keep)");
+                statement.executeUpdate("CREATE UNIQUE INDEX " + LEGACY_UNIQUE_KEY + " ON " + LEGACY_TABLE + " (owner, name)");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Version 2: creates the world dictionary and the compact homes table, then copies the legacy rows over in
+     * chunks of {@link #chunkSize} ordered by id. The legacy table is kept as {@value #LEGACY_BACKUP_TABLE}.
+     */
+    private void moveToCompactLayout(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (dialect.isMySqlFamily()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + JdbcHomeRepository.WORLDS_TABLE + " ("
+                        + "id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,"
+                        + " name VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,"
+                        + " UNIQUE KEY " + JdbcHomeRepository.WORLDS_TABLE + "_name (name))");
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + JdbcHomeRepository.TABLE + " ("
+                        + "owner BINARY(16) NOT NULL, name VARCHAR(255) NOT NULL, world_id INT NOT NULL,"
+                        + " x DOUBLE NOT NULL, y DOUBLE NOT NULL, z DOUBLE NOT NULL, yaw FLOAT NOT NULL, pitch FLOAT NOT NULL,"
+                        + " created_at BIGINT NOT NULL, PRIMARY KEY (owner, name))");
+            } else {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + JdbcHomeRepository.WORLDS_TABLE + " ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT, name VARCHAR(255) NOT NULL UNIQUE)");
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + JdbcHomeRepository.TABLE + " ("
+                        + "owner BLOB NOT NULL, name VARCHAR(255) NOT NULL COLLATE NOCASE, world_id INTEGER NOT NULL,"
+                        + " x DOUBLE NOT NULL, y DOUBLE NOT NULL, z DOUBLE NOT NULL, yaw FLOAT NOT NULL, pitch FLOAT NOT NULL,"
+                        + " created_at BIGINT NOT NULL, PRIMARY KEY (owner, name)) WITHOUT ROWID");
+            }
+        }
+        // The rows are copied with the current layout, which has a version column since version 3 and a folded
+        // name key since version 4
+        addVersionColumn(connection);
+        addNameKey(connection);
+
+        if (!tableExists(connection, LEGACY_TABLE)) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + CURSOR_TABLE
+                    + " (version INT NOT NULL PRIMARY KEY, position BIGINT NOT NULL)");
+        }
+
+        long cursor = readCursor(connection, 2);
+        if (cursor > 0) {
+            logger.info("Resuming the copy of legacy homes after id " + cursor);
+        }
+
+        long copied = 0;
+        List<Home> chunk = new ArrayList<>(chunkSize);
+        while (true) {
+            chunk.clear();
+            long last = readLegacyChunk(connection, cursor, chunk);
+            if (last <= cursor) {
+                break;
+            }
+
+            repository.resolveWorldIds(connection, chunk);
+            long position = last;
+            JdbcHomeRepository.inTransaction(connection, transaction -> {
+                repository.upsertAll(transaction, chunk);
+                writeCursor(transaction, 2, position);
+                return null;
+            });
+            cursor = last;
+            copied += chunk.size();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE " + LEGACY_TABLE + " RENAME TO " + LEGACY_BACKUP_TABLE);
+            statement.executeUpdate("DELETE FROM " + CURSOR_TABLE + " WHERE version = 2");
+        }
+        logger.info("Copied " + copied + " legacy homes; the old table was kept as " + LEGACY_BACKUP_TABLE);
+    }
+
+    /**
+     * Version 3: adds the row version checked by optimistic writes, and the change log polled by each server to
+     * refresh the owners changed by the others, indexed by time for pruning.
+     */
+    private void addChangeLog(Connection connection) throws SQLException {
+        addVersionColumn(connection);
+        try (Statement statement = connection.createStatement()) {
+            if (dialect.isMySqlFamily()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + JdbcHomeRepository.CHANGES_TABLE + " ("
+                        + "seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, owner BINARY(16) NOT NULL, name VARCHAR(255) NOT NULL,"
+                        + " node VARCHAR(36) NOT NULL, changed_at BIGINT NOT NULL,"
+                        + " KEY " + JdbcHomeRepository.CHANGES_TABLE + "_changed_at (changed_at))");
+            } else {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + JdbcHomeRepository.CHANGES_TABLE + " ("
+                        + "seq INTEGER PRIMARY KEY AUTOINCREMENT, owner BLOB NOT NULL, name VARCHAR(255) NOT NULL,"
+                        + " node VARCHAR(36) NOT NULL, changed_at BIGINT NOT NULL)");
+                statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + JdbcHomeRepository.CHANGES_TABLE + "_changed_at ON "
+                        + JdbcHomeRepository.CHANGES_TABLE + " (changed_at)");
+            }
+        }
+    }
+
+    /**
+     * Version 4: keys the homes on their {@link HomeName#fold(String) folded} name compared as binary, keeping the
+     * display name in its own column. The key used to be the display name compared with the collation of the column,
+     * which on MySQL depends on the server default and on SQLite only folds ASCII letters, so the database and the
+     * cache could disagree on whether two names are the same home.
+     * <p>
+     * Rows whose names fold the same are merged, keeping the latest version. Each step is skipped once done, so an
+     * interrupted migration resumes.
+     */
+    private void addNameKey(Connection connection) throws SQLException {
+        String table = JdbcHomeRepository.TABLE;
+        if (!columnExists(connection, table, "name_key")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN name_key VARCHAR(255)"
+                        + (dialect.isMySqlFamily() ? " CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NULL" : ""));
+            }
+        }
+        fillNameKeys(connection);
+        if (primaryKeyColumns(connection, table).contains("name_key")) {
+            return;
+        }
+
+        JdbcHomeRepository.inTransaction(connection, transaction -> {
+            try (Statement statement = transaction.createStatement()) {
+                int merged = statement.executeUpdate(dialect.isMySqlFamily()
+                        ? "DELETE h FROM " + table + " h JOIN " + table + " o ON o.owner = h.owner AND o.name_key = h.name_key"
+                        + " AND (o.version > h.version OR (o.version = h.version AND o.name > h.name))"
+                        : "DELETE FROM " + table + " WHERE EXISTS (SELECT 1 FROM " + table + " o WHERE o.owner = " + table + ".owner"
+                        + " AND o.name_key = " + table + ".name_key AND (o.version > " + table + ".version"
+                        + " OR (o.version = " + table + ".version AND o.name > " + table + ".name)))");
+                if (merged > 0) {
+                    logger.warning("Merged " + merged + " homes whose names only differ by case into the latest of them");
+                }
+            }
+            return null;
+        });
+
+        try (Statement statement = connection.createStatement()) {
+            if (dialect.isMySqlFamily()) {
+                statement.executeUpdate("ALTER TABLE " + table
+                        + " MODIFY name VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,"
+                        + " MODIFY name_key VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,"
+                        + " DROP PRIMARY KEY, ADD PRIMARY KEY (owner, name_key)");
+                return;
+            }
+        }
+        // SQLite cannot change a primary key, so the table is rebuilt; its DDL is transactional
+        String rebuilt = table + "_rebuild";
+        String columns = "owner, name, name_key, world_id, x, y, z, yaw, pitch, created_at, version";
+        JdbcHomeRepository.inTransaction(connection, transaction -> {
+            try (Statement statement = transaction.createStatement()) {
+                statement.executeUpdate("CREATE TABLE " + rebuilt + " (owner BLOB NOT NULL, name VARCHAR(255) NOT NULL,"
+                        + " name_key VARCHAR(255) NOT NULL, world_id INTEGER NOT NULL, x DOUBLE NOT NULL, y DOUBLE NOT NULL,"
+                        + " z DOUBLE NOT NULL, yaw FLOAT NOT NULL, pitch FLOAT NOT NULL, created_at BIGINT NOT NULL,"
+                        + " version BIGINT NOT NULL DEFAULT 1, PRIMARY KEY (owner, name_key)) WITHOUT ROWID");
+                statement.executeUpdate("INSERT INTO " + rebuilt + " (" + columns + ") SELECT " + columns + " FROM " + table);
+                statement.executeUpdate("DROP TABLE " + table);
+                statement.executeUpdate("ALTER TABLE " + rebuilt + " RENAME TO " + table);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sets the folded name key of the rows without one, in chunks of {@link #chunkSize}.
+     */
+    private void fillNameKeys(Connection connection) throws SQLException {
+        String table = JdbcHomeRepository.TABLE;
+        List<byte[]> owners = new ArrayList<>(chunkSize);
+        List<String> names = new ArrayList<>(chunkSize);
+        while (true) {
+            owners.clear();
+            names.clear();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT owner, name FROM " + table + " WHERE name_key IS NULL LIMIT ?")) {
+                statement.setInt(1, chunkSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        owners.add(resultSet.getBytes(1));
+                        names.add(resultSet.getString(2));
+                    }
+                }
+            }
+            if (names.isEmpty()) {
+                return;
+            }
+
+            JdbcHomeRepository.inTransaction(connection, transaction -> {
+                try (PreparedStatement statement = transaction.prepareStatement(
+                        "UPDATE " + table + " SET name_key = ? WHERE owner = ? AND name = ? AND name_key IS NULL")) {
+                    for (int i = 0; i < names.size(); i++) {
+                        statement.setString(1, HomeName.fold(names.get(i)));
+                        statement.setBytes(2, owners.get(i));
+                        statement.setString(3, names.get(i));
+                        statement.addBatch();
+                    }
+                    // Reading the same rows again would never end
+                    if (Arrays.stream(statement.executeBatch()).allMatch(count -> count == 0)) {
+                        throw new SQLException("Failed to set the folded name of the homes in " + table);
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Adds the version column to the homes table unless it is already there. Existing rows start at version 1.
+     */
+    private static void addVersionColumn(Connection connection) throws SQLException {
+        if (columnExists(connection, JdbcHomeRepository.TABLE, "version")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE " + JdbcHomeRepository.TABLE + " ADD COLUMN version BIGINT NOT NULL DEFAULT 1");
+        }
+    }
+
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, null)) {
+            while (columns.next()) {
+                if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> primaryKeyColumns(Connection connection, String table) throws SQLException {
+        Set<String> keyColumns = new HashSet<>();
+        try (ResultSet keys = connection.getMetaData().getPrimaryKeys(connection.getCatalog(), null, table)) {
+            while (keys.next()) {
+                keyColumns.add(keys.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return keyColumns;
+    }
+
+    /**
+     * Reads the legacy rows following the given id into {@code chunk}, skipping rows whose owner is not a UUID.
+     *
+     * @return the id of the last row read, or {@code afterId} if no row is left
+     */
+    private long readLegacyChunk(Connection connection, long afterId, List<Home> chunk) throws SQLException {
+        long last = afterId;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, owner, name, world, x, y, z, yaw, pitch, createdAt FROM " + LEGACY_TABLE
+                        + " WHERE id > ? ORDER BY id LIMIT ?")) {
+            statement.setLong(1, afterId);
+            statement.setInt(2, chunkSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    last = resultSet.getLong(1);
+                    UUID owner;
+                    try {
+                        owner = UUID.fromString(resultSet.getString(2));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Skipping legacy home " + last + " with an invalid owner: " + resultSet.getString(2));
+                        continue;
+                    }
+                    chunk.add(new Home(0, owner, resultSet.getString(3), resultSet.getString(4),
+                            resultSet.getDouble(5), resultSet.getDouble(6), resultSet.getDouble(7),
+                            resultSet.getFloat(8), resultSet.getFloat(9), resultSet.getLong(10)));
+                }
+            }
+        }
+        return last;
+    }
+
+    private static long readCursor(Connection connection, int version) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT position FROM " + CURSOR_TABLE + " WHERE version = ?")) {
+            statement.setInt(1, version);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static void writeCursor(Connection connection, int version, long position) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + CURSOR_TABLE + " WHERE version = ?")) {
+            delete.setInt(1, version);
+            delete.executeUpdate();
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + CURSOR_TABLE + " (version, position) VALUES (?, ?)")) {
+            insert.setInt(1, version);
+            insert.setLong(2, position);
+            insert.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+            while (tables.next()) {
+                if (table.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
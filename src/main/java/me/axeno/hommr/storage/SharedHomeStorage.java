@@ -0,0 +1,64 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+
+import java.util.List;
+
+/**
+ * Storage that several servers may use at the same time, which must keep their caches coherent.
+ * <p>
+ * Writes are optimistic: a home is only written if its stored row still has the {@link Home#getVersion() version}
+ * the server last saw, and the homes that were changed by another server meanwhile are reported instead. Every
+ * write is also appended to a change log, which each server polls with a {@link ChangeCursor} to refresh the
+ * owners changed by the others.
+ */
+public interface SharedHomeStorage extends HomeStorage {
+
+    /**
+     * Identifies this server in the change log.
+     *
+     * @return the id of this server, unique among the servers sharing the storage
+     */
+    String getNodeId();
+
+    /**
+     * Persists a delta of changed homes, skipping the homes whose stored row changed since it was read.
+     * <p>
+     * A home with a positive version is only written if its row still has that version, one with
+     * {@link Home#NEW_VERSION} only if no row exists, and one with {@link Home#UNKNOWN_VERSION} unconditionally.
+     * The other homes are applied in one transaction, and the versions of the homes are left untouched.
+     *
+     * @param upserts   homes to insert or update
+     * @param deletions homes to delete
+     * @return the homes that were not written because their row was changed by another server, empty if none
+     * @throws Exception if the delta cannot be written; nothing is written then
+     */
+    List<Home> saveChangesIfUnchanged(List<Home> upserts, List<Home> deletions) throws Exception;
+
+    /**
+     * Opens a cursor on the change log, positioned after its latest entry.
+     *
+     * @return the cursor
+     * @throws Exception if the change log cannot be read
+     */
+    ChangeCursor openChangeCursor() throws Exception;
+
+    /**
+     * Reads the changes after a cursor, including those of this server, and moves the cursor past them.
+     *
+     * @param cursor the cursor to read from
+     * @param limit  the maximum number of changes to read
+     * @return the changes in log order, empty if there are none
+     * @throws Exception if the change log cannot be read; the cursor is left untouched then
+     */
+    List<HomeChange> pollChanges(ChangeCursor cursor, int limit) throws Exception;
+
+    /**
+     * Deletes the changes logged before the given time, which every server has read by then.
+     *
+     * @param before the time in milliseconds since the epoch
+     * @return the number of deleted changes
+     * @throws Exception if the changes cannot be deleted
+     */
+    int pruneChanges(long before) throws Exception;
+}
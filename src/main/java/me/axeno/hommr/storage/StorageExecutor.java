@@ -0,0 +1,241 @@
+package me.axeno.hommr.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Runs blocking storage calls off the server thread.
+ * <p>
+ * Every task gets its own virtual thread, but at most {@code maxConcurrency} of them talk to the storage at
+ * once, so a slow database does not exhaust its connection pool. At most {@code maxQueued} tasks may be
+ * waiting or running: {@link #submit(Object, StorageTask)} sheds the extra load by failing with a
+ * {@link RejectedExecutionException}, which keeps a stalled database from building an unbounded backlog, while
+ * {@link #call(Object, StorageTask)} waits for room and so applies backpressure to background callers.
+ * <p>
+ * Tasks submitted with the same key, typically the UUID of a home owner, run one after the other in submission
+ * order; tasks with different keys, or without a key, run concurrently. A task may also hold several keys, such as
+ * a batch writing the homes of many owners, and is then ordered with the tasks of each of them.
+ */
+public class StorageExecutor {
+
+    /**
+     * A unit of blocking storage work.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface StorageTask<T> {
+        T run() throws Exception;
+    }
+
+    private final ExecutorService threads;
+    private final Semaphore queueSlots;
+    private final Semaphore runningSlots;
+    private final int maxQueued;
+
+    /**
+     * Last task submitted for each key; a new task for the key starts once this one completes.
+     */
+    private final Map<Object, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes the enqueuing of tasks holding several keys, so that two of them never wait for each other.
+     */
+    private final Object multiKeyLock = new Object();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a storage executor.
+     *
+     * @param maxConcurrency maximum number of tasks running at the same time
+     * @param maxQueued      maximum number of tasks waiting or running before new submissions are rejected
+     */
+    public StorageExecutor(int maxConcurrency, int maxQueued) {
+        if (maxConcurrency < 1 || maxQueued < maxConcurrency) {
+            throw new IllegalArgumentException("Invalid storage executor bounds: " + maxConcurrency + " running, " + maxQueued + " queued");
+        }
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Hommr-Storage-", 1).factory());
+        this.queueSlots = new Semaphore(maxQueued);
+        this.runningSlots = new Semaphore(maxConcurrency);
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Submits a task without ever blocking the caller.
+     *
+     * @param key  tasks with an equal key run in submission order; `null` for no ordering
+     * @param task the storage work
+     * @param <T>  the type of the result
+     * @return a future completed with the result of the task, or completed exceptionally with the exception it
+     * threw, or with a {@link RejectedExecutionException} if the queue is full or the executor is shut down
+     */
+    public <T> CompletableFuture<T> submit(Object key, StorageTask<T> task) {
+        if (shutdown) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The storage executor is shut down"));
+        }
+        if (!queueSlots.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The storage queue is full (" + maxQueued + " pending tasks)"));
+        }
+        return enqueue(key, task);
+    }
+
+    /**
+     * Runs a task through the executor and waits for its result, waiting first for room in the queue if it is full.
+     * <p>
+     * Blocks the calling thread, so it must not be used from the main thread once the server is running.
+     *
+     * @param key  tasks with an equal key run in submission order; `null` for no ordering
+     * @param task the storage work
+     * @param <T>  the type of the result
+     * @return the result of the task
+     * @throws Exception the exception thrown by the task, a {@link RejectedExecutionException} if the executor is
+     *                   shut down, or an {@link InterruptedException} if the caller was interrupted while waiting
+     */
+    public <T> T call(Object key, StorageTask<T> task) throws Exception {
+        if (shutdown) {
+            throw new RejectedExecutionException("The storage executor is shut down");
+        }
+        queueSlots.acquire();
+        CompletableFuture<T> future = enqueue(key, task);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a task holding several keys and waits for its result, like {@link #call(Object, StorageTask)}.
+     * <p>
+     * The task starts once the tasks submitted before it with any of the keys complete, and the tasks submitted
+     * after it with any of the keys wait for it.
+     *
+     * @param keys the keys of the task
+     * @param task the storage work
+     * @param <T>  the type of the result
+     * @return the result of the task
+     * @throws Exception the exception thrown by the task, a {@link RejectedExecutionException} if the executor is
+     *                   shut down, or an {@link InterruptedException} if the caller was interrupted while waiting
+     */
+    public <T> T callWithKeys(Set<?> keys, StorageTask<T> task) throws Exception {
+        if (shutdown) {
+            throw new RejectedExecutionException("The storage executor is shut down");
+        }
+        queueSlots.acquire();
+        CompletableFuture<T> future = enqueueAll(keys, task);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting or running.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTasks() {
+        return maxQueued - queueSlots.availablePermits();
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Rejects new tasks and waits for the pending ones to complete.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return `true` if every pending task completed, `false` if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        if (shutdown) {
+            return threads.awaitTermination(timeout, unit);
+        }
+        shutdown = true;
+        boolean drained = queueSlots.tryAcquire(maxQueued, timeout, unit);
+        threads.shutdown();
+        return drained;
+    }
+
+    private <T> CompletableFuture<T> enqueue(Object key, StorageTask<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (key == null) {
+            dispatch(task, result);
+            return result;
+        }
+
+        CompletableFuture<?> previous = tails.put(key, result);
+        result.whenComplete((value, failure) -> tails.remove(key, result));
+        if (previous == null) {
+            dispatch(task, result);
+        } else {
+            previous.whenComplete((value, failure) -> dispatch(task, result));
+        }
+        return result;
+    }
+
+    private <T> CompletableFuture<T> enqueueAll(Set<?> keys, StorageTask<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<?>> previous = new ArrayList<>();
+        synchronized (multiKeyLock) {
+            for (Object key : keys) {
+                CompletableFuture<?> tail = tails.put(key, result);
+                if (tail != null) {
+                    previous.add(tail);
+                }
+            }
+        }
+        result.whenComplete((value, failure) -> keys.forEach(key -> tails.remove(key, result)));
+        if (previous.isEmpty()) {
+            dispatch(task, result);
+        } else {
+            CompletableFuture.allOf(previous.toArray(CompletableFuture[]::new))
+                    .whenComplete((value, failure) -> dispatch(task, result));
+        }
+        return result;
+    }
+
+    private <T> void dispatch(StorageTask<T> task, CompletableFuture<T> result) {
+        try {
+            threads.execute(() -> {
+                T value = null;
+                Throwable failure = null;
+                try {
+                    runningSlots.acquire();
+                    try {
+                        value = task.run();
+                    } finally {
+                        runningSlots.release();
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                }
+
+                // Free the slot before completing, so that dependent stages may submit again
+                queueSlots.release();
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queueSlots.release();
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package me.axeno.hommr.teleport;
+
+import me.axeno.hommr.models.Home;
+import org.bukkit.Location;
+
+/**
+ * Coordinates of a chunk in a world, identified by name so that no reference to an unloaded world is kept.
+ */
+record ChunkKey(String world, int x, int z) {
+
+    static ChunkKey of(Location location) {
+        return new ChunkKey(location.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    static ChunkKey of(Home home) {
+        return new ChunkKey(home.getWorld(), (int) Math.floor(home.getX()) >> 4, (int) Math.floor(home.getZ()) >> 4);
+    }
+}
@@ -0,0 +1,117 @@
+package me.axeno.hommr.teleport;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Keeps the chunks of the most used homes loaded, so that teleports to them never wait for a chunk load.
+ * <p>
+ * Every teleport is {@link #record(Location) recorded} against the chunk of its destination. On each
+ * {@link #refresh()}, the {@code maxChunks} chunks teleported to the most are loaded asynchronously and held with a
+ * plugin chunk ticket, and the tickets of the chunks that fell out of that set are released. Counts are halved on
+ * every refresh so that the set follows recent usage. Every method must run on the main thread.
+ */
+public final class ChunkPrewarmer {
+
+    /**
+     * Minimum number of recent teleports for a chunk to be kept loaded.
+     */
+    static final int MIN_TELEPORTS = 2;
+
+    private final Plugin plugin;
+    private final int maxChunks;
+    private final Function<String, World> worlds;
+    private final Map<ChunkKey, Integer> teleports = new HashMap<>();
+    private final Set<ChunkKey> ticketed = new HashSet<>();
+
+    /**
+     * Creates a prewarmer resolving worlds by name through the server.
+     *
+     * @param plugin    the plugin owning the chunk tickets
+     * @param maxChunks the maximum number of chunks kept loaded
+     * @param worlds    the lookup of a loaded world by name, `null` if it is not loaded
+     */
+    public ChunkPrewarmer(Plugin plugin, int maxChunks, Function<String, World> worlds) {
+        this.plugin = plugin;
+        this.maxChunks = maxChunks;
+        this.worlds = worlds;
+    }
+
+    /**
+     * Counts a teleport to a location.
+     *
+     * @param location the destination, whose world must be set
+     */
+    public void record(Location location) {
+        teleports.merge(ChunkKey.of(location), 1, Integer::sum);
+    }
+
+    /**
+     * Moves the chunk tickets to the chunks teleported to the most since the previous refreshes.
+     */
+    public void refresh() {
+        Set<ChunkKey> hottest = new HashSet<>();
+        teleports.entrySet().stream()
+                .filter(entry -> entry.getValue() >= MIN_TELEPORTS)
+                .sorted(Map.Entry.<ChunkKey, Integer>comparingByValue().reversed())
+                .limit(maxChunks)
+                .forEach(entry -> hottest.add(entry.getKey()));
+
+        for (Iterator<ChunkKey> iterator = ticketed.iterator(); iterator.hasNext(); ) {
+            ChunkKey key = iterator.next();
+            if (!hottest.contains(key)) {
+                release(key);
+                iterator.remove();
+            }
+        }
+        for (ChunkKey key : hottest) {
+            if (!ticketed.contains(key)) {
+                acquire(key);
+            }
+        }
+
+        teleports.replaceAll((key, count) -> count / 2);
+        teleports.values().removeIf(count -> count == 0);
+    }
+
+    /**
+     * Releases every chunk ticket and forgets the recorded teleports.
+     */
+    public void clear() {
+        ticketed.forEach(this::release);
+        ticketed.clear();
+        teleports.clear();
+    }
+
+    /**
+     * @return the number of chunks currently kept loaded
+     */
+    public int getTicketCount() {
+        return ticketed.size();
+    }
+
+    private void acquire(ChunkKey key) {
+        World world = worlds.apply(key.world());
+        if (world == null) {
+            return;
+        }
+        ticketed.add(key);
+        // Adding a ticket to an unloaded chunk would load it synchronously
+        world.getChunkAtAsync(key.x(), key.z()).thenAccept(chunk -> {
+            if (ticketed.contains(key)) {
+                world.addPluginChunkTicket(key.x(), key.z(), plugin);
+            }
+        });
+    }
+
+    private void release(ChunkKey key) {
+        World world = worlds.apply(key.world());
+        if (world != null) {
+            world.removePluginChunkTicket(key.x(), key.z(), plugin);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package me.axeno.hommr.teleport;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.permissions.Permissible;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Duration depending on the permissions of a player, such as a teleport warmup or cooldown.
+ * <p>
+ * Read from a configuration section holding the default duration under {@code seconds} and named tiers under
+ * {@code permissions}, each granted by the permission {@code <prefix><name>}. A player gets the shortest of the
+ * default and of the tiers they have, so tiers only ever shorten the duration; {@code <prefix>bypass} removes it
+ * altogether.
+ */
+public final class PermissionDurations {
+
+    private record Tier(String permission, long millis) {
+    }
+
+    private final String bypassPermission;
+    private final long defaultMillis;
+
+    /**
+     * Tiers, shortest first.
+     */
+    private final Tier[] tiers;
+
+    /**
+     * @param bypassPermission the permission removing the duration
+     * @param defaultMillis    the duration without any tier, in milliseconds
+     * @param tiers            the durations in milliseconds by permission
+     */
+    private PermissionDurations(String bypassPermission, long defaultMillis, List<Tier> tiers) {
+        this.bypassPermission = bypassPermission;
+        this.defaultMillis = defaultMillis;
+        this.tiers = tiers.stream()
+                .sorted(Comparator.comparingLong(Tier::millis))
+                .toArray(Tier[]::new);
+    }
+
+    /**
+     * Reads the durations from a configuration section.
+     *
+     * @param section the section, `null` for no duration
+     * @param prefix  the prefix of the permissions, such as {@code hommr.warmup.}
+     * @return the durations
+     */
+    public static PermissionDurations fromConfig(ConfigurationSection section, String prefix) {
+        if (section == null) {
+            return new PermissionDurations(prefix + "bypass", 0, List.of());
+        }
+        List<Tier> tiers = new ArrayList<>();
+        ConfigurationSection permissions = section.getConfigurationSection("permissions");
+        if (permissions != null) {
+            for (String name : permissions.getKeys(false)) {
+                tiers.add(new Tier(prefix + name, toMillis(permissions.getDouble(name))));
+            }
+        }
+        return new PermissionDurations(prefix + "bypass", toMillis(section.getDouble("seconds", 0)), tiers);
+    }
+
+    /**
+     * Returns the duration applying to a player.
+     *
+     * @param player the player
+     * @return the duration in milliseconds, `0` for none
+     */
+    public long resolve(Permissible player) {
+        if (isDisabled()) {
+            // Spares the permission lookups on servers not using it
+            return 0;
+        }
+        if (player.hasPermission(bypassPermission)) {
+            return 0;
+        }
+        for (Tier tier : tiers) {
+            if (tier.millis() >= defaultMillis) {
+                break;
+            }
+            if (player.hasPermission(tier.permission())) {
+                return tier.millis();
+            }
+        }
+        return defaultMillis;
+    }
+
+    /**
+     * @return `true` if no player ever gets a duration
+     */
+    public boolean isDisabled() {
+        // Tiers only shorten the default
+        return defaultMillis == 0;
+    }
+
+    private static long toMillis(double seconds) {
+        return Math.max(0, Math.round(seconds * 1000));
+    }
+}
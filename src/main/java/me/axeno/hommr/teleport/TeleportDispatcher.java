@@ -0,0 +1,21 @@
+package me.axeno.hommr.teleport;
+
+import me.axeno.hommr.models.Home;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Next step of a teleport to a home, called by the stage that held it back.
+ */
+@FunctionalInterface
+public interface TeleportDispatcher {
+
+    /**
+     * @param player the player to teleport
+     * @param home   the home to teleport to
+     * @param start  the {@link me.axeno.hommr.metrics.HommrMetrics#start() start time} of the request
+     * @return a future completed with the outcome of the teleport
+     */
+    CompletableFuture<TeleportResult> dispatch(Player player, Home home, long start);
+}
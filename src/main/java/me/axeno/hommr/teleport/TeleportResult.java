@@ -0,0 +1,56 @@
+package me.axeno.hommr.teleport;
+
+/**
+ * Outcome of a teleport to a home.
+ */
+public enum TeleportResult {
+
+    /**
+     * The player was moved to the home.
+     */
+    SUCCESS,
+
+    /**
+     * The player has no home with that name.
+     */
+    HOME_NOT_FOUND,
+
+    /**
+     * The world of the home is not loaded or no longer exists.
+     */
+    WORLD_NOT_FOUND,
+
+    /**
+     * A listener cancelled the {@link me.axeno.hommr.events.HomeTeleportEvent}.
+     */
+    CANCELLED,
+
+    /**
+     * The player teleported to a home too recently and must wait for their cooldown to end.
+     */
+    ON_COOLDOWN,
+
+    /**
+     * The player moved to another block during the warmup.
+     */
+    INTERRUPTED,
+
+    /**
+     * The teleport was waiting for its warmup or in the queue and was replaced by a newer teleport of the same
+     * player.
+     */
+    REPLACED,
+
+    /**
+     * The chunk of the home could not be loaded, or the server refused the teleport, for instance because the
+     * player left or died meanwhile.
+     */
+    FAILED;
+
+    /**
+     * @return `true` if the player was moved to the home
+     */
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
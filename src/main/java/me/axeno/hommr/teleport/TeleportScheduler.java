@@ -0,0 +1,223 @@
+package me.axeno.hommr.teleport;
+
+import me.axeno.hommr.models.Home;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Queue spreading bursts of teleports over several ticks.
+ * <p>
+ * Each player has at most one queued teleport: a newer one takes the place of the previous one in the queue, so a
+ * player spamming {@code /home} never gets ahead of the others. Teleports are dispatched in the order players
+ * queued them, under a budget of time and of teleports per tick; the queued teleports to the same chunk as the
+ * dispatched one go along with it while the budget allows, since they share its chunk load, and the rest of that
+ * group goes first at the next tick, while the chunk is still loaded. While the queue is empty and the budget of
+ * the current tick is not spent, teleports are dispatched right away.
+ * <p>
+ * Every method must run on the main thread, and {@link #tick()} must be called at every tick.
+ */
+public final class TeleportScheduler {
+
+    private static final class Request {
+        private final Player player;
+        private final Home home;
+        private final ChunkKey chunk;
+        private final long start;
+        private final CompletableFuture<TeleportResult> result = new CompletableFuture<>();
+
+        private Request(Player player, Home home, long start) {
+            this.player = player;
+            this.home = home;
+            this.chunk = ChunkKey.of(home);
+            this.start = start;
+        }
+    }
+
+    private final long budgetNanos;
+    private final int maxPerTick;
+    private final TeleportDispatcher dispatcher;
+
+    /**
+     * Queued teleports by player, in the order the players queued them.
+     */
+    private final LinkedHashMap<UUID, Request> queue = new LinkedHashMap<>();
+    private final Map<ChunkKey, ArrayDeque<Request>> byChunk = new HashMap<>();
+
+    /**
+     * Chunk whose group of teleports was cut short by the budget of the previous tick, `null` if none was.
+     */
+    private ChunkKey unfinished;
+
+    private long spentNanos;
+    private int dispatchedThisTick;
+
+    /**
+     * @param budgetNanos the time spent dispatching teleports per tick, in nanoseconds
+     * @param maxPerTick  the maximum number of teleports dispatched per tick
+     * @param dispatcher  starts the teleports taken out of the queue
+     */
+    public TeleportScheduler(long budgetNanos, int maxPerTick, TeleportDispatcher dispatcher) {
+        this.budgetNanos = budgetNanos;
+        this.maxPerTick = maxPerTick;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Queues a teleport, or dispatches it right away if nothing is queued and the budget of the tick allows it.
+     *
+     * @param player the player to teleport
+     * @param home   the home to teleport to
+     * @param start  the {@link me.axeno.hommr.metrics.HommrMetrics#start() start time} of the request
+     * @return a future completed with the outcome of the teleport, {@link TeleportResult#REPLACED} if a newer
+     * teleport of the player replaces it while queued
+     */
+    public CompletableFuture<TeleportResult> submit(Player player, Home home, long start) {
+        Request queued = queue.get(player.getUniqueId());
+        if (queued != null) {
+            // Keeps its place in the queue with the new destination
+            removeFromChunk(queued);
+            queued.result.complete(TeleportResult.REPLACED);
+            Request replacement = new Request(player, home, start);
+            queue.put(player.getUniqueId(), replacement);
+            byChunk.computeIfAbsent(replacement.chunk, chunk -> new ArrayDeque<>(2)).add(replacement);
+            return replacement.result;
+        }
+
+        Request request = new Request(player, home, start);
+        if (queue.isEmpty() && hasBudget()) {
+            long begin = System.nanoTime();
+            dispatch(request);
+            spentNanos += System.nanoTime() - begin;
+            return request.result;
+        }
+
+        queue.put(player.getUniqueId(), request);
+        byChunk.computeIfAbsent(request.chunk, chunk -> new ArrayDeque<>(2)).add(request);
+        return request.result;
+    }
+
+    /**
+     * Starts a new tick: dispatches the queued teleports, oldest first, until the budget of the tick is spent.
+     */
+    public void tick() {
+        spentNanos = 0;
+        dispatchedThisTick = 0;
+        long begin = System.nanoTime();
+        while (!queue.isEmpty() && hasBudget()) {
+            ChunkKey chunk = unfinished != null && byChunk.containsKey(unfinished)
+                    ? unfinished
+                    : queue.values().iterator().next().chunk;
+            ArrayDeque<Request> sameChunk = byChunk.get(chunk);
+            while (!sameChunk.isEmpty() && hasBudget()) {
+                Request request = sameChunk.poll();
+                queue.remove(request.player.getUniqueId());
+                dispatch(request);
+                spentNanos = System.nanoTime() - begin;
+            }
+            if (sameChunk.isEmpty()) {
+                byChunk.remove(chunk);
+                unfinished = null;
+            } else {
+                unfinished = chunk;
+            }
+        }
+    }
+
+    /**
+     * Drops the queued teleport of a player, for instance because they left.
+     *
+     * @param playerId the UUID of the player
+     * @return `true` if the player had a queued teleport, which completes with {@link TeleportResult#FAILED}
+     */
+    public boolean cancel(UUID playerId) {
+        Request request = queue.remove(playerId);
+        if (request == null) {
+            return false;
+        }
+        removeFromChunk(request);
+        request.result.complete(TeleportResult.FAILED);
+        return true;
+    }
+
+    /**
+     * Drops every queued teleport; they complete with {@link TeleportResult#FAILED}.
+     */
+    public void clear() {
+        List<Request> dropped = new ArrayList<>(queue.values());
+        queue.clear();
+        byChunk.clear();
+        unfinished = null;
+        dropped.forEach(request -> request.result.complete(TeleportResult.FAILED));
+    }
+
+    /**
+     * Returns the position of the teleport of a player in the queue.
+     *
+     * @param playerId the UUID of the player
+     * @return the position, from `1` for the next teleport dispatched, or `0` if the player has no queued teleport
+     */
+    public int getPosition(UUID playerId) {
+        if (!queue.containsKey(playerId)) {
+            return 0;
+        }
+        int position = 1;
+        for (UUID queued : queue.keySet()) {
+            if (queued.equals(playerId)) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Calls an action for every player with a queued teleport, in queue order.
+     *
+     * @param action receives each player and their position, from `1`
+     */
+    public void forEachQueued(ObjIntConsumer<Player> action) {
+        int position = 1;
+        for (Request request : List.copyOf(queue.values())) {
+            action.accept(request.player, position++);
+        }
+    }
+
+    /**
+     * @return the number of queued teleports
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    private boolean hasBudget() {
+        return spentNanos < budgetNanos && dispatchedThisTick < maxPerTick;
+    }
+
+    private void dispatch(Request request) {
+        dispatchedThisTick++;
+        CompletableFuture<TeleportResult> teleport;
+        try {
+            teleport = dispatcher.dispatch(request.player, request.home, request.start);
+        } catch (RuntimeException e) {
+            request.result.completeExceptionally(e);
+            return;
+        }
+        teleport.whenComplete((result, e) -> {
+            if (e != null) {
+                request.result.completeExceptionally(e);
+            } else {
+                request.result.complete(result);
+            }
+        });
+    }
+
+    private void removeFromChunk(Request request) {
+        ArrayDeque<Request> sameChunk = byChunk.get(request.chunk);
+        if (sameChunk != null && sameChunk.remove(request) && sameChunk.isEmpty()) {
+            byChunk.remove(request.chunk);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package me.axeno.hommr.teleport;
+
+import me.axeno.hommr.metrics.HommrMetrics;
+import me.axeno.hommr.models.Home;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Warmups and cooldowns of teleports.
+ * <p>
+ * A teleport with a warmup waits on a {@link TimingWheel} before being dispatched, and is interrupted if the player
+ * moves to another block meanwhile when {@code cancelOnMove} is set. Once a teleport succeeds, the player cannot
+ * teleport again until their cooldown ends. Both durations depend on the permissions of the player, see
+ * {@link PermissionDurations}.
+ * <p>
+ * Every method must run on the main thread, and {@link #tick()} must be called at every tick.
+ */
+public final class TeleportWarmups {
+
+    /**
+     * Number of slots of the timing wheel; warmups up to this many ticks expire in a single turn.
+     */
+    static final int WHEEL_SLOTS = 512;
+
+    static final long MILLIS_PER_TICK = 50;
+
+    /**
+     * Interval, in ticks, between two purges of the ended cooldowns.
+     */
+    static final int COOLDOWN_PURGE_TICKS = 1200;
+
+    private static final class Warmup {
+        private final Player player;
+        private final Home home;
+        private final World world;
+        private final int blockX;
+        private final int blockY;
+        private final int blockZ;
+        private final CompletableFuture<TeleportResult> result = new CompletableFuture<>();
+        private TimingWheel<Warmup>.Timeout timeout;
+
+        private Warmup(Player player, Home home, Location location) {
+            this.player = player;
+            this.home = home;
+            this.world = location.getWorld();
+            this.blockX = location.getBlockX();
+            this.blockY = location.getBlockY();
+            this.blockZ = location.getBlockZ();
+        }
+    }
+
+    private final PermissionDurations warmups;
+    private final PermissionDurations cooldowns;
+    private final boolean cancelOnMove;
+    private final TeleportDispatcher dispatcher;
+    private final LongSupplier clock;
+
+    private final TimingWheel<Warmup> wheel = new TimingWheel<>(WHEEL_SLOTS);
+    private final Map<UUID, Warmup> pending = new HashMap<>();
+
+    /**
+     * End of the cooldown of each player, in epoch milliseconds; ended cooldowns are purged periodically.
+     */
+    private final Map<UUID, Long> cooldownEnds = new HashMap<>();
+    private long ticks;
+
+    /**
+     * @param warmups      the warmup of each player
+     * @param cooldowns    the cooldown of each player
+     * @param cancelOnMove whether moving to another block interrupts a warmup
+     * @param dispatcher   starts the teleports once warmed up
+     */
+    public TeleportWarmups(PermissionDurations warmups, PermissionDurations cooldowns, boolean cancelOnMove, TeleportDispatcher dispatcher) {
+        this(warmups, cooldowns, cancelOnMove, dispatcher, System::currentTimeMillis);
+    }
+
+    TeleportWarmups(PermissionDurations warmups, PermissionDurations cooldowns, boolean cancelOnMove, TeleportDispatcher dispatcher, LongSupplier clock) {
+        this.warmups = warmups;
+        this.cooldowns = cooldowns;
+        this.cancelOnMove = cancelOnMove;
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the warmup of a teleport, or dispatches it right away if the player has no warmup.
+     * <p>
+     * A newer teleport of a player replaces their pending one. The duration recorded for a teleport with a warmup
+     * starts once the warmup ends.
+     *
+     * @param player the player to teleport
+     * @param home   the home to teleport to
+     * @param start  the {@link HommrMetrics#start() start time} of the request
+     * @return a future completed with the outcome of the teleport: {@link TeleportResult#ON_COOLDOWN} right away if
+     * the cooldown of the player has not ended, {@link TeleportResult#INTERRUPTED} if they moved during the
+     * warmup, {@link TeleportResult#REPLACED} if a newer teleport replaced it during the warmup
+     */
+    public CompletableFuture<TeleportResult> submit(Player player, Home home, long start) {
+        UUID playerId = player.getUniqueId();
+        if (getRemainingCooldownMillis(playerId) > 0) {
+            return CompletableFuture.completedFuture(TeleportResult.ON_COOLDOWN);
+        }
+
+        Warmup previous = pending.remove(playerId);
+        if (previous != null) {
+            previous.timeout.cancel();
+            previous.result.complete(TeleportResult.REPLACED);
+        }
+
+        long warmupMillis = warmups.resolve(player);
+        if (warmupMillis == 0) {
+            return dispatch(player, home, start);
+        }
+
+        Warmup warmup = new Warmup(player, home, player.getLocation());
+        warmup.timeout = wheel.schedule(warmup, (warmupMillis + MILLIS_PER_TICK - 1) / MILLIS_PER_TICK);
+        pending.put(playerId, warmup);
+        return warmup.result;
+    }
+
+    /**
+     * Moves to the next tick, dispatching the teleports whose warmup ended.
+     */
+    public void tick() {
+        wheel.advance(this::complete);
+        if (++ticks % COOLDOWN_PURGE_TICKS == 0 && !cooldownEnds.isEmpty()) {
+            long now = clock.getAsLong();
+            cooldownEnds.values().removeIf(end -> end <= now);
+        }
+    }
+
+    /**
+     * Interrupts the warmup of a player who moved to another block. Cheap enough to call on every move: nothing
+     * is looked up unless a warmup is pending, and nothing is allocated.
+     *
+     * @param player the player who moved
+     * @param to     the location they moved to
+     */
+    public void handleMove(Player player, Location to) {
+        if (!cancelOnMove || pending.isEmpty()) {
+            return;
+        }
+        Warmup warmup = pending.get(player.getUniqueId());
+        if (warmup == null || (to.getBlockX() == warmup.blockX && to.getBlockY() == warmup.blockY
+                && to.getBlockZ() == warmup.blockZ && to.getWorld() == warmup.world)) {
+            return;
+        }
+        pending.remove(player.getUniqueId());
+        warmup.timeout.cancel();
+        warmup.result.complete(TeleportResult.INTERRUPTED);
+    }
+
+    /**
+     * Drops the pending warmup of a player, for instance because they left.
+     *
+     * @param playerId the UUID of the player
+     * @return `true` if the player had a pending warmup, which completes with {@link TeleportResult#FAILED}
+     */
+    public boolean cancel(UUID playerId) {
+        Warmup warmup = pending.remove(playerId);
+        if (warmup == null) {
+            return false;
+        }
+        warmup.timeout.cancel();
+        warmup.result.complete(TeleportResult.FAILED);
+        return true;
+    }
+
+    /**
+     * Drops every pending warmup, which complete with {@link TeleportResult#FAILED}, and forgets the cooldowns.
+     */
+    public void clear() {
+        List<Warmup> dropped = new ArrayList<>(pending.values());
+        pending.clear();
+        wheel.clear();
+        cooldownEnds.clear();
+        dropped.forEach(warmup -> warmup.result.complete(TeleportResult.FAILED));
+    }
+
+    /**
+     * @param playerId the UUID of the player
+     * @return the time before the pending teleport of the player is dispatched, in milliseconds, `0` if they have none
+     */
+    public long getRemainingWarmupMillis(UUID playerId) {
+        Warmup warmup = pending.get(playerId);
+        return warmup == null ? 0 : warmup.timeout.remainingTicks() * MILLIS_PER_TICK;
+    }
+
+    /**
+     * @param playerId the UUID of the player
+     * @return the time before the player may teleport again, in milliseconds, `0` if they may already
+     */
+    public long getRemainingCooldownMillis(UUID playerId) {
+        Long end = cooldownEnds.get(playerId);
+        return end == null ? 0 : Math.max(0, end - clock.getAsLong());
+    }
+
+    /**
+     * @return the number of pending warmups
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    private void complete(Warmup warmup) {
+        pending.remove(warmup.player.getUniqueId(), warmup);
+        dispatch(warmup.player, warmup.home, HommrMetrics.start()).whenComplete((result, e) -> {
+            if (e != null) {
+                warmup.result.completeExceptionally(e);
+            } else {
+                warmup.result.complete(result);
+            }
+        });
+    }
+
+    private CompletableFuture<TeleportResult> dispatch(Player player, Home home, long start) {
+        CompletableFuture<TeleportResult> teleport;
+        try {
+            teleport = dispatcher.dispatch(player, home, start);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return teleport.thenApply(result -> {
+            if (result == TeleportResult.SUCCESS) {
+                long cooldownMillis = cooldowns.resolve(player);
+                if (cooldownMillis > 0) {
+                    cooldownEnds.put(player.getUniqueId(), clock.getAsLong() + cooldownMillis);
+                }
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package me.axeno.hommr.teleport;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel counting in ticks.
+ * <p>
+ * Timeouts are hashed by deadline into a fixed ring of slots, each holding a doubly linked list, so scheduling and
+ * cancelling are constant time and {@link #advance(Consumer)} only visits the slot of the current tick. Timeouts
+ * further away than one turn of the wheel wait for as many turns in their slot. Not thread-safe.
+ *
+ * @param <T> the type of the scheduled items
+ */
+final class TimingWheel<T> {
+
+    /**
+     * A scheduled item, which may be cancelled until it expires.
+     */
+    final class Timeout {
+        private final T item;
+        private final long deadline;
+        private long remainingRounds;
+        private Timeout previous;
+        private Timeout next;
+        private int slot = -1;
+
+        private Timeout(T item, long deadline, long remainingRounds) {
+            this.item = item;
+            this.deadline = deadline;
+            this.remainingRounds = remainingRounds;
+        }
+
+        /**
+         * @return the number of ticks left before the item expires, `0` once it expired or was cancelled
+         */
+        long remainingTicks() {
+            return slot < 0 ? 0 : deadline - tick;
+        }
+
+        /**
+         * Removes the item from the wheel.
+         *
+         * @return `true` if it was cancelled, `false` if it had already expired or been cancelled
+         */
+        boolean cancel() {
+            if (slot < 0) {
+                return false;
+            }
+            unlink(this);
+            return true;
+        }
+    }
+
+    private final Timeout[] heads;
+    private final Timeout[] tails;
+    private final int mask;
+    private long tick;
+    private int size;
+
+    /**
+     * @param slotCount the number of slots, rounded up to a power of two; one turn of the wheel lasts as many ticks
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(int slotCount) {
+        int length = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.heads = (Timeout[]) new TimingWheel<?>.Timeout[length];
+        this.tails = (Timeout[]) new TimingWheel<?>.Timeout[length];
+        this.mask = length - 1;
+    }
+
+    /**
+     * Schedules an item.
+     *
+     * @param item       the item
+     * @param delayTicks the number of calls to {@link #advance(Consumer)} after which the item expires, at least `1`
+     * @return the timeout of the item
+     */
+    Timeout schedule(T item, long delayTicks) {
+        long delay = Math.max(1, delayTicks);
+        long deadline = tick + delay;
+        Timeout timeout = new Timeout(item, deadline, (delay - 1) / heads.length);
+        link(timeout, (int) (deadline & mask));
+        return timeout;
+    }
+
+    /**
+     * Moves to the next tick and expires the items due.
+     *
+     * @param expired receives the items due, in the order they were scheduled
+     */
+    void advance(Consumer<T> expired) {
+        tick++;
+        Timeout timeout = heads[(int) (tick & mask)];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds == 0) {
+                unlink(timeout);
+                expired.accept(timeout.item);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * @return the number of scheduled items
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every item.
+     */
+    void clear() {
+        for (int i = 0; i < heads.length; i++) {
+            Timeout timeout = heads[i];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.slot = -1;
+                timeout.previous = null;
+                timeout.next = null;
+                timeout = next;
+            }
+            heads[i] = null;
+            tails[i] = null;
+        }
+        size = 0;
+    }
+
+    private void link(Timeout timeout, int slot) {
+        // Appended at the tail so that items due at the same tick expire in scheduling order
+        timeout.slot = slot;
+        Timeout tail = tails[slot];
+        if (tail == null) {
+            heads[slot] = timeout;
+        } else {
+            tail.next = timeout;
+            timeout.previous = tail;
+        }
+        tails[slot] = timeout;
+        size++;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            heads[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        } else {
+            tails[timeout.slot] = timeout.previous;
+        }
+        timeout.slot = -1;
+        timeout.previous = null;
+        timeout.next = null;
+        size--;
+    }
+}
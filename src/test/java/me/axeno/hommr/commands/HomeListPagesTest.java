@@ -0,0 +1,79 @@
+package me.axeno.hommr.commands;
+
+import me.axeno.hommr.models.Home;
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeListPagesTest {
+
+    private final UUID owner = UUID.randomUUID();
+
+    @Test
+    void testPagesAreRenderedOnceUntilTheHomesChange() {
+        HomeListPages pages = new HomeListPages();
+        Map<String, Home> homes = createHomes(25);
+
+        Component first = pages.getPage(owner, homes, HomeSort.NAME, 1);
+
+        assertSame(first, pages.getPage(owner, homes, HomeSort.NAME, 1));
+        assertNotSame(first, pages.getPage(owner, new TreeMap<>(homes), HomeSort.NAME, 1));
+    }
+
+    @Test
+    void testPageIsBroughtBackWithinTheList() {
+        HomeListPages pages = new HomeListPages();
+        Map<String, Home> homes = createHomes(25);
+
+        assertEquals(3, HomeListPages.getPageCount(25));
+        assertEquals(1, HomeListPages.getPageCount(0));
+        assertSame(pages.getPage(owner, homes, HomeSort.NAME, 3), pages.getPage(owner, homes, HomeSort.NAME, 99));
+        assertSame(pages.getPage(owner, homes, HomeSort.NAME, 1), pages.getPage(owner, homes, HomeSort.NAME, -1));
+    }
+
+    @Test
+    void testSortsAreStableOverTheNames() {
+        HomeListPages pages = new HomeListPages();
+        Map<String, Home> homes = new TreeMap<>();
+        homes.put("alpha", createHome("alpha", "world_nether", 300L));
+        homes.put("beta", createHome("beta", "world", 100L));
+        homes.put("gamma", createHome("gamma", "world_nether", 100L));
+
+        assertEquals(List.of("alpha", "beta", "gamma"), names(pages.sorted(owner, homes, HomeSort.NAME)));
+        assertEquals(List.of("beta", "alpha", "gamma"), names(pages.sorted(owner, homes, HomeSort.WORLD)));
+        assertEquals(List.of("beta", "gamma", "alpha"), names(pages.sorted(owner, homes, HomeSort.CREATED)));
+    }
+
+    @Test
+    void testLeastRecentlyListedPlayersAreDropped() {
+        HomeListPages pages = new HomeListPages();
+        Map<String, Home> homes = createHomes(1);
+
+        for (int i = 0; i < HomeListPages.MAX_CACHED_PLAYERS + 10; i++) {
+            pages.getPage(UUID.randomUUID(), homes, HomeSort.NAME, 1);
+        }
+
+        assertEquals(HomeListPages.MAX_CACHED_PLAYERS, pages.size());
+    }
+
+    // Helper methods
+    private Map<String, Home> createHomes(int count) {
+        Map<String, Home> homes = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = String.format("home%03d", i);
+            homes.put(name, createHome(name, "world", i));
+        }
+        return homes;
+    }
+
+    private Home createHome(String name, String world, long createdAt) {
+        return new Home(0, owner, name, world, 0, 64, 0, 0f, 0f, createdAt);
+    }
+
+    private List<String> names(Home[] homes) {
+        return Arrays.stream(homes).map(Home::getName).toList();
+    }
+}
@@ -0,0 +1,114 @@
+package me.axeno.hommr.limits;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HomeLimitsTest {
+
+    private long now = 1_000_000L;
+
+    @Test
+    void testHighestLimitApplies() {
+        HomeLimits limits = createLimits();
+        Player vip = createPlayer("hommr.limits.vip");
+        Player numeric = createPlayer("hommr.homes.7", "hommr.homes.4");
+        Player unlimited = createPlayer("hommr.limits.vip", "hommr.homes.unlimited");
+
+        assertEquals(3, limits.get(UUID.randomUUID(), createPlayer()).total());
+        assertEquals(10, limits.get(UUID.randomUUID(), vip).total());
+        assertEquals(7, limits.get(UUID.randomUUID(), numeric).total());
+        assertEquals(HomeLimits.UNLIMITED, limits.get(UUID.randomUUID(), unlimited).total());
+    }
+
+    @Test
+    void testWorldLimitsAreResolvedWithTheirOwnGroups() {
+        HomeLimits limits = createLimits();
+        Player builder = createPlayer("hommr.limits.builder");
+        Player numeric = createPlayer("hommr.homes.world_nether.4");
+
+        HomeLimits.Limit limit = limits.get(UUID.randomUUID(), createPlayer());
+        assertEquals(1, limit.forWorld("world_nether"));
+        assertEquals(HomeLimits.UNLIMITED, limit.forWorld("world"));
+        assertEquals(5, limits.get(UUID.randomUUID(), builder).forWorld("world_nether"));
+        assertEquals(4, limits.get(UUID.randomUUID(), numeric).forWorld("world_nether"));
+        assertEquals(3, limits.get(UUID.randomUUID(), numeric).total());
+    }
+
+    @Test
+    void testWorldNamesMatchPermissionsInAnyCase() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("limits.worlds.Spawn.default", 1);
+        HomeLimits limits = HomeLimits.fromConfig(config.getConfigurationSection("limits"), () -> now);
+        Player player = createPlayer("hommr.homes.spawn.3");
+
+        HomeLimits.Limit limit = limits.get(UUID.randomUUID(), player);
+
+        assertEquals(3, limit.forWorld("Spawn"));
+        assertEquals(3, limit.forWorld("spawn"));
+        assertEquals(1, limits.getCached(UUID.randomUUID()).forWorld("Spawn"));
+    }
+
+    @Test
+    void testLimitIsCachedUntilInvalidatedOrExpired() {
+        HomeLimits limits = createLimits();
+        UUID playerId = UUID.randomUUID();
+        Player player = createPlayer();
+
+        assertEquals(3, limits.get(playerId, player).total());
+        when(player.hasPermission("hommr.limits.vip")).thenReturn(true);
+        assertEquals(3, limits.get(playerId, player).total());
+        assertEquals(3, limits.getCached(playerId).total());
+
+        limits.invalidate(playerId);
+        assertEquals(10, limits.get(playerId, player).total());
+
+        when(player.hasPermission("hommr.limits.vip")).thenReturn(false);
+        now += 60_000;
+        assertEquals(3, limits.get(playerId, player).total());
+        verify(player, times(3)).getEffectivePermissions();
+    }
+
+    @Test
+    void testUncachedPlayersGetTheDefaults() {
+        HomeLimits limits = createLimits();
+
+        HomeLimits.Limit limit = limits.getCached(UUID.randomUUID());
+
+        assertEquals(3, limit.total());
+        assertEquals(1, limit.forWorld("world_nether"));
+        assertEquals(HomeLimits.UNLIMITED, HomeLimits.fromConfig(null).getCached(UUID.randomUUID()).total());
+    }
+
+    // Helper methods
+    private HomeLimits createLimits() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("limits.default", 3);
+        config.set("limits.groups.vip", 10);
+        config.set("limits.worlds.world_nether.default", 1);
+        config.set("limits.worlds.world_nether.groups.builder", 5);
+        config.set("limits.cache-seconds", 60);
+        return HomeLimits.fromConfig(config.getConfigurationSection("limits"), () -> now);
+    }
+
+    private Player createPlayer(String... permissions) {
+        Player player = mock(Player.class);
+        Set<PermissionAttachmentInfo> effective = Arrays.stream(permissions)
+                .map(permission -> new PermissionAttachmentInfo(player, permission, null, true))
+                .collect(Collectors.toSet());
+        when(player.getEffectivePermissions()).thenReturn(effective);
+        for (String permission : permissions) {
+            when(player.hasPermission(permission)).thenReturn(true);
+        }
+        return player;
+    }
+}
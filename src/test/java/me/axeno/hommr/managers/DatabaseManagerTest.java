@@ -2,6 +2,9 @@ package me.axeno.hommr.managers;
 
 import me.axeno.hommr.Hommr;
 import me.axeno.hommr.models.Home;
+import me.axeno.hommr.storage.ChangeCursor;
+import me.axeno.hommr.storage.HomeChange;
+import me.axeno.hommr.storage.HomeStorage;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +19,7 @@ import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Logger;
 
@@ -42,16 +46,16 @@ class DatabaseManagerTest {
 
     @BeforeEach
     void setUp() throws SQLException {
-        // Use SQLite in-memory database for testing
-        databaseManager = new DatabaseManager();
-        databaseManager.init("jdbc:sqlite::memory:", "", "");
-
         hommrMockedStatic = mockStatic(Hommr.class);
         hommrMockedStatic.when(Hommr::getInstance).thenReturn(mockPlugin);
 
         lenient().when(mockPlugin.getDataFolder()).thenReturn(tempDir.toFile());
         lenient().when(mockPlugin.getConfig()).thenReturn(mockConfig);
         lenient().when(mockPlugin.getLogger()).thenReturn(mockLogger);
+
+        // Use SQLite in-memory database for testing
+        databaseManager = new DatabaseManager();
+        databaseManager.init("jdbc:sqlite::memory:", "", "");
     }
 
     @AfterEach
@@ -66,7 +70,18 @@ class DatabaseManagerTest {
 
     @Test
     void testInitWithSQLiteCreatesDatabase() {
-        assertNotNull(databaseManager.getHomeDao());
+        assertNotNull(databaseManager.getHomeRepository());
+    }
+
+    @Test
+    void testStatementCacheIsEnabledUnlessConfigured() {
+        assertEquals("jdbc:mysql://localhost/hommr?cachePrepStmts=true&prepStmtCacheSize=256&prepStmtCacheSqlLimit=65536",
+                DatabaseManager.withStatementCache("jdbc:mysql://localhost/hommr"));
+        assertEquals("jdbc:mariadb://localhost/hommr?ssl=true&useServerPrepStmts=true&prepStmtCacheSize=256",
+                DatabaseManager.withStatementCache("jdbc:mariadb://localhost/hommr?ssl=true"));
+        assertEquals("jdbc:mysql://localhost/hommr?cachePrepStmts=false",
+                DatabaseManager.withStatementCache("jdbc:mysql://localhost/hommr?cachePrepStmts=false"));
+        assertEquals("jdbc:sqlite:homes.db", DatabaseManager.withStatementCache("jdbc:sqlite:homes.db"));
     }
 
     @Test
@@ -131,6 +146,168 @@ class DatabaseManagerTest {
         assertEquals(-30.0f, retrievedHome.getPitch());
     }
 
+    @Test
+    void testSaveChangesOnlyTouchesChangedRows() throws SQLException {
+        UUID ownerId = UUID.randomUUID();
+        List<Home> initial = new ArrayList<>();
+        initial.add(createTestHome(ownerId, "home1"));
+        initial.add(createTestHome(ownerId, "home2"));
+        initial.add(createTestHome(UUID.randomUUID(), "other"));
+        databaseManager.saveAllHomes(initial);
+
+        Home moved = createTestHome(ownerId, "home1");
+        moved.setX(500.0);
+        Home added = createTestHome(ownerId, "home3");
+
+        databaseManager.saveChanges(List.of(moved, added), List.of(createTestHome(ownerId, "home2")));
+
+        List<Home> retrievedHomes = databaseManager.getAllHomes();
+
+        assertEquals(3, retrievedHomes.size());
+        assertTrue(retrievedHomes.stream().anyMatch(h -> h.getName().equals("home1") && h.getX() == 500.0));
+        assertTrue(retrievedHomes.stream().anyMatch(h -> h.getName().equals("home3")));
+        assertTrue(retrievedHomes.stream().anyMatch(h -> h.getName().equals("other")));
+        assertTrue(retrievedHomes.stream().noneMatch(h -> h.getName().equals("home2")));
+    }
+
+    @Test
+    void testSaveChangesUpdateDoesNotDuplicateRow() throws SQLException {
+        UUID ownerId = UUID.randomUUID();
+        databaseManager.saveChanges(List.of(createTestHome(ownerId, "home1")), List.of());
+        databaseManager.saveChanges(List.of(createTestHome(ownerId, "home1")), List.of());
+
+        assertEquals(1, databaseManager.getAllHomes().size());
+    }
+
+    @Test
+    void testGetHomesByOwnerReturnsOnlyOwnerHomes() throws SQLException {
+        UUID ownerId = UUID.randomUUID();
+        List<Home> homes = new ArrayList<>();
+        homes.add(createTestHome(ownerId, "home1"));
+        homes.add(createTestHome(ownerId, "home2"));
+        homes.add(createTestHome(UUID.randomUUID(), "other"));
+        databaseManager.saveAllHomes(homes);
+
+        List<Home> ownerHomes = databaseManager.getHomesByOwner(ownerId);
+
+        assertEquals(2, ownerHomes.size());
+        assertTrue(ownerHomes.stream().allMatch(h -> h.getOwner().equals(ownerId)));
+    }
+
+    @Test
+    void testUpsertAndDeleteBatchThroughStorageInterface() throws SQLException {
+        UUID ownerId = UUID.randomUUID();
+        databaseManager.upsertBatch(List.of(createTestHome(ownerId, "home1"), createTestHome(ownerId, "home2")));
+        databaseManager.deleteBatch(List.of(createTestHome(ownerId, "home1")));
+
+        List<Home> ownerHomes = databaseManager.loadByOwner(ownerId);
+
+        assertEquals(1, ownerHomes.size());
+        assertEquals("home2", ownerHomes.getFirst().getName());
+        assertEquals(1, databaseManager.loadAll().size());
+    }
+
+    @Test
+    void testCountGroupsByWorldAndOwner() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        Home nether = createTestHome(owner, "nether");
+        nether.setWorld("world_nether");
+        databaseManager.saveAllHomes(List.of(
+                createTestHome(owner, "home1"),
+                createTestHome(owner, "home2"),
+                nether,
+                createTestHome(UUID.randomUUID(), "home1")
+        ));
+
+        HomeStorage.Counts counts = databaseManager.count();
+
+        assertEquals(Map.of("world", 3L, "world_nether", 1L), counts.homesPerWorld());
+        assertEquals(2, counts.owners());
+    }
+
+    @Test
+    void testChangesOfOneServerArePolledByAnother() throws Exception {
+        DatabaseManager first = openShared();
+        DatabaseManager second = openShared();
+        try {
+            ChangeCursor cursor = second.openChangeCursor();
+            UUID owner = UUID.randomUUID();
+
+            first.saveChanges(List.of(createTestHome(owner, "home1")), List.of());
+
+            List<HomeChange> changes = second.pollChanges(cursor, 100);
+            assertEquals(1, changes.size());
+            assertEquals(owner, changes.getFirst().owner());
+            assertEquals("home1", changes.getFirst().name());
+            assertEquals(first.getNodeId(), changes.getFirst().node());
+            assertNotEquals(first.getNodeId(), second.getNodeId());
+            assertTrue(second.pollChanges(cursor, 100).isEmpty());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testConcurrentUpdateIsRejected() throws Exception {
+        DatabaseManager first = openShared();
+        DatabaseManager second = openShared();
+        try {
+            UUID owner = UUID.randomUUID();
+            assertTrue(first.saveChangesIfUnchanged(List.of(createTestHome(owner, "home1")), List.of()).isEmpty());
+
+            Home seenByFirst = first.loadByOwner(owner).getFirst();
+            Home seenBySecond = second.loadByOwner(owner).getFirst();
+            assertEquals(1, seenByFirst.getVersion());
+
+            seenByFirst.setX(1.0);
+            assertTrue(first.saveChangesIfUnchanged(List.of(seenByFirst), List.of()).isEmpty());
+            seenBySecond.setX(2.0);
+            assertEquals(List.of(seenBySecond), second.saveChangesIfUnchanged(List.of(seenBySecond), List.of()));
+            assertEquals(List.of(seenBySecond), second.saveChangesIfUnchanged(List.of(), List.of(seenBySecond)));
+
+            Home stored = second.loadByOwner(owner).getFirst();
+            assertEquals(1.0, stored.getX());
+            assertEquals(2, stored.getVersion());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testConcurrentCreationIsRejected() throws Exception {
+        DatabaseManager first = openShared();
+        DatabaseManager second = openShared();
+        try {
+            UUID owner = UUID.randomUUID();
+            Home created = createTestHome(owner, "home1");
+            Home createdElsewhere = createTestHome(owner, "Home1");
+
+            assertTrue(first.saveChangesIfUnchanged(List.of(created), List.of()).isEmpty());
+            assertEquals(List.of(createdElsewhere), second.saveChangesIfUnchanged(List.of(createdElsewhere), List.of()));
+            assertEquals(1, second.loadByOwner(owner).size());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    void testPruneChanges() throws Exception {
+        DatabaseManager shared = openShared();
+        try {
+            ChangeCursor cursor = new ChangeCursor(0, 1000);
+            shared.saveChanges(List.of(createTestHome(UUID.randomUUID(), "home1")), List.of());
+
+            assertEquals(0, shared.pruneChanges(0));
+            assertEquals(1, shared.pruneChanges(System.currentTimeMillis() + 1));
+            assertTrue(shared.pollChanges(cursor, 100).isEmpty());
+        } finally {
+            shared.close();
+        }
+    }
+
     @Test
     void testCloseDoesNotThrowException() {
         assertDoesNotThrow(() -> databaseManager.close());
@@ -138,6 +315,18 @@ class DatabaseManagerTest {
 
 
     // Helper methods
+
+    /**
+     * Opens a database manager on a database file shared with the other managers opened by the test, as a
+     * server sharing its database with others would.
+     */
+    private DatabaseManager openShared() {
+        DatabaseManager manager = new DatabaseManager();
+        manager.init("jdbc:sqlite:" + tempDir.resolve("shared.db"), "", "");
+        manager.getHomeRepository().setChangeLogEnabled(true);
+        return manager;
+    }
+
     private Home createTestHome(UUID owner, String name) {
         return new Home(
             0,
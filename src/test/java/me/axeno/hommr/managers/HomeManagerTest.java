@@ -3,24 +3,43 @@ package me.axeno.hommr.managers;
 import me.axeno.hommr.Hommr;
 import me.axeno.hommr.events.HomeDeleteEvent;
 import me.axeno.hommr.events.HomeSetEvent;
+import me.axeno.hommr.events.HomeTeleportEvent;
+import me.axeno.hommr.metrics.HomeCounters;
+import me.axeno.hommr.metrics.HommrMetrics;
 import me.axeno.hommr.models.Home;
+import me.axeno.hommr.storage.ChangeCursor;
+import me.axeno.hommr.storage.FileHomeStorage;
+import me.axeno.hommr.storage.HomeChange;
+import me.axeno.hommr.storage.HomeJournal;
+import me.axeno.hommr.storage.HomeStorage;
+import me.axeno.hommr.storage.SharedHomeStorage;
+import me.axeno.hommr.teleport.TeleportResult;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.PluginManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.File;
 import java.lang.reflect.Field;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,13 +63,20 @@ class HomeManagerTest {
     @Mock
     private Logger mockLogger;
 
+    @TempDir
+    Path tempDir;
+
     private UUID testPlayerId;
 
+    private YamlConfiguration config;
+
     private MockedStatic<Bukkit> bukkitMockedStatic;
 
     @BeforeEach
     void setUp() throws Exception {
         testPlayerId = UUID.randomUUID();
+        config = new YamlConfiguration();
+        config.set("journal.enabled", false);
 
         bukkitMockedStatic = mockStatic(Bukkit.class);
         bukkitMockedStatic.when(Bukkit::getPluginManager).thenReturn(mockPluginManager);
@@ -64,7 +90,8 @@ class HomeManagerTest {
     }
 
     @AfterEach
-    void tearDown() {
+    void tearDown() throws Exception {
+        closeJournal();
         if (bukkitMockedStatic != null) {
             bukkitMockedStatic.close();
         }
@@ -86,6 +113,79 @@ class HomeManagerTest {
         }
     }
 
+    @Test
+    void testSetHomeStopsAtTheMaxHomes() throws Exception {
+        config.set("limits.default", 2);
+        config.set("limits.groups.vip", 3);
+        config.set("limits.worlds.world.default", 1);
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+            World otherWorld = mock(World.class);
+            when(otherWorld.getName()).thenReturn("other");
+
+            assertTrue(HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 0, 64, 0)));
+            assertFalse(HomeManager.setHome(mockPlayer, "home2", new Location(mockWorld, 10, 64, 0)));
+            assertTrue(HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 20, 64, 0)));
+            assertTrue(HomeManager.setHome(mockPlayer, "home2", new Location(otherWorld, 10, 64, 0)));
+            assertFalse(HomeManager.setHome(mockPlayer, "home3", new Location(otherWorld, 20, 64, 0)));
+
+            when(mockPlayer.hasPermission("hommr.limits.vip")).thenReturn(true);
+            assertEquals(2, HomeManager.getMaxHomes(mockPlayer));
+            HomeManager.invalidateMaxHomes(testPlayerId);
+            assertEquals(3, HomeManager.getMaxHomes(mockPlayer));
+            assertEquals(1, HomeManager.getMaxHomes(mockPlayer, "world"));
+            assertTrue(HomeManager.setHome(mockPlayer, "home3", new Location(otherWorld, 20, 64, 0)));
+        }
+    }
+
+    @Test
+    void testSetHomeAndDeleteHomeAreCounted() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+            long set = HommrMetrics.HOMES_SET.sum();
+            long deleted = HommrMetrics.HOMES_DELETED.sum();
+
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 100.0, 64.0, 200.0));
+            HomeManager.deleteHome(mockPlayer, "home1");
+
+            assertEquals(set + 1, HommrMetrics.HOMES_SET.sum());
+            assertEquals(deleted + 1, HommrMetrics.HOMES_DELETED.sum());
+            assertTrue(HommrMetrics.EVENT_DISPATCH.snapshot().count() >= 2);
+        }
+    }
+
+    @Test
+    void testHomeCountersAreSeededAndMaintained() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            when(getStorage().count()).thenReturn(new HomeStorage.Counts(Map.of("world", 10L, "world_nether", 2L), 5));
+            HomeManager.init();
+
+            HomeCounters counters = HomeManager.getHomeCounters();
+            assertEquals(12, counters.getTotalHomes());
+            assertEquals(5, counters.getActiveOwners());
+
+            World nether = mock(World.class);
+            when(nether.getName()).thenReturn("world_nether");
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 0.0, 64.0, 0.0));
+            HomeManager.setHome(mockPlayer, "home2", new Location(mockWorld, 0.0, 64.0, 0.0));
+            HomeManager.setHome(mockPlayer, "home2", new Location(nether, 0.0, 64.0, 0.0));
+
+            assertEquals(14, counters.getTotalHomes());
+            assertEquals(6, counters.getActiveOwners());
+            assertEquals(Map.of("world", 11L, "world_nether", 3L), counters.getHomesPerWorld());
+
+            HomeManager.deleteHome(mockPlayer, "home1");
+            HomeManager.deleteHome(mockPlayer, "home2");
+
+            assertEquals(12, counters.getTotalHomes());
+            assertEquals(5, counters.getActiveOwners());
+            assertEquals(2, counters.getHomes("world_nether"));
+        }
+    }
+
     @Test
     void testSetHomeFiresEvent() throws Exception {
         try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
@@ -189,23 +289,502 @@ class HomeManagerTest {
         }
     }
 
+    @Test
+    void testFlushChangesPersistsOnlyDelta() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 0, 0, 0));
+            HomeManager.setHome(mockPlayer, "home2", new Location(mockWorld, 0, 0, 0));
+            HomeManager.deleteHome(mockPlayer, "home2");
+
+            assertEquals(2, HomeManager.flushChanges());
+
+            HomeStorage storage = getStorage();
+            verify(storage).saveChanges(
+                argThat(upserts -> upserts.size() == 1 && upserts.getFirst().getName().equals("home1")),
+                argThat(deletions -> deletions.size() == 1 && deletions.getFirst().getName().equals("home2")));
+
+            assertEquals(0, HomeManager.flushChanges());
+            verify(storage, never()).upsertBatch(any());
+        }
+    }
+
+    @Test
+    void testFlushChangesRetriesAfterFailure() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            HomeStorage storage = getStorage();
+            doThrow(new SQLException("boom")).doNothing().when(storage).saveChanges(any(), any());
+
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 0, 0, 0));
+
+            assertEquals(0, HomeManager.flushChanges());
+            assertEquals(1, HomeManager.flushChanges());
+        }
+    }
+
+    @Test
+    void testFlushChangesWritesBoundedBatches() throws Exception {
+        config.set("autosave.max-batch-size", 2);
+
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            HomeStorage storage = getStorage();
+            doNothing().doThrow(new SQLException("boom")).doNothing().when(storage).saveChanges(any(), any());
+
+            for (int i = 1; i <= 3; i++) {
+                HomeManager.setHome(mockPlayer, "home" + i, new Location(mockWorld, i, 0, 0));
+            }
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 10, 0, 0));
+
+            assertEquals(2, HomeManager.flushChanges());
+            assertEquals(1, HomeManager.flushChanges());
+            assertEquals(0, HomeManager.flushChanges());
+
+            verify(storage, times(3)).saveChanges(argThat(upserts -> upserts.size() <= 2), any());
+        }
+    }
+
+    @Test
+    void testSnapshotWrittenOnShutdownFillsCacheOnInit() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 10, 64, 10));
+            HomeManager.shutdown();
+            assertTrue(tempDir.resolve("homes.snapshot").toFile().isFile());
+
+            resetHomeManager();
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            // The storage mock holds no home: only the snapshot can provide it
+            assertTrue(HomeManager.hasHome(testPlayerId, "home1"));
+            assertFalse(tempDir.resolve("homes.snapshot").toFile().exists());
+        }
+    }
+
+    @Test
+    void testReconcileAppliesStorageChangesExceptLocalOnes() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 10, 64, 10));
+            HomeManager.setHome(mockPlayer, "home2", new Location(mockWorld, 20, 64, 20));
+            HomeManager.flushChanges();
+            HomeManager.setHome(mockPlayer, "home2", new Location(mockWorld, 30, 64, 30));
+
+            UUID otherPlayer = UUID.randomUUID();
+            Map<UUID, List<Home>> differing = HomeManager.diffSnapshot(List.of(
+                new Home(0, testPlayerId, "home2", "world", 0, 0, 0, 0f, 0f, 0L),
+                new Home(0, otherPlayer, "base", "world", 0, 0, 0, 0f, 0f, 0L)));
+            int changed = HomeManager.reconcile(differing.entrySet());
+
+            assertEquals(2, changed);
+            assertFalse(HomeManager.hasHome(testPlayerId, "home1"));
+            assertEquals(30.0, HomeManager.getHome(testPlayerId, "home2").orElseThrow().getX());
+            assertTrue(HomeManager.hasHome(otherPlayer, "base"));
+        }
+    }
+
+    @Test
+    void testSnapshotDiffOnlyKeepsOwnersThatDiffer() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 10, 64, 10));
+            HomeManager.flushChanges();
+
+            UUID otherPlayer = UUID.randomUUID();
+            List<Home> persisted = new ArrayList<>(HomeManager.getHomes(testPlayerId).values());
+            persisted.add(new Home(0, otherPlayer, "base", "world", 0, 0, 0, 0f, 0f, 0L));
+
+            assertEquals(Set.of(otherPlayer), HomeManager.diffSnapshot(persisted).keySet());
+        }
+    }
+
+    @Test
+    void testWarmStartOnFileStorageFindsNothingToReconcile() throws Exception {
+        Path directory = tempDir.resolve("homes");
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            FileHomeStorage storage = new FileHomeStorage(directory);
+            storage.init();
+            setStorage(storage);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 10, 64, 10));
+            HomeManager.flushChanges();
+            HomeManager.shutdown();
+
+            resetHomeManager();
+            setupHommrMock(hommrMock);
+            FileHomeStorage reopened = new FileHomeStorage(directory);
+            setStorage(reopened);
+            HomeManager.init();
+
+            // The file storage keeps no version, while the snapshot holds the version of the flushed home
+            assertTrue(HomeManager.hasHome(testPlayerId, "home1"));
+            assertEquals(Map.of(), HomeManager.diffSnapshot(reopened.loadAll()));
+        }
+    }
+
+    @Test
+    void testJournalReplaysUnsavedChangesOnInit() throws Exception {
+        config.set("journal.enabled", true);
+
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            HomeStorage storage = getStorage();
+            doThrow(new SQLException("down")).when(storage).saveChanges(any(), any());
+
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 10, 64, 10));
+            HomeManager.setHome(mockPlayer, "home2", new Location(mockWorld, 20, 64, 20));
+            HomeManager.deleteHome(mockPlayer, "home2");
+
+            // Simulate a crash: the writer is stopped but nothing reached the database
+            closeJournal();
+            resetHomeManager();
+
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            assertTrue(HomeManager.hasHome(testPlayerId, "home1"));
+            assertFalse(HomeManager.hasHome(testPlayerId, "home2"));
+            verify(getStorage()).saveChanges(
+                argThat(upserts -> upserts.size() == 1 && upserts.getFirst().getName().equals("home1")),
+                any());
+
+            File[] segments = tempDir.resolve("journal").toFile().listFiles();
+            assertNotNull(segments);
+            assertTrue(Arrays.stream(segments).allMatch(file -> file.length() == 0));
+        }
+    }
+
+    @Test
+    void testLazyLoadingSkipsLoadAllAndLoadsOnPreLogin() throws Exception {
+        config.set("cache.lazy-loading", true);
+
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            bukkitMockedStatic.when(Bukkit::getOnlinePlayers).thenReturn(List.of());
+
+            HomeStorage storage = getStorage();
+            Home stored = new Home(1, testPlayerId, "base", "world", 1, 2, 3, 0, 0, 0);
+            when(storage.loadByOwner(testPlayerId)).thenReturn(List.of(stored));
+
+            HomeManager.init();
+
+            verify(storage, never()).loadAll();
+            assertFalse(HomeManager.hasHome(testPlayerId, "base"));
+
+            HomeManager.handlePreLogin(testPlayerId);
+
+            assertTrue(HomeManager.hasHome(testPlayerId, "base"));
+            verify(storage).loadByOwner(testPlayerId);
+        }
+    }
+
+    @Test
+    void testLazyLoadingEvictsOnQuitOnceFlushed() throws Exception {
+        config.set("cache.lazy-loading", true);
+        config.set("cache.max-offline-players", 0);
+
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            bukkitMockedStatic.when(Bukkit::getOnlinePlayers).thenReturn(List.of());
+            HomeManager.init();
+
+            HomeManager.handlePreLogin(testPlayerId);
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 0, 0, 0));
+
+            HomeManager.handleQuit(testPlayerId);
+            assertTrue(HomeManager.getPlayerHomesCache().containsKey(testPlayerId));
+
+            HomeManager.flushChanges();
+            assertFalse(HomeManager.getPlayerHomesCache().containsKey(testPlayerId));
+        }
+    }
+
+    @Test
+    void testLazyLoadingKeepsMostRecentlyUsedOfflinePlayers() throws Exception {
+        config.set("cache.lazy-loading", true);
+        config.set("cache.max-offline-players", 1);
+
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            bukkitMockedStatic.when(Bukkit::getOnlinePlayers).thenReturn(List.of());
+            HomeManager.init();
+
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            HomeManager.handlePreLogin(first);
+            HomeManager.handlePreLogin(second);
+            HomeManager.handlePreLogin(testPlayerId);
+
+            HomeManager.handleQuit(first);
+            HomeManager.handleQuit(second);
+
+            assertFalse(HomeManager.getPlayerHomesCache().containsKey(first));
+            assertTrue(HomeManager.getPlayerHomesCache().containsKey(second));
+            assertTrue(HomeManager.getPlayerHomesCache().containsKey(testPlayerId));
+        }
+    }
+
+    @Test
+    void testBackgroundLoadingServesJoiningPlayersFirst() throws Exception {
+        config.set("cache.background-loading", true);
+        setPluginInstance(mockPlugin);
+        try {
+            UUID otherPlayer = UUID.randomUUID();
+            CountDownLatch release = new CountDownLatch(1);
+            HomeStorage storage = mock(HomeStorage.class);
+            when(storage.loadAll()).thenAnswer(invocation -> {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+                return List.of(new Home(0, otherPlayer, "base", "world", 0, 0, 0, 0f, 0f, 0L));
+            });
+            when(storage.loadByOwner(testPlayerId)).thenReturn(
+                    List.of(new Home(0, testPlayerId, "base", "world", 1, 2, 3, 0f, 0f, 0L)));
+            setStorage(storage);
+
+            HomeManager.init();
+
+            assertFalse(HomeManager.isReady());
+            assertFalse(HomeManager.isReady(testPlayerId));
+
+            HomeManager.handlePreLogin(testPlayerId);
+
+            assertFalse(HomeManager.isReady());
+            assertTrue(HomeManager.isReady(testPlayerId));
+            assertTrue(HomeManager.hasHome(testPlayerId, "base"));
+
+            release.countDown();
+            HomeManager.whenReady().get(5, TimeUnit.SECONDS);
+
+            assertTrue(HomeManager.isReady());
+            assertTrue(HomeManager.hasHome(otherPlayer, "base"));
+        } finally {
+            setPluginInstance(null);
+        }
+    }
+
+    @Test
+    void testBackgroundLoadingReportsStorageFailure() throws Exception {
+        config.set("cache.background-loading", true);
+        config.set("storage.backend", "unknown");
+        setPluginInstance(mockPlugin);
+        try {
+            HomeManager.init();
+
+            assertThrows(ExecutionException.class, () -> HomeManager.whenReady().get(5, TimeUnit.SECONDS));
+            assertTrue(HomeManager.isLoadFailed());
+            assertFalse(HomeManager.isReady(testPlayerId));
+        } finally {
+            setPluginInstance(null);
+        }
+    }
+
+    @Test
+    void testPollRefreshesOwnersChangedByOtherServers() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            config.set("coherence.enabled", true);
+            SharedHomeStorage storage = mockSharedStorage();
+            UUID otherPlayer = UUID.randomUUID();
+            when(storage.pollChanges(any(), anyInt())).thenReturn(List.of(
+                    new HomeChange(1, otherPlayer, "base", "other-node"),
+                    new HomeChange(2, testPlayerId, "home1", "this-node")));
+            when(storage.loadByOwner(otherPlayer)).thenReturn(List.of(
+                    new Home(0, otherPlayer, "base", "world", 1.0, 64.0, 1.0, 0f, 0f, 0L)));
+            HomeManager.init();
+
+            assertEquals(1, HomeManager.pollRemoteChanges());
+
+            assertTrue(HomeManager.hasHome(otherPlayer, "base"));
+            assertEquals(1, HomeManager.getHomeCounters().getTotalHomes());
+            verify(storage, never()).loadByOwner(testPlayerId);
+        }
+    }
+
+    @Test
+    void testConflictingChangeIsReplacedByStoredHome() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            SharedHomeStorage storage = mockSharedStorage();
+            when(storage.saveChangesIfUnchanged(any(), any())).thenAnswer(invocation -> List.copyOf(invocation.<List<Home>>getArgument(0)));
+            when(storage.loadByOwner(testPlayerId)).thenReturn(List.of(
+                    new Home(0, testPlayerId, "home1", "world", 5.0, 64.0, 5.0, 0f, 0f, 0L)));
+            HomeManager.init();
+
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 100.0, 64.0, 200.0));
+            HomeManager.flushChanges();
+
+            assertEquals(5.0, HomeManager.getHome(testPlayerId, "home1").orElseThrow().getX());
+            assertFalse(HomeManager.getPlayerHomesCache().get(testPlayerId).isDirty());
+        }
+    }
+
+    @Test
+    void testReadsDoNotCacheUnknownPlayers() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            HomeManager.init();
+
+            UUID unknown = UUID.randomUUID();
+
+            assertTrue(HomeManager.getHome(unknown, "home").isEmpty());
+            assertFalse(HomeManager.hasHome(unknown, "home"));
+            assertEquals(0, HomeManager.getHomeCount(unknown));
+            assertTrue(HomeManager.getHomeNames(unknown).isEmpty());
+            assertFalse(HomeManager.getPlayerHomesCache().containsKey(unknown));
+        }
+    }
+
+    @Test
+    void testTeleportWaitsForTheChunkOfTheHome() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            // Never queued, however slow the first calls to the mocks are
+            config.set("teleport.queue.tick-budget-millis", 1000.0);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 100.0, 64.0, 200.0));
+
+            CompletableFuture<Chunk> chunkLoad = new CompletableFuture<>();
+            when(mockWorld.getChunkAtAsync(any(Location.class))).thenReturn(chunkLoad);
+            when(mockPlayer.isOnline()).thenReturn(true);
+            when(mockPlayer.teleportAsync(any(Location.class))).thenReturn(CompletableFuture.completedFuture(true));
+
+            CompletableFuture<TeleportResult> teleport = HomeManager.teleportToHomeAsync(mockPlayer, "HOME1");
+
+            verify(mockPluginManager).callEvent(any(HomeTeleportEvent.class));
+            assertFalse(teleport.isDone());
+            verify(mockPlayer, never()).teleportAsync(any(Location.class));
+
+            chunkLoad.complete(mock(Chunk.class));
+
+            assertEquals(TeleportResult.SUCCESS, teleport.getNow(null));
+            ArgumentCaptor<Location> destination = ArgumentCaptor.forClass(Location.class);
+            verify(mockPlayer).teleportAsync(destination.capture());
+            assertEquals(100.0, destination.getValue().getX());
+        }
+    }
+
+    @Test
+    void testTeleportReportsWhyItDidNotHappen() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            // Never queued, however slow the first calls to the mocks are
+            config.set("teleport.queue.tick-budget-millis", 1000.0);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 100.0, 64.0, 200.0));
+
+            assertEquals(TeleportResult.HOME_NOT_FOUND, HomeManager.teleportToHomeAsync(mockPlayer, "missing").getNow(null));
+
+            doAnswer(invocation -> {
+                if (invocation.getArgument(0) instanceof HomeTeleportEvent event) {
+                    event.setCancelled(true);
+                }
+                return null;
+            }).when(mockPluginManager).callEvent(any());
+            assertEquals(TeleportResult.CANCELLED, HomeManager.teleportToHomeAsync(mockPlayer, "home1").getNow(null));
+            verify(mockWorld, never()).getChunkAtAsync(any(Location.class));
+
+            bukkitMockedStatic.when(() -> Bukkit.getWorld("world")).thenReturn(null);
+            assertEquals(TeleportResult.WORLD_NOT_FOUND, HomeManager.teleportToHomeAsync(mockPlayer, "home1").getNow(null));
+        }
+    }
+
+    @Test
+    void testTeleportsBeyondTheTickBudgetAreQueued() throws Exception {
+        try (MockedStatic<Hommr> hommrMock = mockStatic(Hommr.class)) {
+            setupHommrMock(hommrMock);
+            config.set("teleport.queue.max-per-tick", 1);
+            HomeManager.init();
+            HomeManager.setHome(mockPlayer, "home1", new Location(mockWorld, 100.0, 64.0, 200.0));
+            Player other = mock(Player.class);
+            UUID otherId = UUID.randomUUID();
+            when(other.getUniqueId()).thenReturn(otherId);
+            HomeManager.setHome(other, "base", new Location(mockWorld, -500.0, 64.0, 300.0));
+
+            when(mockWorld.getChunkAtAsync(any(Location.class))).thenReturn(new CompletableFuture<>());
+
+            HomeManager.teleportToHomeAsync(mockPlayer, "home1");
+            CompletableFuture<TeleportResult> queued = HomeManager.teleportToHomeAsync(other, "base");
+
+            assertFalse(queued.isDone());
+            assertEquals(0, HomeManager.getTeleportQueuePosition(testPlayerId));
+            assertEquals(1, HomeManager.getTeleportQueuePosition(otherId));
+            verify(mockWorld, times(1)).getChunkAtAsync(any(Location.class));
+
+            HomeManager.tickTeleports();
+
+            assertEquals(0, HomeManager.getTeleportQueuePosition(otherId));
+            verify(mockWorld, times(2)).getChunkAtAsync(any(Location.class));
+        }
+    }
+
     // Helper methods
-    private void setupHommrMock(MockedStatic<Hommr> hommrMock) throws SQLException {
-        DatabaseManager mockDbManager = mock(DatabaseManager.class);
-        lenient().when(mockDbManager.getAllHomes()).thenReturn(new ArrayList<>());
+    private HomeStorage getStorage() throws Exception {
+        Field dbField = HomeManager.class.getDeclaredField("storage");
+        dbField.setAccessible(true);
+        return (HomeStorage) dbField.get(null);
+    }
+
+    private void setupHommrMock(MockedStatic<Hommr> hommrMock) throws Exception {
+        HomeStorage mockStorage = mock(HomeStorage.class);
+        lenient().when(mockStorage.loadAll()).thenReturn(new ArrayList<>());
+        lenient().when(mockStorage.count()).thenReturn(new HomeStorage.Counts(Map.of(), 0));
 
         hommrMock.when(Hommr::getInstance).thenReturn(mockPlugin);
         lenient().when(mockPlugin.getLogger()).thenReturn(mockLogger);
+        lenient().when(mockPlugin.getConfig()).thenReturn(config);
+        lenient().when(mockPlugin.getDataFolder()).thenReturn(tempDir.toFile());
 
         try {
-            Field dbField = HomeManager.class.getDeclaredField("databaseManager");
+            Field dbField = HomeManager.class.getDeclaredField("storage");
             dbField.setAccessible(true);
-            dbField.set(null, mockDbManager);
+            dbField.set(null, mockStorage);
         } catch (Exception e) {
             // Ignore
         }
     }
 
+    private SharedHomeStorage mockSharedStorage() throws Exception {
+        SharedHomeStorage storage = mock(SharedHomeStorage.class);
+        lenient().when(storage.loadAll()).thenReturn(new ArrayList<>());
+        lenient().when(storage.count()).thenReturn(new HomeStorage.Counts(Map.of(), 0));
+        lenient().when(storage.getNodeId()).thenReturn("this-node");
+        lenient().when(storage.openChangeCursor()).thenReturn(new ChangeCursor(0, 1000));
+        setStorage(storage);
+        return storage;
+    }
+
+    private void setStorage(HomeStorage storage) throws Exception {
+        Field dbField = HomeManager.class.getDeclaredField("storage");
+        dbField.setAccessible(true);
+        dbField.set(null, storage);
+    }
+
+    /**
+     * Sets the plugin instance for every thread, unlike a static mock which only applies to the test thread.
+     */
+    private void setPluginInstance(Hommr plugin) throws Exception {
+        lenient().when(mockPlugin.getLogger()).thenReturn(mockLogger);
+        lenient().when(mockPlugin.getConfig()).thenReturn(config);
+        lenient().when(mockPlugin.getDataFolder()).thenReturn(tempDir.toFile());
+
+        Field instanceField = Hommr.class.getDeclaredField("instance");
+        instanceField.setAccessible(true);
+        instanceField.set(null, plugin);
+    }
+
     private void resetHomeManager() throws Exception {
         Field cacheField = HomeManager.class.getDeclaredField("playerHomesCache");
         cacheField.setAccessible(true);
@@ -213,8 +792,18 @@ class HomeManagerTest {
         Map<UUID, ?> cache = (Map<UUID, ?>) cacheField.get(null);
         cache.clear();
 
-        Field dbField = HomeManager.class.getDeclaredField("databaseManager");
+        Field dbField = HomeManager.class.getDeclaredField("storage");
         dbField.setAccessible(true);
         dbField.set(null, null);
     }
+
+    private void closeJournal() throws Exception {
+        Field journalField = HomeManager.class.getDeclaredField("journal");
+        journalField.setAccessible(true);
+        HomeJournal journal = (HomeJournal) journalField.get(null);
+        if (journal != null) {
+            journal.close();
+            journalField.set(null, null);
+        }
+    }
 }
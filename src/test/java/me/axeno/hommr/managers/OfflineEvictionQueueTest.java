@@ -0,0 +1,96 @@
+package me.axeno.hommr.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineEvictionQueueTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testEvictsLeastRecentlyUsedFirst() {
+        OfflineEvictionQueue queue = new OfflineEvictionQueue(2, clock::incrementAndGet);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        queue.add(first);
+        queue.add(second);
+        queue.touch(first);
+        queue.add(third);
+
+        List<UUID> evicted = new ArrayList<>();
+        queue.evictOverflow(owner -> evicted.add(owner));
+
+        assertEquals(List.of(second), evicted);
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void testSkipsOwnersThatCannotBeEvicted() {
+        OfflineEvictionQueue queue = new OfflineEvictionQueue(1, clock::incrementAndGet);
+        UUID dirty = UUID.randomUUID();
+        UUID clean = UUID.randomUUID();
+
+        queue.add(dirty);
+        queue.add(clean);
+        queue.add(UUID.randomUUID());
+
+        int evicted = queue.evictOverflow(owner -> !owner.equals(dirty));
+
+        assertEquals(2, evicted);
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void testRemovedOwnersAreNeverEvicted() {
+        OfflineEvictionQueue queue = new OfflineEvictionQueue(0, clock::incrementAndGet);
+        UUID online = UUID.randomUUID();
+
+        queue.add(online);
+        queue.remove(online);
+
+        assertEquals(0, queue.evictOverflow(owner -> true));
+    }
+
+    @Test
+    void testEvictsTheOldestOfEachSample() {
+        OfflineEvictionQueue queue = new OfflineEvictionQueue(OfflineEvictionQueue.SAMPLE_SIZE - 1, clock::incrementAndGet);
+        List<UUID> owners = new ArrayList<>();
+        for (int i = 0; i < OfflineEvictionQueue.SAMPLE_SIZE; i++) {
+            UUID owner = UUID.randomUUID();
+            owners.add(owner);
+            queue.add(owner);
+        }
+        UUID idle = owners.get(3);
+        owners.forEach(owner -> {
+            if (!owner.equals(idle)) {
+                queue.touch(owner);
+            }
+        });
+
+        List<UUID> evicted = new ArrayList<>();
+        queue.evictOverflow(evicted::add);
+
+        assertEquals(List.of(idle), evicted);
+        assertEquals(OfflineEvictionQueue.SAMPLE_SIZE - 1, queue.size());
+    }
+
+    @Test
+    void testStopsOnceEveryOwnerWasRefused() {
+        OfflineEvictionQueue queue = new OfflineEvictionQueue(0, clock::incrementAndGet);
+        for (int i = 0; i < 3 * OfflineEvictionQueue.SAMPLE_SIZE; i++) {
+            queue.add(UUID.randomUUID());
+        }
+
+        assertEquals(0, queue.evictOverflow(owner -> false));
+        assertEquals(3 * OfflineEvictionQueue.SAMPLE_SIZE, queue.size());
+        assertEquals(3 * OfflineEvictionQueue.SAMPLE_SIZE, queue.evictOverflow(owner -> true));
+    }
+}
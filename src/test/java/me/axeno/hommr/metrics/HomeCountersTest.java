@@ -0,0 +1,44 @@
+package me.axeno.hommr.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeCountersTest {
+
+    @Test
+    void testSeedReplacesCounts() {
+        HomeCounters counters = new HomeCounters();
+        counters.homeAdded("world", true);
+
+        counters.seed(Map.of("world", 3L, "world_nether", 2L), 4);
+
+        assertEquals(5, counters.getTotalHomes());
+        assertEquals(4, counters.getActiveOwners());
+        assertEquals(3, counters.getHomes("world"));
+        assertEquals(0, counters.getHomes("world_the_end"));
+    }
+
+    @Test
+    void testAddRemoveAndMove() {
+        HomeCounters counters = new HomeCounters();
+
+        counters.homeAdded("world", true);
+        counters.homeAdded("world", false);
+        counters.homeMoved("world", "world_nether");
+        counters.homeMoved("world_nether", "world_nether");
+
+        assertEquals(2, counters.getTotalHomes());
+        assertEquals(1, counters.getActiveOwners());
+        assertEquals(Map.of("world", 1L, "world_nether", 1L), counters.getHomesPerWorld());
+
+        counters.homeRemoved("world", false);
+        counters.homeRemoved("world_nether", true);
+
+        assertEquals(0, counters.getTotalHomes());
+        assertEquals(0, counters.getActiveOwners());
+        assertTrue(counters.getHomesPerWorld().isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package me.axeno.hommr.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @AfterEach
+    void tearDown() {
+        HommrMetrics.setEnabled(true);
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram("test").snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.meanNanos());
+        assertEquals(0, snapshot.percentileNanos(99));
+    }
+
+    @Test
+    void testPercentilesAreBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count());
+        assertEquals(1_000_000, snapshot.maxNanos());
+        assertEquals((99 * 1_000 + 1_000_000) / 100, snapshot.meanNanos());
+        assertEquals(1_023, snapshot.percentileNanos(50));
+        assertEquals(1_023, snapshot.percentileNanos(99));
+        assertEquals(1_000_000, snapshot.percentileNanos(100));
+    }
+
+    @Test
+    void testNegativeAndZeroSamples() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        histogram.record(0);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.count());
+        assertEquals(2, snapshot.buckets()[0]);
+        assertEquals(0, snapshot.maxNanos());
+    }
+
+    @Test
+    void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(1_000);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().maxNanos());
+    }
+
+    @Test
+    void testDisabledMetricsRecordNothing() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+
+        HommrMetrics.setEnabled(false);
+        long start = HommrMetrics.start();
+        histogram.recordSince(start);
+
+        assertEquals(0, start);
+        assertEquals(0, histogram.snapshot().count());
+
+        HommrMetrics.setEnabled(true);
+        histogram.recordSince(HommrMetrics.start());
+
+        assertEquals(1, histogram.snapshot().count());
+    }
+
+    @Test
+    void testFormat() {
+        assertEquals("1.500 ms", LatencyHistogram.Snapshot.format(1_500_000));
+    }
+}
@@ -0,0 +1,94 @@
+package me.axeno.hommr.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeMapTest {
+
+    private final UUID owner = UUID.randomUUID();
+
+    @Test
+    void testWithKeepsKeysSorted() {
+        HomeMap map = HomeMap.EMPTY
+                .with("mine", createTestHome("mine"))
+                .with("base", createTestHome("base"))
+                .with("farm", createTestHome("farm"));
+
+        assertEquals(List.of("base", "farm", "mine"), List.copyOf(map.keySet()));
+        assertEquals("farm", map.get("farm").getName());
+        assertNull(map.get("nether"));
+    }
+
+    @Test
+    void testWithReplacesWithoutChangingTheOriginal() {
+        HomeMap original = HomeMap.EMPTY.with("base", createTestHome("base"));
+        Home replacement = createTestHome("base");
+        replacement.setX(42.0);
+
+        HomeMap updated = original.with("base", replacement);
+
+        assertEquals(1, updated.size());
+        assertEquals(42.0, updated.get("base").getX());
+        assertNotEquals(42.0, original.get("base").getX());
+    }
+
+    @Test
+    void testKeysStartingWithFindsTheSortedMatches() {
+        HomeMap built = HomeMap.EMPTY;
+        for (String name : List.of("mine", "base", "base2", "bastion", "farm", "b", "zoo")) {
+            built = built.with(name, createTestHome(name));
+        }
+        HomeMap map = built;
+
+        assertEquals(List.of("base", "base2", "bastion"), map.keysStartingWith("Bas", 10));
+        assertEquals(List.of("b", "base"), map.keysStartingWith("b", 2));
+        assertEquals(7, map.keysStartingWith("", 10).size());
+        assertTrue(map.keysStartingWith("nether", 10).isEmpty());
+        assertTrue(map.keysStartingWith("zooo", 10).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> map.keysStartingWith("b", 10).clear());
+    }
+
+    @Test
+    void testWithoutRemovesKey() {
+        HomeMap map = HomeMap.EMPTY
+                .with("a", createTestHome("a"))
+                .with("b", createTestHome("b"))
+                .with("c", createTestHome("c"));
+
+        HomeMap removed = map.without("b");
+
+        assertEquals(List.of("a", "c"), List.copyOf(removed.keySet()));
+        assertSame(map, map.without("missing"));
+        assertSame(HomeMap.EMPTY, HomeMap.EMPTY.with("a", createTestHome("a")).without("a"));
+    }
+
+    @Test
+    void testFindIgnoresCaseInSmallAndLargeMaps() {
+        HomeMap map = HomeMap.EMPTY;
+        for (int i = 0; i < 20; i++) {
+            map = map.with("home" + i, createTestHome("home" + i));
+            assertEquals("home" + i, map.find("HOME" + i).getName());
+            assertEquals("home0", map.find(HomeName.of("Home0")).getName());
+        }
+
+        assertNull(map.find("home20"));
+        assertNull(map.find(HomeName.of("home20")));
+    }
+
+    @Test
+    void testMapIsImmutable() {
+        HomeMap map = HomeMap.EMPTY.with("base", createTestHome("base"));
+
+        assertThrows(UnsupportedOperationException.class, () -> map.put("farm", createTestHome("farm")));
+        assertThrows(UnsupportedOperationException.class, () -> map.values().clear());
+    }
+
+    // Helper methods
+    private Home createTestHome(String name) {
+        return new Home(0, owner, name, "world", 1.0, 64.0, 1.0, 0f, 0f, 0L);
+    }
+}
@@ -0,0 +1,46 @@
+package me.axeno.hommr.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeNameTest {
+
+    @Test
+    void testFoldReturnsSameInstanceWhenAlreadyFolded() {
+        String name = "base_1";
+
+        assertSame(name, HomeName.fold(name));
+        assertEquals("base_1", HomeName.fold("BaSe_1"));
+    }
+
+    @Test
+    void testFoldIgnoresDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+
+            assertEquals("home", HomeName.fold("HOME"));
+            assertEquals(HomeName.of("home"), HomeName.of("HOME"));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    void testFoldedHashMatchesFoldedName() {
+        assertEquals("mybase".hashCode(), HomeName.foldedHash("MyBase"));
+        assertEquals(HomeName.of("MyBase").hashCode(), HomeName.foldedHash("MYBASE"));
+    }
+
+    @Test
+    void testCompareFoldedMatchesStringOrder() {
+        assertEquals(0, HomeName.compareFolded("farm", "FARM"));
+        assertTrue(HomeName.compareFolded("farm", "Mine") < 0);
+        assertTrue(HomeName.compareFolded("mine", "Farm") > 0);
+        assertTrue(HomeName.compareFolded("farm", "FARM2") < 0);
+        assertTrue(HomeName.compareFolded("farm2", "Farm") > 0);
+    }
+}
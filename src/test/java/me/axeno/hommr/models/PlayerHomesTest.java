@@ -1,8 +1,11 @@
 package me.axeno.hommr.models;
 
+import me.axeno.hommr.spatial.HomeIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -151,6 +154,230 @@ class PlayerHomesTest {
         assertEquals(2, playerHomes.getHomes().size());
     }
 
+    @Test
+    void testSetHomeMarksDirty() {
+        playerHomes.setHome("home1", createTestHome("home1"));
+
+        assertTrue(playerHomes.isDirty());
+    }
+
+    @Test
+    void testLoadHomeDoesNotMarkDirty() {
+        playerHomes.loadHome(createTestHome("Home1"));
+
+        assertFalse(playerHomes.isDirty());
+        assertTrue(playerHomes.hasHome("home1"));
+    }
+
+    @Test
+    void testDrainChangesReturnsUpsertsAndTombstones() {
+        playerHomes.loadHome(createTestHome("home1"));
+        playerHomes.setHome("home2", createTestHome("home2"));
+        playerHomes.removeHome("home1");
+
+        List<Home> upserts = new ArrayList<>();
+        List<Home> deletions = new ArrayList<>();
+        playerHomes.drainChanges(upserts, deletions);
+
+        assertEquals(1, upserts.size());
+        assertEquals("home2", upserts.getFirst().getName());
+        assertEquals(1, deletions.size());
+        assertEquals("home1", deletions.getFirst().getName());
+        assertFalse(playerHomes.isDirty());
+    }
+
+    @Test
+    void testSetHomeAfterRemoveCancelsTombstone() {
+        playerHomes.loadHome(createTestHome("home1"));
+        playerHomes.removeHome("home1");
+        playerHomes.setHome("home1", createTestHome("home1"));
+
+        List<Home> upserts = new ArrayList<>();
+        List<Home> deletions = new ArrayList<>();
+        playerHomes.drainChanges(upserts, deletions);
+
+        assertEquals(1, upserts.size());
+        assertTrue(deletions.isEmpty());
+    }
+
+    @Test
+    void testTombstoneKeptUntilConfirmed() {
+        Home home = createTestHome("home1");
+        playerHomes.loadHome(home);
+        playerHomes.removeHome("home1");
+
+        playerHomes.drainChanges(new ArrayList<>(), new ArrayList<>());
+        playerHomes.markDirty("home1");
+
+        List<Home> deletions = new ArrayList<>();
+        playerHomes.drainChanges(new ArrayList<>(), deletions);
+        assertEquals(1, deletions.size());
+
+        playerHomes.confirmDeleted(home);
+        playerHomes.markDirty("home1");
+
+        deletions.clear();
+        playerHomes.drainChanges(new ArrayList<>(), deletions);
+        assertTrue(deletions.isEmpty());
+    }
+
+    @Test
+    void testReconcileKeepsLocalChanges() {
+        playerHomes.loadHome(createTestHome("stale"));
+        playerHomes.loadHome(createTestHome("gone"));
+        playerHomes.setHome("local", createTestHome("local"));
+        playerHomes.loadHome(createTestHome("deleted"));
+        playerHomes.removeHome("deleted");
+
+        Home persistedStale = new Home(0, testPlayerId, "stale", "world", 1.0, 2.0, 3.0, 0f, 0f, 1L);
+        Home persistedLocal = new Home(0, testPlayerId, "local", "world", 9.0, 9.0, 9.0, 0f, 0f, 1L);
+        PlayerHomes.Reconciliation reconciliation = playerHomes.reconcile(List.of(persistedStale, persistedLocal,
+                createTestHome("deleted"), createTestHome("added")));
+
+        assertEquals(3, reconciliation.changed());
+        assertTrue(reconciliation.before().containsKey("gone"));
+        assertFalse(reconciliation.after().containsKey("gone"));
+        assertEquals(persistedStale, playerHomes.getHome("stale").orElseThrow());
+        assertNotEquals(persistedLocal, playerHomes.getHome("local").orElseThrow());
+        assertTrue(playerHomes.hasHome("added"));
+        assertFalse(playerHomes.hasHome("gone"));
+        assertFalse(playerHomes.hasHome("deleted"));
+        assertTrue(playerHomes.isDirty());
+    }
+
+    @Test
+    void testReconcileKeepsHomesBeingFlushed() {
+        playerHomes.loadHome(createTestHome("stored"));
+        Home local = createTestHome("local");
+        playerHomes.setHome("local", local);
+        Home moved = createTestHome("stored");
+        playerHomes.setHome("stored", moved);
+        playerHomes.drainChanges(new ArrayList<>(), new ArrayList<>());
+
+        // Read before the flush wrote the drained homes
+        Home persistedStored = new Home(0, testPlayerId, "stored", "world", 9.0, 9.0, 9.0, 0f, 0f, 1L);
+        assertEquals(0, playerHomes.reconcile(List.of(persistedStored)).changed());
+        assertSame(local, playerHomes.findHome("local"));
+        assertSame(moved, playerHomes.findHome("stored"));
+
+        playerHomes.completeFlush();
+        assertEquals(2, playerHomes.reconcile(List.of(persistedStored)).changed());
+        assertFalse(playerHomes.hasHome("local"));
+    }
+
+    @Test
+    void testReconcileIgnoresVersionOnlyDifferences() {
+        Home cached = new Home(0, testPlayerId, "home1", "world", 1.0, 2.0, 3.0, 0f, 0f, 1L);
+        cached.setVersion(3);
+        playerHomes.loadHome(cached);
+
+        // Read from a storage keeping no version
+        Home unversioned = new Home(0, testPlayerId, "home1", "world", 1.0, 2.0, 3.0, 0f, 0f, 1L);
+        assertEquals(0, playerHomes.reconcile(List.of(unversioned)).changed());
+        assertSame(cached, playerHomes.findHome("home1"));
+        assertEquals(3, cached.getVersion());
+
+        Home rewritten = new Home(0, testPlayerId, "home1", "world", 1.0, 2.0, 3.0, 0f, 0f, 1L);
+        rewritten.setVersion(5);
+        assertEquals(0, playerHomes.reconcile(List.of(rewritten)).changed());
+        assertEquals(5, cached.getVersion());
+    }
+
+    @Test
+    void testSetHomeKeepsTheStoredVersion() {
+        Home stored = createTestHome("home1");
+        stored.setVersion(4);
+        playerHomes.loadHome(stored);
+
+        Home updated = createTestHome("home1");
+        assertSame(stored, playerHomes.setHome("home1", updated));
+        assertEquals(4, updated.getVersion());
+
+        playerHomes.removeHome("home1");
+        Home recreated = createTestHome("home1");
+        assertNull(playerHomes.setHome("home1", recreated));
+        assertEquals(4, recreated.getVersion());
+    }
+
+    @Test
+    void testConfirmWrittenMovesReplacementAlong() {
+        Home written = createTestHome("home1");
+        written.setVersion(2);
+        playerHomes.setHome("home1", written);
+        playerHomes.drainChanges(new ArrayList<>(), new ArrayList<>());
+
+        Home replacement = createTestHome("home1");
+        playerHomes.setHome("home1", replacement);
+        playerHomes.confirmWritten(written);
+
+        assertEquals(3, written.getVersion());
+        assertEquals(3, replacement.getVersion());
+    }
+
+    @Test
+    void testMarkDeletedBlocksLaterLoad() {
+        playerHomes.markDeleted(createTestHome("home1"));
+        playerHomes.loadHomeIfAbsent(createTestHome("home1"));
+
+        List<Home> deletions = new ArrayList<>();
+        playerHomes.drainChanges(new ArrayList<>(), deletions);
+
+        assertFalse(playerHomes.hasHome("home1"));
+        assertEquals(1, deletions.size());
+    }
+
+    @Test
+    void testFindHomeIgnoresCase() {
+        playerHomes.setHome("Base", createTestHome("Base"));
+
+        assertNotNull(playerHomes.findHome("BASE"));
+        assertNotNull(playerHomes.findHome(HomeName.of("base")));
+        assertNull(playerHomes.findHome("farm"));
+        assertEquals(Set.of("base"), playerHomes.getHomeNames());
+    }
+
+    @Test
+    void testStoredHomesShareOwnerAndWorld() {
+        Home first = new Home(0, new UUID(testPlayerId.getMostSignificantBits(), testPlayerId.getLeastSignificantBits()),
+                "home1", new String("world"), 0, 0, 0, 0f, 0f, 0L);
+        Home second = new Home(0, new UUID(testPlayerId.getMostSignificantBits(), testPlayerId.getLeastSignificantBits()),
+                "home2", new String("world"), 0, 0, 0, 0f, 0f, 0L);
+
+        playerHomes.loadHome(first);
+        playerHomes.setHome("home2", second);
+
+        assertSame(testPlayerId, playerHomes.getHome("home1").orElseThrow().getOwner());
+        assertSame(testPlayerId, playerHomes.getHome("home2").orElseThrow().getOwner());
+        assertSame(playerHomes.getHome("home1").orElseThrow().getWorld(), playerHomes.getHome("home2").orElseThrow().getWorld());
+    }
+
+    @Test
+    void testIndexFollowsChangesUntilDetached() {
+        HomeIndex index = new HomeIndex();
+        PlayerHomes indexed = new PlayerHomes(testPlayerId, index);
+        Home base = createTestHome("base");
+        Home moved = createTestHome("base");
+        moved.setX(5000.0);
+
+        indexed.loadHome(base);
+        indexed.setHome("farm", createTestHome("farm"));
+        indexed.setHome("base", moved);
+        assertEquals(2, index.size());
+        assertTrue(index.within("world", 100.0, 64.0, 200.0, 1.0).stream().noneMatch(home -> home == base));
+        assertEquals(List.of(moved), index.within("world", 5000.0, 64.0, 200.0, 1.0));
+
+        indexed.removeHome("farm");
+        assertEquals(1, index.size());
+
+        indexed.reconcile(List.of(createTestHome("mine")));
+        assertEquals(2, index.size(), "the dirty home is kept and the stored one added");
+
+        indexed.detachIndex();
+        assertEquals(0, index.size());
+        indexed.setHome("nether", createTestHome("nether"));
+        assertEquals(0, index.size());
+    }
+
     // Helper methods
     private Home createTestHome(String name) {
         return new Home(
@@ -0,0 +1,122 @@
+package me.axeno.hommr.spatial;
+
+import me.axeno.hommr.models.Home;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeIndexTest {
+
+    private final UUID owner = UUID.randomUUID();
+    private HomeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HomeIndex();
+    }
+
+    @Test
+    void testNearestMatchesBruteForce() {
+        Random random = new Random(42);
+        List<Home> homes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // Clustered around spawn with a few far away outliers, like a real world
+            double spread = i % 100 == 0 ? 100_000 : 2_000;
+            Home home = createTestHome("home" + i, "world", gaussian(random, spread), 64 + random.nextInt(64), gaussian(random, spread));
+            homes.add(home);
+            index.add(home);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            double x = gaussian(random, 5_000);
+            double y = 64;
+            double z = gaussian(random, 5_000);
+            int count = 1 + random.nextInt(10);
+
+            List<Home> expected = homes.stream()
+                    .sorted(Comparator.comparingDouble(home -> HomeIndex.distanceSquared(home, x, y, z)))
+                    .limit(count)
+                    .toList();
+            assertEquals(distances(expected, x, y, z), distances(index.nearest("world", x, y, z, count), x, y, z));
+        }
+    }
+
+    @Test
+    void testWithinMatchesBruteForce() {
+        Random random = new Random(7);
+        List<Home> homes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Home home = createTestHome("home" + i, "world", gaussian(random, 1_000), 64, gaussian(random, 1_000));
+            homes.add(home);
+            index.add(home);
+        }
+
+        for (double radius : new double[]{0, 10, 100, 1_000, 50_000}) {
+            List<Home> expected = homes.stream()
+                    .filter(home -> HomeIndex.distanceSquared(home, 20, 64, -30) <= radius * radius)
+                    .sorted(Comparator.comparingDouble(home -> HomeIndex.distanceSquared(home, 20, 64, -30)))
+                    .toList();
+            assertEquals(distances(expected, 20, 64, -30), distances(index.within("world", 20, 64, -30, radius), 20, 64, -30));
+        }
+    }
+
+    @Test
+    void testQueriesAreScopedToTheWorld() {
+        index.add(createTestHome("base", "world", 0, 64, 0));
+        index.add(createTestHome("fortress", "world_nether", 1, 64, 1));
+
+        assertEquals("base", index.nearest("world", 0, 64, 0, 5).getFirst().getName());
+        assertEquals(1, index.nearest("world", 0, 64, 0, 5).size());
+        assertEquals(1, index.within("world_nether", 0, 64, 0, 10).size());
+        assertTrue(index.nearest("world_the_end", 0, 64, 0, 5).isEmpty());
+    }
+
+    @Test
+    void testRemoveAndReplaceKeepIndexConsistent() {
+        Home base = createTestHome("base", "world", -17.5, 64, 33.2);
+        Home farm = createTestHome("farm", "world", -17.5, 64, 33.2);
+        index.add(base);
+        index.add(farm);
+
+        assertTrue(index.remove(base));
+        assertFalse(index.remove(base));
+        assertEquals(List.of(farm), index.within("world", -17.5, 64, 33.2, 1));
+
+        Home moved = createTestHome("farm", "world_nether", 500, 64, 500);
+        index.replace(farm, moved);
+        assertTrue(index.within("world", -17.5, 64, 33.2, 1).isEmpty());
+        assertEquals(List.of(moved), index.nearest("world_nether", 0, 64, 0, 1));
+        assertEquals(1, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testNearestOnSparseGridFindsFarHomes() {
+        Home far = createTestHome("far", "world", 1_000_000, 64, -1_000_000);
+        index.add(far);
+
+        assertEquals(List.of(far), index.nearest("world", 0, 64, 0, 3));
+    }
+
+    // Helper methods
+    private static double gaussian(Random random, double spread) {
+        return random.nextGaussian() * spread;
+    }
+
+    private static List<Double> distances(List<Home> homes, double x, double y, double z) {
+        return homes.stream().map(home -> HomeIndex.distanceSquared(home, x, y, z)).toList();
+    }
+
+    private Home createTestHome(String name, String world, double x, double y, double z) {
+        return new Home(0, owner, name, world, x, y, z, 0f, 0f, 0L);
+    }
+}
@@ -0,0 +1,57 @@
+package me.axeno.hommr.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCursorTest {
+
+    @Test
+    void testAdvanceMovesPastReadChanges() {
+        ChangeCursor cursor = new ChangeCursor(10, 1000);
+
+        cursor.advance(List.of(11L, 12L, 13L), 0);
+
+        assertEquals(13, cursor.getPosition());
+        assertTrue(cursor.getGaps().isEmpty());
+    }
+
+    @Test
+    void testSkippedChangesAreKeptAsGapsUntilRead() {
+        ChangeCursor cursor = new ChangeCursor(10, 1000);
+
+        cursor.advance(List.of(11L, 14L), 0);
+
+        assertEquals(14, cursor.getPosition());
+        assertEquals(List.of(12L, 13L), cursor.getGaps());
+
+        cursor.advance(List.of(13L, 15L), 100);
+
+        assertEquals(15, cursor.getPosition());
+        assertEquals(List.of(12L), cursor.getGaps());
+    }
+
+    @Test
+    void testGapsExpire() {
+        ChangeCursor cursor = new ChangeCursor(0, 1000);
+        cursor.advance(List.of(2L), 0);
+
+        cursor.advance(List.of(), 999);
+        assertEquals(List.of(1L), cursor.getGaps());
+
+        cursor.advance(List.of(), 1000);
+        assertTrue(cursor.getGaps().isEmpty());
+    }
+
+    @Test
+    void testGapsAreBounded() {
+        ChangeCursor cursor = new ChangeCursor(0, 1000);
+
+        cursor.advance(List.of(1_000_000L), 0);
+
+        assertEquals(1_000_000, cursor.getPosition());
+        assertEquals(ChangeCursor.MAX_GAPS, cursor.getGaps().size());
+    }
+}
@@ -0,0 +1,103 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileHomeStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileHomeStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new FileHomeStorage(tempDir);
+        storage.init();
+    }
+
+    @Test
+    void testFilesAreShardedByUuidPrefix() throws IOException {
+        UUID owner = UUID.fromString("ab345678-1234-1234-1234-123456789abc");
+        storage.upsertBatch(List.of(createTestHome(owner, "home", 1.0)));
+
+        assertTrue(Files.exists(tempDir.resolve("ab").resolve(owner + ".bin")));
+        try (Stream<Path> files = Files.list(tempDir.resolve("ab"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testRoundTripPreservesData() throws IOException {
+        UUID owner = UUID.randomUUID();
+        Home home = new Home(0, owner, "Base", "world_nether", 1.5, 70.0, -3.25, 90.0f, -15.0f, 1234L);
+        storage.upsertBatch(List.of(home));
+
+        Home stored = new FileHomeStorage(tempDir).loadByOwner(owner).getFirst();
+        assertEquals(home, stored);
+    }
+
+    @Test
+    void testSaveChangesMatchesNamesIgnoringCase() throws IOException {
+        UUID owner = UUID.randomUUID();
+        storage.upsertBatch(List.of(createTestHome(owner, "Home", 1.0), createTestHome(owner, "other", 2.0)));
+
+        storage.saveChanges(List.of(createTestHome(owner, "home", 3.0)), List.of(createTestHome(owner, "OTHER", 0)));
+
+        List<Home> homes = storage.loadByOwner(owner);
+        assertEquals(1, homes.size());
+        assertEquals("home", homes.getFirst().getName());
+        assertEquals(3.0, homes.getFirst().getX());
+    }
+
+    @Test
+    void testDeletingLastHomeRemovesFile() throws IOException {
+        UUID owner = UUID.randomUUID();
+        Home home = createTestHome(owner, "home", 1.0);
+        storage.upsertBatch(List.of(home));
+
+        storage.deleteBatch(List.of(home));
+
+        assertTrue(storage.loadByOwner(owner).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve(owner.toString().substring(0, 2)).resolve(owner + ".bin")));
+    }
+
+    @Test
+    void testLoadAllReadsEveryOwner() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            UUID owner = UUID.randomUUID();
+            storage.upsertBatch(List.of(createTestHome(owner, "a", i), createTestHome(owner, "b", i)));
+        }
+
+        assertEquals(40, storage.loadAll().size());
+    }
+
+    @Test
+    void testCorruptedFileIsRejected() throws IOException {
+        UUID owner = UUID.randomUUID();
+        storage.upsertBatch(List.of(createTestHome(owner, "home", 1.0)));
+        Path file = tempDir.resolve(owner.toString().substring(0, 2)).resolve(owner + ".bin");
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[10] ^= 0x55;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> storage.loadByOwner(owner));
+    }
+
+    // Helper methods
+    private Home createTestHome(UUID owner, String name, double x) {
+        return new Home(0, owner, name, "world", x, 64.0, 200.0, 0.0f, 0.0f, 1000L);
+    }
+}
@@ -0,0 +1,129 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Logger logger = Logger.getLogger("HomeJournalTest");
+
+    @Test
+    void testReplayReturnsAppendedMutationsInOrder() throws IOException {
+        UUID owner = UUID.randomUUID();
+
+        HomeJournal journal = HomeJournal.open(tempDir, logger);
+        journal.appendSet(createTestHome(owner, "home1"));
+        journal.appendDelete(owner, "home1");
+        journal.close();
+
+        List<String> replayed = replay();
+
+        assertEquals(List.of("set:home1:" + owner, "delete:home1:" + owner), replayed);
+    }
+
+    @Test
+    void testReplayPreservesHomeData() throws IOException {
+        UUID owner = UUID.randomUUID();
+        Home original = new Home(0, owner, "base", "world_nether", 1.5, 70.0, -3.25, 90.0f, -15.0f, 1234L);
+
+        HomeJournal journal = HomeJournal.open(tempDir, logger);
+        journal.appendSet(original);
+        journal.close();
+
+        List<Home> homes = new ArrayList<>();
+        HomeJournal reopened = HomeJournal.open(tempDir, logger);
+        reopened.replay(new HomeJournal.Listener() {
+            @Override
+            public void onSet(Home home) {
+                homes.add(home);
+            }
+
+            @Override
+            public void onDelete(UUID owner, String name) {
+            }
+        });
+        reopened.close();
+
+        assertEquals(1, homes.size());
+        assertEquals(original, homes.getFirst());
+    }
+
+    @Test
+    void testCompactRemovesSealedSegments() throws IOException, InterruptedException {
+        UUID owner = UUID.randomUUID();
+
+        HomeJournal journal = HomeJournal.open(tempDir, logger);
+        journal.appendSet(createTestHome(owner, "home1"));
+        journal.close();
+
+        journal = HomeJournal.open(tempDir, logger);
+        journal.appendSet(createTestHome(owner, "home2"));
+        journal.awaitWritten();
+        long sealed = journal.rotate();
+        journal.compact(sealed);
+        journal.close();
+
+        assertTrue(replay().isEmpty());
+    }
+
+    @Test
+    void testReplayStopsAtTornRecord() throws IOException {
+        UUID owner = UUID.randomUUID();
+
+        HomeJournal journal = HomeJournal.open(tempDir, logger);
+        journal.appendSet(createTestHome(owner, "home1"));
+        journal.close();
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            Path segment = files.filter(path -> {
+                try {
+                    return Files.size(path) > 0;
+                } catch (IOException e) {
+                    return false;
+                }
+            }).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        assertEquals(1, replay().size());
+    }
+
+    // Helper methods
+    private List<String> replay() throws IOException {
+        List<String> replayed = new ArrayList<>();
+        HomeJournal journal = HomeJournal.open(tempDir, logger);
+        journal.replay(new HomeJournal.Listener() {
+            @Override
+            public void onSet(Home home) {
+                replayed.add("set:" + home.getName() + ":" + home.getOwner());
+            }
+
+            @Override
+            public void onDelete(UUID owner, String name) {
+                replayed.add("delete:" + name + ":" + owner);
+            }
+        });
+        journal.close();
+        return replayed;
+    }
+
+    private Home createTestHome(UUID owner, String name) {
+        return new Home(0, owner, name, "world", 100.0, 64.0, 200.0, 0.0f, 0.0f, System.currentTimeMillis());
+    }
+}
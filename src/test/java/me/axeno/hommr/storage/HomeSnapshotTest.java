@@ -0,0 +1,71 @@
+package me.axeno.hommr.storage;
+
+import me.axeno.hommr.models.Home;
+import me.axeno.hommr.models.PlayerHomes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HomeSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripPreservesHomes() throws IOException {
+        Path file = tempDir.resolve("homes.snapshot");
+        List<PlayerHomes> players = new ArrayList<>();
+        List<Home> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            PlayerHomes playerHomes = new PlayerHomes(UUID.randomUUID());
+            for (int j = 0; j < 3; j++) {
+                Home home = new Home(0, playerHomes.getPlayerId(), "home" + j, j == 2 ? "world_nether" : "world",
+                        i + 0.5, 64.0 + j, -i - 0.25, 90.0f, -15.0f, 1000L + i);
+                playerHomes.loadHome(home);
+                expected.add(home);
+            }
+            players.add(playerHomes);
+        }
+        players.add(new PlayerHomes(UUID.randomUUID()));
+
+        assertEquals(30, HomeSnapshot.write(file, players));
+
+        List<Home> homes = HomeSnapshot.read(file);
+        assertEquals(30, homes.size());
+        assertTrue(homes.containsAll(expected));
+    }
+
+    @Test
+    void testWorldNamesAreShared() throws IOException {
+        Path file = tempDir.resolve("homes.snapshot");
+        PlayerHomes playerHomes = new PlayerHomes(UUID.randomUUID());
+        playerHomes.loadHome(new Home(0, playerHomes.getPlayerId(), "a", "world", 0, 0, 0, 0f, 0f, 0L));
+        playerHomes.loadHome(new Home(0, playerHomes.getPlayerId(), "b", "world", 0, 0, 0, 0f, 0f, 0L));
+        HomeSnapshot.write(file, List.of(playerHomes));
+
+        List<Home> homes = HomeSnapshot.read(file);
+        assertSame(homes.get(0).getWorld(), homes.get(1).getWorld());
+    }
+
+    @Test
+    void testCorruptedSnapshotIsRejected() throws IOException {
+        Path file = tempDir.resolve("homes.snapshot");
+        PlayerHomes playerHomes = new PlayerHomes(UUID.randomUUID());
+        playerHomes.loadHome(new Home(0, playerHomes.getPlayerId(), "home", "world", 1, 2, 3, 0f, 0f, 0L));
+        HomeSnapshot.write(file, List.of(playerHomes));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x21;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> HomeSnapshot.read(file));
+    }
+}
@@ -0,0 +1,197 @@
+package me.axeno.hommr.storage;
+
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import me.axeno.hommr.models.Home;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcHomeRepositoryTest {
+
+    private JdbcPooledConnectionSource connectionSource;
+    private JdbcHomeRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connectionSource = new JdbcPooledConnectionSource("jdbc:sqlite::memory:");
+        repository = new JdbcHomeRepository(connectionSource, JdbcHomeRepository.Dialect.SQLITE);
+        new SchemaMigrator(connectionSource, repository, JdbcHomeRepository.Dialect.SQLITE, Logger.getAnonymousLogger()).migrate();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionSource.close();
+    }
+
+    @Test
+    void testDialectFromUrl() {
+        assertEquals(JdbcHomeRepository.Dialect.MYSQL, JdbcHomeRepository.Dialect.fromUrl("jdbc:mysql://localhost/hommr"));
+        assertEquals(JdbcHomeRepository.Dialect.MARIADB, JdbcHomeRepository.Dialect.fromUrl("jdbc:mariadb://localhost/hommr"));
+        assertEquals(JdbcHomeRepository.Dialect.SQLITE, JdbcHomeRepository.Dialect.fromUrl("jdbc:sqlite:homes.db"));
+        assertThrows(IllegalArgumentException.class, () -> JdbcHomeRepository.Dialect.fromUrl("jdbc:h2:mem:"));
+    }
+
+    @Test
+    void testDialectForServerUsesRowAliasesFromMySql8019() {
+        JdbcHomeRepository.Dialect mysql = JdbcHomeRepository.Dialect.MYSQL;
+        assertEquals(JdbcHomeRepository.Dialect.MYSQL, mysql.forServer("8.0.36"));
+        assertEquals(JdbcHomeRepository.Dialect.MYSQL, mysql.forServer("8.0.19"));
+        assertEquals(JdbcHomeRepository.Dialect.MYSQL, mysql.forServer("9.1.0"));
+        assertEquals(JdbcHomeRepository.Dialect.MARIADB, mysql.forServer("8.0.18"));
+        assertEquals(JdbcHomeRepository.Dialect.MARIADB, mysql.forServer("5.7.44-log"));
+        assertEquals(JdbcHomeRepository.Dialect.MARIADB, mysql.forServer("5.5.5-10.11.6-MariaDB"));
+        assertEquals(JdbcHomeRepository.Dialect.SQLITE, JdbcHomeRepository.Dialect.SQLITE.forServer("3.45.1"));
+    }
+
+    @Test
+    void testUuidBytesRoundTrip() {
+        UUID uuid = UUID.randomUUID();
+        byte[] bytes = JdbcHomeRepository.toBytes(uuid);
+
+        assertEquals(16, bytes.length);
+        assertEquals(uuid, JdbcHomeRepository.fromBytes(bytes));
+    }
+
+    @Test
+    void testNamesAreMatchedAsTheCacheFoldsThem() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        repository.saveChanges(List.of(createTestHome(owner, "Café", 1.0)), List.of());
+        repository.saveChanges(List.of(createTestHome(owner, "CAFÉ", 2.0)), List.of());
+        repository.saveChanges(List.of(createTestHome(owner, "cafe", 3.0)), List.of());
+
+        List<Home> stored = repository.findByOwner(owner);
+        assertEquals(2, stored.size());
+        assertTrue(stored.stream().anyMatch(h -> h.getName().equals("CAFÉ") && h.getX() == 2.0));
+        assertTrue(stored.stream().anyMatch(h -> h.getName().equals("cafe") && h.getX() == 3.0));
+    }
+
+    @Test
+    void testUpsertMatchesNameIgnoringCase() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        repository.saveChanges(List.of(createTestHome(owner, "Home", 1.0)), List.of());
+        repository.saveChanges(List.of(createTestHome(owner, "home", 2.0)), List.of());
+
+        List<Home> stored = repository.findByOwner(owner);
+        assertEquals(1, stored.size());
+        assertEquals("home", stored.getFirst().getName());
+        assertEquals(2.0, stored.getFirst().getX());
+    }
+
+    @Test
+    void testEveryWriteIncrementsTheVersion() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        repository.saveChanges(List.of(createTestHome(owner, "home", 1.0)), List.of());
+        assertEquals(1, repository.findByOwner(owner).getFirst().getVersion());
+
+        repository.saveChanges(List.of(createTestHome(owner, "home", 2.0)), List.of());
+        Home stored = repository.findByOwner(owner).getFirst();
+        assertEquals(2, stored.getVersion());
+
+        stored.setX(3.0);
+        assertTrue(repository.saveChangesIfUnchanged(List.of(stored), List.of()).isEmpty());
+        assertEquals(3, repository.findByOwner(owner).getFirst().getVersion());
+    }
+
+    @Test
+    void testChangesAreOnlyLoggedWhenEnabled() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        ChangeCursor cursor = new ChangeCursor(repository.latestChange(), 1000);
+
+        repository.saveChanges(List.of(createTestHome(owner, "home1", 1.0)), List.of());
+        assertTrue(repository.pollChanges(cursor, 100).isEmpty());
+
+        repository.setChangeLogEnabled(true);
+        Home home = createTestHome(owner, "home2", 1.0);
+        repository.saveChangesIfUnchanged(List.of(home), List.of());
+        repository.saveChangesIfUnchanged(List.of(home), List.of());
+
+        List<HomeChange> changes = repository.pollChanges(cursor, 100);
+        assertEquals(1, changes.size());
+        assertEquals("home2", changes.getFirst().name());
+        assertEquals(repository.getNodeId(), changes.getFirst().node());
+    }
+
+    @Test
+    void testWorldNamesShareDictionaryEntries() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        repository.saveChanges(List.of(
+                createTestHome(owner, "a", 0),
+                new Home(0, owner, "b", "World", 0, 0, 0, 0f, 0f, 0L)), List.of());
+        new JdbcHomeRepository(connectionSource, JdbcHomeRepository.Dialect.SQLITE)
+                .saveChanges(List.of(createTestHome(owner, "c", 0)), List.of());
+
+        List<Home> stored = repository.findByOwner(owner);
+        assertEquals(3, stored.size());
+        assertTrue(stored.stream().anyMatch(h -> h.getName().equals("b") && h.getWorld().equals("World")));
+        assertEquals(2, stored.stream().map(Home::getWorld).distinct().count());
+    }
+
+    @Test
+    void testUpsertAcrossSeveralStatements() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        int count = JdbcHomeRepository.ROWS_PER_STATEMENT * 2 + 7;
+
+        List<Home> homes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            homes.add(createTestHome(owner, "home" + i, i));
+        }
+        repository.saveChanges(homes, List.of());
+
+        List<Home> updates = List.of(createTestHome(owner, "home0", -1.0), createTestHome(owner, "home" + (count - 1), -2.0));
+        repository.saveChanges(updates, List.of());
+
+        List<Home> stored = repository.findByOwner(owner);
+        assertEquals(count, stored.size());
+        assertTrue(stored.stream().anyMatch(h -> h.getName().equals("home0") && h.getX() == -1.0));
+        assertTrue(stored.stream().anyMatch(h -> h.getName().equals("home" + (count - 1)) && h.getX() == -2.0));
+    }
+
+    @Test
+    void testDeleteMatchesOwnerAndName() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        UUID otherOwner = UUID.randomUUID();
+        repository.saveChanges(List.of(
+                createTestHome(owner, "home1", 0),
+                createTestHome(owner, "home2", 0),
+                createTestHome(otherOwner, "home1", 0)), List.of());
+
+        repository.saveChanges(List.of(), List.of(createTestHome(owner, "home1", 0)));
+
+        List<Home> homes = repository.findAll();
+        assertEquals(2, homes.size());
+        assertTrue(homes.stream().noneMatch(h -> h.getOwner().equals(owner) && h.getName().equals("home1")));
+    }
+
+    @Test
+    void testRowMappingPreservesData() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        Home home = new Home(0, owner, "base", "world_nether", 1.5, 70.0, -3.25, 90.0f, -15.0f, 1234L);
+
+        repository.saveChanges(List.of(home), List.of());
+
+        Home stored = repository.findByOwner(owner).getFirst();
+        assertEquals(0, stored.getId());
+        assertEquals(owner, stored.getOwner());
+        assertEquals("base", stored.getName());
+        assertEquals("world_nether", stored.getWorld());
+        assertEquals(1.5, stored.getX());
+        assertEquals(70.0, stored.getY());
+        assertEquals(-3.25, stored.getZ());
+        assertEquals(90.0f, stored.getYaw());
+        assertEquals(-15.0f, stored.getPitch());
+        assertEquals(1234L, stored.getCreatedAt());
+    }
+
+    // Helper methods
+    private Home createTestHome(UUID owner, String name, double x) {
+        return new Home(0, owner, name, "world", x, 64.0, 200.0, 0.0f, 0.0f, System.currentTimeMillis());
+    }
+}
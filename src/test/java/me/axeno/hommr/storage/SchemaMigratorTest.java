@@ -0,0 +1,203 @@
+package me.axeno.hommr.storage;
+
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import me.axeno.hommr.models.Home;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SchemaMigratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String url;
+    private JdbcPooledConnectionSource connectionSource;
+    private JdbcHomeRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        url = "jdbc:sqlite:" + tempDir.resolve("homes.db");
+        connectionSource = new JdbcPooledConnectionSource(url);
+        repository = new JdbcHomeRepository(connectionSource, JdbcHomeRepository.Dialect.SQLITE);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connectionSource.close();
+    }
+
+    @Test
+    void testFreshDatabaseIsMigratedOnce() throws SQLException {
+        SchemaMigrator migrator = migrator(SchemaMigrator.DEFAULT_CHUNK_SIZE);
+
+        assertEquals(migrator.getLatestVersion(), migrator.migrate());
+        assertEquals(0, migrator.migrate());
+        assertFalse(tableExists(SchemaMigrator.LEGACY_BACKUP_TABLE));
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    @Test
+    void testLegacyHomesAreCopiedInChunks() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        UUID otherOwner = UUID.randomUUID();
+        createLegacyTable();
+        insertLegacyHome(owner.toString(), "home", "world", 1.0);
+        insertLegacyHome(owner.toString(), "home", "world", 2.0);
+        insertLegacyHome(owner.toString(), "nether", "world_nether", 3.0);
+        insertLegacyHome("not-a-uuid", "broken", "world", 4.0);
+        insertLegacyHome(otherOwner.toString(), "home", "world", 5.0);
+
+        migrator(2).migrate();
+
+        List<Home> homes = repository.findByOwner(owner);
+        assertEquals(2, homes.size());
+        assertTrue(homes.stream().anyMatch(h -> h.getName().equals("home") && h.getX() == 2.0));
+        assertTrue(homes.stream().anyMatch(h -> h.getName().equals("nether") && h.getWorld().equals("world_nether")));
+        assertEquals(3, repository.findAll().size());
+        assertFalse(tableExists(SchemaMigrator.LEGACY_TABLE));
+        assertTrue(tableExists(SchemaMigrator.LEGACY_BACKUP_TABLE));
+    }
+
+    @Test
+    void testInterruptedCopyResumesAfterCursor() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        createLegacyTable();
+        for (int i = 1; i <= 5; i++) {
+            insertLegacyHome(owner.toString(), "home" + i, "world", i);
+        }
+        execute("CREATE TABLE " + SchemaMigrator.VERSION_TABLE + " (version INT NOT NULL PRIMARY KEY,"
+                + " description VARCHAR(255) NOT NULL, applied_at BIGINT NOT NULL)");
+        execute("INSERT INTO " + SchemaMigrator.VERSION_TABLE + " VALUES (1, 'legacy key', 0)");
+        execute("CREATE TABLE " + SchemaMigrator.CURSOR_TABLE + " (version INT NOT NULL PRIMARY KEY, position BIGINT NOT NULL)");
+        execute("INSERT INTO " + SchemaMigrator.CURSOR_TABLE + " VALUES (2, 3)");
+
+        SchemaMigrator migrator = migrator(2);
+        assertEquals(migrator.getLatestVersion() - 1, migrator.migrate());
+
+        List<Home> homes = repository.findByOwner(owner);
+        assertEquals(2, homes.size());
+        assertTrue(homes.stream().allMatch(h -> h.getName().equals("home4") || h.getName().equals("home5")));
+    }
+
+    @Test
+    void testNamesFoldingTheSameAreMergedIntoTheLatest() throws SQLException {
+        UUID owner = UUID.randomUUID();
+        execute("CREATE TABLE " + SchemaMigrator.VERSION_TABLE + " (version INT NOT NULL PRIMARY KEY,"
+                + " description VARCHAR(255) NOT NULL, applied_at BIGINT NOT NULL)");
+        execute("INSERT INTO " + SchemaMigrator.VERSION_TABLE + " VALUES (1, 'legacy key', 0), (2, 'compact layout', 0),"
+                + " (3, 'change log', 0)");
+        execute("CREATE TABLE " + JdbcHomeRepository.WORLDS_TABLE + " (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name VARCHAR(255) NOT NULL UNIQUE)");
+        execute("INSERT INTO " + JdbcHomeRepository.WORLDS_TABLE + " (id, name) VALUES (1, 'world')");
+        execute("CREATE TABLE " + JdbcHomeRepository.TABLE + " (owner BLOB NOT NULL, name VARCHAR(255) NOT NULL COLLATE NOCASE,"
+                + " world_id INTEGER NOT NULL, x DOUBLE NOT NULL, y DOUBLE NOT NULL, z DOUBLE NOT NULL, yaw FLOAT NOT NULL,"
+                + " pitch FLOAT NOT NULL, created_at BIGINT NOT NULL, version BIGINT NOT NULL DEFAULT 1,"
+                + " PRIMARY KEY (owner, name)) WITHOUT ROWID");
+        execute("CREATE TABLE " + JdbcHomeRepository.CHANGES_TABLE + " (seq INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " owner BLOB NOT NULL, name VARCHAR(255) NOT NULL, node VARCHAR(36) NOT NULL, changed_at BIGINT NOT NULL)");
+        // NOCASE only folds ASCII letters, so both names were stored
+        insertHome(owner, "Café", 1.0, 1);
+        insertHome(owner, "CAFÉ", 2.0, 2);
+        insertHome(owner, "cafe", 3.0, 1);
+
+        SchemaMigrator migrator = migrator(2);
+        assertEquals(1, migrator.migrate());
+
+        List<Home> homes = repository.findByOwner(owner);
+        assertEquals(2, homes.size());
+        assertTrue(homes.stream().anyMatch(h -> h.getName().equals("CAFÉ") && h.getX() == 2.0));
+        assertTrue(homes.stream().anyMatch(h -> h.getName().equals("cafe")));
+
+        repository.saveChanges(List.of(new Home(0, owner, "café", "world", 4.0, 64, 0, 0f, 0f, 0L)), List.of());
+        assertEquals(2, repository.findByOwner(owner).size());
+    }
+
+    @Test
+    void testMySqlMigrationWaitsForTheLockOfOtherServers() throws SQLException {
+        ConnectionSource source = mock(ConnectionSource.class);
+        JdbcDatabaseConnection databaseConnection = mock(JdbcDatabaseConnection.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement lock = mock(PreparedStatement.class);
+        ResultSet result = mock(ResultSet.class);
+        when(source.getReadWriteConnection(anyString())).thenReturn(databaseConnection);
+        when(databaseConnection.getInternalConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT GET_LOCK(?, ?)")).thenReturn(lock);
+        when(lock.executeQuery()).thenReturn(result);
+        when(result.next()).thenReturn(true);
+        when(result.getInt(1)).thenReturn(0);
+
+        SchemaMigrator migrator = new SchemaMigrator(source, null, JdbcHomeRepository.Dialect.MYSQL,
+                Logger.getAnonymousLogger());
+        assertThrows(SQLException.class, migrator::migrate);
+
+        verify(lock).setString(1, SchemaMigrator.MIGRATION_LOCK);
+        verify(connection, never()).createStatement();
+        verify(connection, never()).prepareStatement("SELECT RELEASE_LOCK(?)");
+        verify(source).releaseConnection(databaseConnection);
+    }
+
+    // Helper methods
+    private SchemaMigrator migrator(int chunkSize) {
+        return new SchemaMigrator(connectionSource, repository, JdbcHomeRepository.Dialect.SQLITE,
+                Logger.getAnonymousLogger(), chunkSize);
+    }
+
+    private void createLegacyTable() throws SQLException {
+        execute("CREATE TABLE " + SchemaMigrator.LEGACY_TABLE + " (id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " owner VARCHAR(48) NOT NULL, name VARCHAR(255) NOT NULL, world VARCHAR(255) NOT NULL,"
+                + " x DOUBLE NOT NULL, y DOUBLE NOT NULL, z DOUBLE NOT NULL, yaw FLOAT NOT NULL, pitch FLOAT NOT NULL,"
+                + " createdAt BIGINT NOT NULL)");
+    }
+
+    private void insertLegacyHome(String owner, String name, String world, double x) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO " + SchemaMigrator.LEGACY_TABLE
+                     + " (owner, name, world, x, y, z, yaw, pitch, createdAt) VALUES (?, ?, ?, ?, 64, 0, 0, 0, 0)")) {
+            statement.setString(1, owner);
+            statement.setString(2, name);
+            statement.setString(3, world);
+            statement.setDouble(4, x);
+            statement.executeUpdate();
+        }
+    }
+
+    private void insertHome(UUID owner, String name, double x, long version) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO " + JdbcHomeRepository.TABLE
+                     + " (owner, name, world_id, x, y, z, yaw, pitch, created_at, version) VALUES (?, ?, 1, ?, 64, 0, 0, 0, 0, ?)")) {
+            statement.setBytes(1, JdbcHomeRepository.toBytes(owner));
+            statement.setString(2, name);
+            statement.setDouble(3, x);
+            statement.setLong(4, version);
+            statement.executeUpdate();
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+             ResultSet tables = connection.getMetaData().getTables(null, null, table, null)) {
+            return tables.next();
+        }
+    }
+}
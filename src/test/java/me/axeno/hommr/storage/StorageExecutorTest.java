@@ -0,0 +1,125 @@
+package me.axeno.hommr.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageExecutorTest {
+
+    private StorageExecutor executor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (executor != null) {
+            executor.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testTasksWithSameKeyRunInSubmissionOrder() throws Exception {
+        executor = new StorageExecutor(4, 100);
+        UUID owner = UUID.randomUUID();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int index = i;
+            futures.add(executor.submit(owner, () -> {
+                Thread.sleep(index % 3);
+                order.add(index);
+                return index;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void testTaskWithSeveralKeysIsOrderedWithEachKey() throws Exception {
+        executor = new StorageExecutor(4, 100);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Boolean> load = executor.submit(first, () -> {
+            boolean released = release.await(5, TimeUnit.SECONDS);
+            order.add("load");
+            return released;
+        });
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+            try {
+                executor.callWithKeys(Set.of(first, second), () -> order.add("write"));
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        while (executor.getPendingTasks() < 2) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<Boolean> reload = executor.submit(second, () -> order.add("reload"));
+
+        release.countDown();
+        assertTrue(load.get(5, TimeUnit.SECONDS));
+        write.get(5, TimeUnit.SECONDS);
+        assertTrue(reload.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("load", "write", "reload"), order);
+    }
+
+    @Test
+    void testSubmitShedsLoadWhenQueueIsFull() throws Exception {
+        executor = new StorageExecutor(1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> first = executor.submit(null, () -> release.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> second = executor.submit(null, () -> release.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> rejected = executor.submit(null, () -> release.await(5, TimeUnit.SECONDS));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(2, executor.getPendingTasks());
+
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCallRethrowsTaskException() {
+        executor = new StorageExecutor(1, 1);
+
+        SQLException e = assertThrows(SQLException.class, () -> executor.call(null, () -> {
+            throw new SQLException("down");
+        }));
+        assertEquals("down", e.getMessage());
+        assertEquals(0, executor.getPendingTasks());
+    }
+
+    @Test
+    void testShutdownWaitsForPendingTasksAndRejectsNewOnes() throws Exception {
+        executor = new StorageExecutor(1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> pending = executor.submit(null, () -> {
+            started.countDown();
+            Thread.sleep(50);
+            return "done";
+        });
+        started.await();
+
+        assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals("done", pending.get(1, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> executor.call(null, () -> "late"));
+    }
+}
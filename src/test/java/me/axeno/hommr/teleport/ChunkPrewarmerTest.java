@@ -0,0 +1,85 @@
+package me.axeno.hommr.teleport;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkPrewarmerTest {
+
+    @Mock
+    private Plugin mockPlugin;
+
+    @Mock
+    private World mockWorld;
+
+    private ChunkPrewarmer prewarmer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mockWorld.getName()).thenReturn("world");
+        lenient().when(mockWorld.getChunkAtAsync(anyInt(), anyInt())).thenReturn(CompletableFuture.completedFuture(mock(Chunk.class)));
+        prewarmer = new ChunkPrewarmer(mockPlugin, 2, name -> name.equals("world") ? mockWorld : null);
+    }
+
+    @Test
+    void testMostUsedChunksGetATicket() {
+        teleport(10, 10, 5);
+        teleport(100, 100, 4);
+        teleport(1000, 1000, 3);
+        teleport(5000, 5000, 1);
+
+        prewarmer.refresh();
+
+        assertEquals(2, prewarmer.getTicketCount());
+        verify(mockWorld).addPluginChunkTicket(0, 0, mockPlugin);
+        verify(mockWorld).addPluginChunkTicket(6, 6, mockPlugin);
+        verify(mockWorld, never()).addPluginChunkTicket(62, 62, mockPlugin);
+    }
+
+    @Test
+    void testTicketsFollowRecentUsage() {
+        teleport(10, 10, 4);
+        prewarmer.refresh();
+        verify(mockWorld).addPluginChunkTicket(0, 0, mockPlugin);
+
+        // Halved on every refresh: 4 -> 2 -> 1, which is below the minimum
+        prewarmer.refresh();
+        assertEquals(1, prewarmer.getTicketCount());
+        prewarmer.refresh();
+
+        assertEquals(0, prewarmer.getTicketCount());
+        verify(mockWorld).removePluginChunkTicket(0, 0, mockPlugin);
+    }
+
+    @Test
+    void testClearReleasesEveryTicket() {
+        teleport(10, 10, 2);
+        teleport(-10, -10, 2);
+        prewarmer.refresh();
+
+        prewarmer.clear();
+
+        assertEquals(0, prewarmer.getTicketCount());
+        verify(mockWorld).removePluginChunkTicket(0, 0, mockPlugin);
+        verify(mockWorld).removePluginChunkTicket(-1, -1, mockPlugin);
+    }
+
+    // Helper methods
+    private void teleport(double x, double z, int times) {
+        for (int i = 0; i < times; i++) {
+            prewarmer.record(new Location(mockWorld, x, 64, z));
+        }
+    }
+}
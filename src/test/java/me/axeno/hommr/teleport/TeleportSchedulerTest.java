@@ -0,0 +1,153 @@
+package me.axeno.hommr.teleport;
+
+import me.axeno.hommr.models.Home;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TeleportSchedulerTest {
+
+    private final List<Home> dispatched = new ArrayList<>();
+
+    @Test
+    void testDispatchesRightAwayWhileTheBudgetAllows() {
+        TeleportScheduler scheduler = createScheduler(2);
+        Player player = createPlayer();
+
+        CompletableFuture<TeleportResult> result = scheduler.submit(player, createHome("base", 0, 0), 0L);
+
+        assertEquals(TeleportResult.SUCCESS, result.getNow(null));
+        assertEquals(0, scheduler.size());
+        assertEquals(0, scheduler.getPosition(player.getUniqueId()));
+    }
+
+    @Test
+    void testBurstIsSpreadOverTicksInArrivalOrder() {
+        TeleportScheduler scheduler = createScheduler(2);
+        List<Player> players = new ArrayList<>();
+        List<CompletableFuture<TeleportResult>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Player player = createPlayer();
+            players.add(player);
+            results.add(scheduler.submit(player, createHome("home" + i, i * 1000, 0), 0L));
+        }
+
+        assertEquals(2, dispatched.size());
+        assertEquals(3, scheduler.size());
+        assertEquals(1, scheduler.getPosition(players.get(2).getUniqueId()));
+        assertEquals(3, scheduler.getPosition(players.get(4).getUniqueId()));
+        assertFalse(results.get(2).isDone());
+
+        scheduler.tick();
+        assertEquals(4, dispatched.size());
+        assertEquals("home2", dispatched.get(2).getName());
+        assertEquals(1, scheduler.getPosition(players.get(4).getUniqueId()));
+
+        scheduler.tick();
+        assertEquals(5, dispatched.size());
+        assertTrue(results.stream().allMatch(result -> result.getNow(null) == TeleportResult.SUCCESS));
+    }
+
+    @Test
+    void testTeleportsToTheSameChunkGoTogether() {
+        TeleportScheduler scheduler = createScheduler(1);
+        scheduler.submit(createPlayer(), createHome("first", 5000, 5000), 0L);
+        Player far = createPlayer();
+        scheduler.submit(createPlayer(), createHome("spawn", 1, 1), 0L);
+        scheduler.submit(far, createHome("far", -5000, -5000), 0L);
+        scheduler.submit(createPlayer(), createHome("spawn", 2, 2), 0L);
+
+        scheduler.tick();
+        assertEquals(List.of("first", "spawn"), dispatched.stream().map(Home::getName).toList());
+
+        // The rest of the group goes before the older teleport to another chunk
+        scheduler.tick();
+        assertEquals(List.of("first", "spawn", "spawn"), dispatched.stream().map(Home::getName).toList());
+        assertEquals(1, scheduler.getPosition(far.getUniqueId()));
+    }
+
+    @Test
+    void testLargeGroupToOneChunkStaysWithinTheCap() {
+        TeleportScheduler scheduler = createScheduler(2);
+        scheduler.submit(createPlayer(), createHome("first", 5000, 5000), 0L);
+        scheduler.submit(createPlayer(), createHome("second", 6000, 6000), 0L);
+        for (int i = 0; i < 5; i++) {
+            scheduler.submit(createPlayer(), createHome("spawn", i, i), 0L);
+        }
+        Player far = createPlayer();
+        scheduler.submit(far, createHome("far", -5000, -5000), 0L);
+
+        scheduler.tick();
+        assertEquals(4, dispatched.size());
+        assertEquals(4, scheduler.size());
+
+        scheduler.tick();
+        assertEquals(List.of("spawn", "spawn"), dispatched.subList(4, 6).stream().map(Home::getName).toList());
+        scheduler.tick();
+        assertEquals(List.of("spawn", "far"), dispatched.subList(6, 8).stream().map(Home::getName).toList());
+        assertEquals(0, scheduler.getPosition(far.getUniqueId()));
+    }
+
+    @Test
+    void testNewerTeleportKeepsThePlaceOfThePreviousOne() {
+        TeleportScheduler scheduler = createScheduler(1);
+        scheduler.submit(createPlayer(), createHome("first", 0, 0), 0L);
+        Player spammer = createPlayer();
+        Player other = createPlayer();
+
+        CompletableFuture<TeleportResult> replaced = scheduler.submit(spammer, createHome("base", 100, 100), 0L);
+        scheduler.submit(other, createHome("farm", 200, 200), 0L);
+        CompletableFuture<TeleportResult> latest = scheduler.submit(spammer, createHome("mine", 300, 300), 0L);
+
+        assertEquals(TeleportResult.REPLACED, replaced.getNow(null));
+        assertEquals(2, scheduler.size());
+        assertEquals(1, scheduler.getPosition(spammer.getUniqueId()));
+
+        scheduler.tick();
+        assertEquals("mine", dispatched.get(1).getName());
+        assertEquals(TeleportResult.SUCCESS, latest.getNow(null));
+    }
+
+    @Test
+    void testCancelDropsTheQueuedTeleport() {
+        TeleportScheduler scheduler = createScheduler(1);
+        scheduler.submit(createPlayer(), createHome("first", 0, 0), 0L);
+        Player leaving = createPlayer();
+        Player staying = createPlayer();
+        CompletableFuture<TeleportResult> dropped = scheduler.submit(leaving, createHome("base", 100, 100), 0L);
+        scheduler.submit(staying, createHome("farm", 200, 200), 0L);
+
+        assertTrue(scheduler.cancel(leaving.getUniqueId()));
+        assertFalse(scheduler.cancel(leaving.getUniqueId()));
+
+        assertEquals(TeleportResult.FAILED, dropped.getNow(null));
+        assertEquals(1, scheduler.getPosition(staying.getUniqueId()));
+        scheduler.tick();
+        assertEquals(List.of("first", "farm"), dispatched.stream().map(Home::getName).toList());
+    }
+
+    // Helper methods
+    private TeleportScheduler createScheduler(int maxPerTick) {
+        return new TeleportScheduler(Long.MAX_VALUE, maxPerTick, (player, home, start) -> {
+            dispatched.add(home);
+            return CompletableFuture.completedFuture(TeleportResult.SUCCESS);
+        });
+    }
+
+    private Player createPlayer() {
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        return player;
+    }
+
+    private Home createHome(String name, double x, double z) {
+        return new Home(0, UUID.randomUUID(), name, "world", x, 64, z, 0f, 0f, 0L);
+    }
+}
@@ -0,0 +1,132 @@
+package me.axeno.hommr.teleport;
+
+import me.axeno.hommr.models.Home;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TeleportWarmupsTest {
+
+    private final List<Home> dispatched = new ArrayList<>();
+    private final World world = mock(World.class);
+    private long now = 1_000_000L;
+
+    @Test
+    void testTeleportIsDispatchedOnceTheWarmupEnds() {
+        TeleportWarmups warmups = createWarmups(3, 0);
+        Player player = createPlayer();
+
+        CompletableFuture<TeleportResult> result = warmups.submit(player, createHome("base"), 0L);
+
+        assertFalse(result.isDone());
+        assertEquals(3000, warmups.getRemainingWarmupMillis(player.getUniqueId()));
+        tick(warmups, 59);
+        assertTrue(dispatched.isEmpty());
+        tick(warmups, 1);
+        assertEquals(TeleportResult.SUCCESS, result.getNow(null));
+        assertEquals(0, warmups.size());
+    }
+
+    @Test
+    void testMovingToAnotherBlockInterruptsTheWarmup() {
+        TeleportWarmups warmups = createWarmups(3, 0);
+        Player player = createPlayer();
+        CompletableFuture<TeleportResult> result = warmups.submit(player, createHome("base"), 0L);
+
+        warmups.handleMove(player, new Location(world, 10.9, 64, 10.1));
+        assertFalse(result.isDone());
+        warmups.handleMove(player, new Location(world, 11.2, 64, 10.1));
+
+        assertEquals(TeleportResult.INTERRUPTED, result.getNow(null));
+        tick(warmups, 60);
+        assertTrue(dispatched.isEmpty());
+    }
+
+    @Test
+    void testCooldownStartsOnceTheTeleportSucceeded() {
+        TeleportWarmups warmups = createWarmups(0, 10);
+        Player player = createPlayer();
+
+        assertEquals(TeleportResult.SUCCESS, warmups.submit(player, createHome("base"), 0L).getNow(null));
+        assertEquals(TeleportResult.ON_COOLDOWN, warmups.submit(player, createHome("farm"), 0L).getNow(null));
+        assertEquals(10_000, warmups.getRemainingCooldownMillis(player.getUniqueId()));
+
+        now += 10_000;
+        assertEquals(TeleportResult.SUCCESS, warmups.submit(player, createHome("farm"), 0L).getNow(null));
+        assertEquals(List.of("base", "farm"), dispatched.stream().map(Home::getName).toList());
+    }
+
+    @Test
+    void testPermissionsShortenOrRemoveTheWarmup() {
+        TeleportWarmups warmups = createWarmups(3, 0);
+        Player vip = createPlayer();
+        when(vip.hasPermission("hommr.warmup.vip")).thenReturn(true);
+        Player staff = createPlayer();
+        when(staff.hasPermission("hommr.warmup.bypass")).thenReturn(true);
+
+        warmups.submit(vip, createHome("base"), 0L);
+
+        assertEquals(1000, warmups.getRemainingWarmupMillis(vip.getUniqueId()));
+        assertEquals(TeleportResult.SUCCESS, warmups.submit(staff, createHome("base"), 0L).getNow(null));
+    }
+
+    @Test
+    void testNewerTeleportReplacesThePendingOne() {
+        TeleportWarmups warmups = createWarmups(3, 0);
+        Player player = createPlayer();
+
+        CompletableFuture<TeleportResult> replaced = warmups.submit(player, createHome("base"), 0L);
+        tick(warmups, 30);
+        CompletableFuture<TeleportResult> latest = warmups.submit(player, createHome("farm"), 0L);
+
+        assertEquals(TeleportResult.REPLACED, replaced.getNow(null));
+        tick(warmups, 59);
+        assertFalse(latest.isDone());
+        tick(warmups, 1);
+        assertEquals(List.of("farm"), dispatched.stream().map(Home::getName).toList());
+    }
+
+    // Helper methods
+    private TeleportWarmups createWarmups(int warmupSeconds, int cooldownSeconds) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("warmup.seconds", warmupSeconds);
+        config.set("warmup.permissions.vip", 1);
+        config.set("cooldown.seconds", cooldownSeconds);
+        return new TeleportWarmups(
+                PermissionDurations.fromConfig(config.getConfigurationSection("warmup"), "hommr.warmup."),
+                PermissionDurations.fromConfig(config.getConfigurationSection("cooldown"), "hommr.cooldown."),
+                true,
+                (player, home, start) -> {
+                    dispatched.add(home);
+                    return CompletableFuture.completedFuture(TeleportResult.SUCCESS);
+                },
+                () -> now);
+    }
+
+    private Player createPlayer() {
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        lenient().when(player.getLocation()).thenReturn(new Location(world, 10.5, 64, 10.5));
+        return player;
+    }
+
+    private Home createHome(String name) {
+        return new Home(0, UUID.randomUUID(), name, "world", 0, 64, 0, 0f, 0f, 0L);
+    }
+
+    private void tick(TeleportWarmups warmups, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            warmups.tick();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package me.axeno.hommr.teleport;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private final List<String> expired = new ArrayList<>();
+
+    @Test
+    void testItemsExpireAtTheirTickInSchedulingOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        wheel.schedule("late", 3);
+        wheel.schedule("first", 2);
+        wheel.schedule("second", 2);
+
+        advance(wheel, 1);
+        assertTrue(expired.isEmpty());
+        advance(wheel, 1);
+        assertEquals(List.of("first", "second"), expired);
+        advance(wheel, 1);
+        assertEquals(List.of("first", "second", "late"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testDelaysLongerThanATurnWaitForTheirRound() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        TimingWheel<String>.Timeout timeout = wheel.schedule("far", 20);
+        wheel.schedule("near", 4);
+
+        advance(wheel, 19);
+        assertEquals(List.of("near"), expired);
+        assertEquals(1, timeout.remainingTicks());
+
+        advance(wheel, 1);
+        assertEquals(List.of("near", "far"), expired);
+        assertEquals(0, timeout.remainingTicks());
+    }
+
+    @Test
+    void testCancelledItemsNeverExpire() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        TimingWheel<String>.Timeout cancelled = wheel.schedule("cancelled", 2);
+        wheel.schedule("kept", 2);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.size());
+
+        advance(wheel, 2);
+        assertEquals(List.of("kept"), expired);
+
+        TimingWheel<String>.Timeout cleared = wheel.schedule("cleared", 1);
+        wheel.clear();
+        assertFalse(cleared.cancel());
+        advance(wheel, 1);
+        assertEquals(List.of("kept"), expired);
+    }
+
+    // Helper methods
+    private void advance(TimingWheel<String> wheel, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance(expired::add);
+        }
+    }
+}